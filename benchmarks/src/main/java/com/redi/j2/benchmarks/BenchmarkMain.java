@@ -0,0 +1,51 @@
+package com.redi.j2.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Starting point of the benchmarks jar.
+ * It runs JMH with the given arguments and, unless another result format is requested,
+ * saves the results as JSON in the "results" folder, so different releases can be compared.
+ */
+public class BenchmarkMain {
+
+    /**
+     * Folder where the JSON results are saved
+     */
+    private static final Path RESULTS_FOLDER = Paths.get("results");
+
+    /**
+     * Runs the benchmarks
+     * @param args the JMH command line arguments (e.g. a regular expression to select benchmarks)
+     * @throws Exception if JMH fails to run
+     */
+    public static void main(String[] args) throws Exception {
+        List<String> jmhArgs = new ArrayList<>(Arrays.asList(args));
+        if (!jmhArgs.contains("-rf") && !jmhArgs.contains("-h") && !jmhArgs.contains("-l")) {
+            jmhArgs.add("-rf");
+            jmhArgs.add("json");
+            jmhArgs.add("-rff");
+            jmhArgs.add(resultFile().toString());
+        }
+        org.openjdk.jmh.Main.main(jmhArgs.toArray(new String[0]));
+    }
+
+    /**
+     * Creates the name of the result file, based on the current date and time
+     * @return the path of the result file
+     * @throws IOException if the results folder cannot be created
+     */
+    private static Path resultFile() throws IOException {
+        Files.createDirectories(RESULTS_FOLDER);
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        return RESULTS_FOLDER.resolve("jmh-" + timestamp + ".json");
+    }
+}
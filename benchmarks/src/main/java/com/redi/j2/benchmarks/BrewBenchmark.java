@@ -0,0 +1,90 @@
+package com.redi.j2.benchmarks;
+
+import com.redi.j2.coffeemaker.CoffeeMaker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the brew path of a single machine: uncontended, contended, and mixed with refills,
+ * with and without metrics
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BrewBenchmark {
+
+    /**
+     * The amount of each ingredient used to fill the machine
+     */
+    private static final int REFILL = 1_000_000;
+
+    @Param({"false", "true"})
+    private boolean metrics;
+
+    private CoffeeMaker coffeeMaker;
+
+    @Setup
+    public void setUp() {
+        coffeeMaker = new CoffeeMaker();
+        coffeeMaker.addIngredients(REFILL, REFILL, REFILL, REFILL);
+        if (metrics) coffeeMaker.enableMetrics();
+    }
+
+    /**
+     * Makes the default Recipe, refilling the machine whenever it runs dry
+     */
+    private boolean brew() {
+        if (coffeeMaker.makeCoffee("Cappuccino")) return true;
+        coffeeMaker.addIngredients(REFILL, REFILL, REFILL, REFILL);
+        return false;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean makeCoffee() {
+        return brew();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean makeCoffeeContended() {
+        return brew();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean hasEnoughIngredientsToMakeRecipe() {
+        return coffeeMaker.hasEnoughIngredientsToMakeRecipe("Cappuccino");
+    }
+
+    @Benchmark
+    @Group("brewWithRefills")
+    @GroupThreads(3)
+    public boolean brewing() {
+        return brew();
+    }
+
+    @Benchmark
+    @Group("brewWithRefills")
+    @GroupThreads(1)
+    public void refilling() {
+        coffeeMaker.addIngredients(2, 3, 0, 1);
+    }
+}
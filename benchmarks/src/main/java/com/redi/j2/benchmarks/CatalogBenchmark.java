@@ -0,0 +1,83 @@
+package com.redi.j2.benchmarks;
+
+import com.redi.j2.coffeemaker.CoffeeMaker;
+import com.redi.j2.coffeemaker.Recipe;
+import com.redi.j2.coffeemaker.RecipeBook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Recipe lookups and brewing with catalogs of different sizes
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CatalogBenchmark {
+
+    @Param({"4", "100", "10000", "100000"})
+    private int catalogSize;
+
+    private RecipeBook recipeBook;
+
+    private CoffeeMaker coffeeMaker;
+
+    private String[] names;
+
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        recipeBook = new RecipeBook(catalogSize);
+        coffeeMaker = new CoffeeMaker(catalogSize + 1);
+        names = new String[catalogSize];
+        List<Recipe> recipes = new ArrayList<>(catalogSize);
+        for (int i = 0; i < catalogSize; i++) {
+            names[i] = "Recipe " + i;
+            recipes.add(new Recipe(names[i], BigDecimal.ONE, i % 3, i % 5, i % 2, i % 4));
+        }
+        // added at once: adding them one by one copies the catalog for every Recipe
+        recipeBook.addRecipes(recipes);
+        coffeeMaker.addRecipes(recipes);
+        coffeeMaker.addIngredients(Integer.MAX_VALUE / 2, Integer.MAX_VALUE / 2, Integer.MAX_VALUE / 2, Integer.MAX_VALUE / 2);
+    }
+
+    /**
+     * Cycles through all the Recipe names
+     */
+    private String nextName() {
+        next = (next + 1) % names.length;
+        return names[next];
+    }
+
+    @Benchmark
+    public Recipe getRecipe() {
+        return recipeBook.getRecipe(nextName());
+    }
+
+    @Benchmark
+    public boolean hasEnoughIngredientsToMakeRecipe() {
+        return coffeeMaker.hasEnoughIngredientsToMakeRecipe(nextName());
+    }
+
+    @Benchmark
+    public boolean makeCoffee() {
+        return coffeeMaker.makeCoffee(nextName());
+    }
+}
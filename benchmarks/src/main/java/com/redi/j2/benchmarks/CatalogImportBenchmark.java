@@ -0,0 +1,86 @@
+package com.redi.j2.benchmarks;
+
+import com.redi.j2.coffeemaker.CatalogImporter;
+import com.redi.j2.coffeemaker.Recipe;
+import com.redi.j2.coffeemaker.RecipeBook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading a whole catalog from a CSV file and from a binary catalog file
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CatalogImportBenchmark {
+
+    @Param({"100000"})
+    private int catalogSize;
+
+    private Path folder;
+
+    private Path csvFile;
+
+    private Path binaryFile;
+
+    @Setup
+    public void setUp() throws Exception {
+        folder = Files.createTempDirectory("catalog-benchmark");
+        csvFile = folder.resolve("catalog.csv");
+        binaryFile = folder.resolve("catalog.bin");
+        List<Recipe> recipes = new ArrayList<>();
+        try (BufferedWriter writer = Files.newBufferedWriter(csvFile, StandardCharsets.UTF_8)) {
+            writer.write("name,price,coffee,milk,chocolate,sugar\n");
+            for (int i = 0; i < catalogSize; i++) {
+                Recipe recipe = new Recipe("Recipe " + i, new BigDecimal("2.50"), i % 3, i % 5, i % 2, i % 4);
+                recipes.add(recipe);
+                writer.write(recipe.getName() + ",2.50," + (i % 3) + "," + (i % 5) + "," + (i % 2) + "," + (i % 4) + "\n");
+            }
+        }
+        CatalogImporter.writeBinary(binaryFile, recipes);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csvFile);
+        Files.deleteIfExists(binaryFile);
+        Files.deleteIfExists(folder);
+    }
+
+    @Benchmark
+    public RecipeBook loadCsv() throws IOException {
+        RecipeBook recipeBook = new RecipeBook(catalogSize);
+        recipeBook.addRecipes(CatalogImporter.readCsv(Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)).getRecipes());
+        return recipeBook;
+    }
+
+    @Benchmark
+    public RecipeBook loadBinary() throws IOException {
+        RecipeBook recipeBook = new RecipeBook(catalogSize);
+        recipeBook.addRecipes(CatalogImporter.readBinary(binaryFile).getRecipes());
+        return recipeBook;
+    }
+}
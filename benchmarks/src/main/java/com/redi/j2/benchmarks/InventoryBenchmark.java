@@ -0,0 +1,57 @@
+package com.redi.j2.benchmarks;
+
+import com.redi.j2.coffeemaker.Ingredient;
+import com.redi.j2.coffeemaker.Inventory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the Inventory updates on their own
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InventoryBenchmark {
+
+    private Inventory inventory;
+
+    private final int[] snapshot = new int[Ingredient.values().length];
+
+    private final int[] recipe = {2, 3, 0, 1};
+
+    @Setup
+    public void setUp() {
+        inventory = new Inventory(10, 10, 10, 10);
+    }
+
+    @Benchmark
+    public boolean addAndRemoveIngredient() {
+        inventory.addIngredient(Ingredient.MILK, 1);
+        return inventory.removeAmount(Ingredient.MILK, 1);
+    }
+
+    @Benchmark
+    public boolean removeAndRefill() {
+        boolean removed = inventory.removeAmounts(recipe);
+        inventory.addAmounts(recipe);
+        return removed;
+    }
+
+    @Benchmark
+    public int[] snapshot() {
+        return inventory.snapshot(snapshot);
+    }
+}
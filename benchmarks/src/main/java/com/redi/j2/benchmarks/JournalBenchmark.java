@@ -0,0 +1,115 @@
+package com.redi.j2.benchmarks;
+
+import com.redi.j2.coffeemaker.CoffeeMaker;
+import com.redi.j2.coffeemaker.Journal;
+import com.redi.j2.coffeemaker.RecipeBook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the cost of journaling a brew, and the time to recover a journal of different sizes
+ */
+@Fork(1)
+public class JournalBenchmark {
+
+    private static final int REFILL = 1_000_000;
+
+    /**
+     * A journaled machine, to compare with the plain brew in {@link BrewBenchmark}
+     */
+    @State(Scope.Benchmark)
+    public static class Journaled {
+
+        private Path directory;
+
+        private CoffeeMaker coffeeMaker;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("journal-benchmark");
+            coffeeMaker = new CoffeeMaker(RecipeBook.MAX_RECIPES, new Journal(directory));
+            coffeeMaker.addIngredients(REFILL, REFILL, REFILL, REFILL);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            coffeeMaker.getJournal().close();
+            delete(directory);
+        }
+    }
+
+    /**
+     * A journal with a given amount of log records after its last snapshot
+     */
+    @State(Scope.Benchmark)
+    public static class Recovery {
+
+        @Param({"1000", "10000", "100000"})
+        private int records;
+
+        private Path directory;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("journal-benchmark");
+            CoffeeMaker coffeeMaker = new CoffeeMaker(RecipeBook.MAX_RECIPES, new Journal(directory, Integer.MAX_VALUE));
+            for (int i = 0; i < records / 2; i++) {
+                coffeeMaker.addIngredients(2, 3, 0, 1);
+                coffeeMaker.makeCoffee("Cappuccino");
+            }
+            coffeeMaker.getJournal().close();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            delete(directory);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public boolean journaledMakeCoffee(Journaled state) {
+        if (state.coffeeMaker.makeCoffee("Cappuccino")) return true;
+        state.coffeeMaker.addIngredients(REFILL, REFILL, REFILL, REFILL);
+        return false;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public CoffeeMaker recover(Recovery state) throws IOException {
+        Journal journal = new Journal(state.directory, Integer.MAX_VALUE);
+        CoffeeMaker coffeeMaker = new CoffeeMaker(RecipeBook.MAX_RECIPES, journal);
+        journal.close();
+        return coffeeMaker;
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+}
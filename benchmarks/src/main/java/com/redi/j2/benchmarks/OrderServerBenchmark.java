@@ -0,0 +1,130 @@
+package com.redi.j2.benchmarks;
+
+import com.redi.j2.api.OrderServer;
+import com.redi.j2.coffeemaker.CoffeeMaker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures orders served over HTTP, with one kept-alive connection per benchmark thread.
+ * The client only writes the request and skips the response, so most of the time is spent in the server.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+public class OrderServerBenchmark {
+
+    private static final byte[] BREW_REQUEST = ("POST /brew?recipe=Cappuccino HTTP/1.1\r\n"
+            + "Host: localhost\r\nContent-Length: 0\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+
+    @State(Scope.Benchmark)
+    public static class Server {
+
+        private CoffeeMaker coffeeMaker;
+
+        private OrderServer server;
+
+        @Setup
+        public void setUp() throws IOException {
+            System.setProperty(OrderServer.NO_DELAY_PROPERTY, "true");
+            coffeeMaker = new CoffeeMaker();
+            server = new OrderServer(coffeeMaker, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                    Runtime.getRuntime().availableProcessors() * 2);
+            server.start();
+        }
+
+        @Setup(Level.Iteration)
+        public void refill() {
+            coffeeMaker.addIngredients(100_000_000, 100_000_000, 100_000_000, 100_000_000);
+        }
+
+        @TearDown
+        public void tearDown() {
+            server.stop(0);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Connection {
+
+        private Socket socket;
+
+        private OutputStream out;
+
+        private BufferedInputStream in;
+
+        @Setup
+        public void setUp(Server server) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), server.server.getPort());
+            socket.setTcpNoDelay(true);
+            out = socket.getOutputStream();
+            in = new BufferedInputStream(socket.getInputStream());
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            socket.close();
+        }
+
+        /**
+         * Reads the headers of a response, and skips its body
+         * @return the length of the body
+         */
+        int readResponse() throws IOException {
+            int contentLength = 0;
+            int lineLength = 0;
+            StringBuilder line = new StringBuilder();
+            while (true) {
+                int b = in.read();
+                if (b < 0) throw new EOFException();
+                if (b == '\r') continue;
+                if (b != '\n') {
+                    line.append((char) b);
+                    lineLength++;
+                    continue;
+                }
+                if (lineLength == 0) break;
+                if (line.length() > 15 && line.substring(0, 15).equalsIgnoreCase("content-length:")) {
+                    contentLength = Integer.parseInt(line.substring(15).trim());
+                }
+                line.setLength(0);
+                lineLength = 0;
+            }
+            for (long skipped = 0; skipped < contentLength; ) {
+                skipped += in.skip(contentLength - skipped);
+            }
+            return contentLength;
+        }
+    }
+
+    @Benchmark
+    public int brew(Server server, Connection connection) throws IOException {
+        connection.out.write(BREW_REQUEST);
+        connection.out.flush();
+        return connection.readResponse();
+    }
+}
@@ -0,0 +1,117 @@
+package com.redi.j2.benchmarks;
+
+import com.redi.j2.utils.ColorType;
+import com.redi.j2.utils.ConsoleUtils;
+import com.redi.j2.utils.Screen;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to draw the coffee menu on a slow terminal,
+ * printing line by line like System.out does, or writing the whole screen at once
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScreenBenchmark {
+
+    /**
+     * How long the terminal takes for every write, no matter its size
+     */
+    @Param({"20000"})
+    public long nanosPerWrite;
+
+    /**
+     * How long the terminal takes for every byte
+     */
+    @Param({"100"})
+    public long nanosPerByte;
+
+    private final String[] names = {
+            "Cappuccino ($2.70)", "Latte ($2.50)", "Mocha ($3.10)", "Espresso ($1.80)", "Back"
+    };
+
+    private final int[] numbers = {1, 2, 3, 4, 0};
+
+    private final boolean[] enabled = {true, true, false, true, true};
+
+    private PrintStream printStream;
+
+    private Screen screen;
+
+    @Setup
+    public void setUp() {
+        OutputStream terminal = new ThrottledOutputStream(nanosPerWrite, nanosPerByte);
+        // the same buffer size and automatic flush as System.out
+        printStream = new PrintStream(new BufferedOutputStream(terminal, 128), true);
+        screen = new Screen(terminal);
+    }
+
+    @Benchmark
+    public void printLineByLine() {
+        printStream.println();
+        printStream.println(ConsoleUtils.menuFormatter("COFFEE", names, numbers, enabled,
+                ColorType.BRIGHT_GREEN, ColorType.BLUE, ColorType.GREEN));
+        printStream.println();
+        printStream.print("Please select the number of the recipe to purchase: ");
+        printStream.flush();
+    }
+
+    @Benchmark
+    public void writeWholeScreen() {
+        screen.println()
+                .menu("COFFEE", names, numbers, enabled, ColorType.BRIGHT_GREEN, ColorType.BLUE, ColorType.GREEN)
+                .println()
+                .print("Please select the number of the recipe to purchase: ")
+                .flush();
+    }
+
+    /**
+     * A terminal that takes some time for each write and for each byte written
+     */
+    private static final class ThrottledOutputStream extends OutputStream {
+
+        private final long nanosPerWrite;
+
+        private final long nanosPerByte;
+
+        private ThrottledOutputStream(long nanosPerWrite, long nanosPerByte) {
+            this.nanosPerWrite = nanosPerWrite;
+            this.nanosPerByte = nanosPerByte;
+        }
+
+        @Override
+        public void write(int b) {
+            spin(nanosPerWrite + nanosPerByte);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            spin(nanosPerWrite + nanosPerByte * len);
+        }
+
+        private static void spin(long nanos) {
+            long end = System.nanoTime() + nanos;
+            while (System.nanoTime() < end) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+}
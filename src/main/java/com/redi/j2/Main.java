@@ -1,38 +1,181 @@
 package com.redi.j2;
 
+import com.redi.j2.api.OrderServer;
 import com.redi.j2.coffeemaker.CoffeeMaker;
+import com.redi.j2.coffeemaker.IngredientRegistry;
 import com.redi.j2.coffeemaker.Inventory;
+import com.redi.j2.coffeemaker.Journal;
 import com.redi.j2.coffeemaker.Recipe;
 import com.redi.j2.coffeemaker.RecipeBook;
 import com.redi.j2.exceptions.InvalidRecipeIngredientAmountException;
 import com.redi.j2.exceptions.InvalidRecipePriceException;
 import com.redi.j2.utils.ColorType;
 import com.redi.j2.utils.ConsoleUtils;
+import com.redi.j2.tools.ScriptRunner;
+import com.redi.j2.utils.Screen;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Main {
 
     /**
      * Main function, starting point of the application.
-     * @param args not used
+     * @param args optional: "--journal &lt;directory&gt;" to save the state of the machine in that directory,
+     *             "--headless" to skip the header and the loading bar,
+     *             "--script &lt;file&gt;" to run a script of commands instead of showing the menus
+     *             (use "-" to read the script from the standard input),
+     *             and "--http &lt;port&gt;" to serve orders over HTTP instead of showing the menus
      */
     public static void main(String[] args) {
 
-        // creating the application and coffee machine
-        Main m = new Main(new CoffeeMaker());
+        String port = argumentValue(args, "--http");
+        if (port != null) {
+            runServer(createCoffeeMaker(args), port);
+            return;
+        }
 
-        // printing the header
-        ConsoleUtils.showHeader();
+        String script = argumentValue(args, "--script");
+        if (script != null) {
+            runScript(createCoffeeMaker(args), script);
+            return;
+        }
 
-        // set the animation time for a lower value (>0) if you don't want to wait
-        int animationTime = 5000;
+        boolean headless = Arrays.asList(args).contains("--headless");
 
-        ConsoleUtils.playWarmingUpAnimation(animationTime);
+        // loading the machine, drawing the menus and warming up the brewing, all at the same time
+        WarmUp warmUp = new WarmUp();
+        CompletableFuture<Main> app = warmUp.submit("Loading Recipes", 1, progress -> new Main(createCoffeeMaker(args)));
+        warmUp.submit("Drawing Menus", 1, progress -> {
+            app.join().prerenderMenus();
+            return null;
+        });
+        warmUp.submit("Warming Up", WARM_UP_BREWS / 1000, progress -> {
+            warmUpBrewing(progress);
+            return null;
+        });
+
+        if (headless) {
+            warmUp.await(null);
+        } else {
+            ConsoleUtils.showHeader();
+            warmUp.await(w -> ConsoleUtils.showWarmingUpProgress(w.getPercentage(), w.getLastMessage()));
+            ConsoleUtils.showWarmingUpProgress(100, "Welcome to Coffee Maker 2022!");
+            ConsoleUtils.clearWarmingUpProgress();
+        }
 
         // start the application
-        m.mainMenu();
+        app.join().mainMenu();
+    }
+
+    /**
+     * How many coffees are made while warming up, so the brewing code is already compiled
+     * when the first real coffee is made
+     */
+    private static final int WARM_UP_BREWS = 20_000;
+
+    /**
+     * Makes coffees with a separate machine, so the brewing code gets compiled by the JVM
+     * before the first customer arrives. The real machine is not changed.
+     * @param progress reports one unit of progress every 1000 coffees
+     */
+    private static void warmUpBrewing(WarmUp.Progress progress) {
+        CoffeeMaker machine = new CoffeeMaker();
+        for (int i = 1; i <= WARM_UP_BREWS; i++) {
+            if (!machine.makeCoffee("Cappuccino")) machine.addIngredients(100, 100, 100, 100);
+            if (i % 1000 == 0) progress.advance();
+        }
+    }
+
+    /**
+     * Finds the value given to an option in the command line
+     * @param args the command line arguments
+     * @param option the name of the option
+     * @return the argument after the option, or null if the option was not given
+     */
+    private static String argumentValue(String[] args, String option) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(option)) return args[i + 1];
+        }
+        return null;
+    }
+
+    /**
+     * Runs a script of commands against the machine, and shows what happened
+     * @param coffeeMaker the coffee maker machine
+     * @param script the path of the script, or "-" for the standard input
+     */
+    private static void runScript(CoffeeMaker coffeeMaker, String script) {
+        ScriptRunner runner = new ScriptRunner(coffeeMaker);
+        try (Reader reader = script.equals("-")
+                ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                : Files.newBufferedReader(Paths.get(script), StandardCharsets.UTF_8)) {
+            ScriptRunner.Summary summary = runner.run(reader);
+            System.out.println(summary.report(coffeeMaker));
+            if (coffeeMaker.getJournal() != null) coffeeMaker.getJournal().close();
+        } catch (IOException e) {
+            System.out.println(ConsoleUtils.warningMessage("It was not possible to run the script: " + e.getMessage()));
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Serves orders over HTTP until the application is stopped
+     * @param coffeeMaker the coffee maker machine
+     * @param port the port where the server listens
+     */
+    private static void runServer(CoffeeMaker coffeeMaker, String port) {
+        // this is the only HTTP server of the application, so it can choose the option for all of them
+        if (System.getProperty(OrderServer.NO_DELAY_PROPERTY) == null) {
+            System.setProperty(OrderServer.NO_DELAY_PROPERTY, "true");
+        }
+        try {
+            OrderServer server = new OrderServer(coffeeMaker, new InetSocketAddress(Integer.parseInt(port)),
+                    Runtime.getRuntime().availableProcessors() * 2);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.stop(1);
+                try {
+                    if (coffeeMaker.getJournal() != null) coffeeMaker.getJournal().close();
+                } catch (IOException e) {
+                    // the log is replayed on the next start, nothing is lost
+                }
+            }));
+            server.start();
+            System.out.println("Serving orders on port " + server.getPort());
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println(ConsoleUtils.warningMessage("It was not possible to start the server: " + e.getMessage()));
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Creates the coffee maker machine, journaled if a journal directory was given
+     * @param args the command line arguments
+     * @return the coffee maker machine
+     */
+    private static CoffeeMaker createCoffeeMaker(String[] args) {
+        String journal = argumentValue(args, "--journal");
+        if (journal != null) {
+            try {
+                return new CoffeeMaker(RecipeBook.MAX_RECIPES, new Journal(Paths.get(journal)));
+            } catch (IOException e) {
+                System.out.println(ConsoleUtils.warningMessage("It was not possible to open the journal: " + e.getMessage()));
+                System.exit(1);
+            }
+        }
+        return new CoffeeMaker();
     }
 
     /**
@@ -48,6 +191,60 @@ public class Main {
         this.coffeeMaker = coffeeMaker;
     }
 
+    /**
+     * Where the menus and messages are shown
+     */
+    private final Screen screen = ConsoleUtils.screen();
+
+    /**
+     * The main menu, already rendered, for each combination of enabled options
+     */
+    private final Map<Integer, String> mainMenus = new ConcurrentHashMap<>();
+
+    /**
+     * Renders the menus for the current state of the machine, so they are ready when needed
+     */
+    public void prerenderMenus() {
+        renderMainMenu();
+    }
+
+    /**
+     * Renders the main menu. Only the enabled options change, so each combination is rendered once.
+     * @return the main menu
+     */
+    private String renderMainMenu() {
+        boolean[] enabled = new boolean[] {
+                canMakeCoffee(),
+                true,
+                true,
+                canAddRecipes(),
+                canEditRecipes(),
+                canDeleteRecipes(),
+                true
+        };
+        int key = 0;
+        for (boolean option : enabled) {
+            key = (key << 1) | (option ? 1 : 0);
+        }
+        return mainMenus.computeIfAbsent(key, k -> ConsoleUtils.menuFormatter(
+                "MAIN MENU",
+                new String[] {
+                        "Make Coffee",
+                        "Show Inventory",
+                        "Refill Ingredients",
+                        "Add a Recipe",
+                        "Edit a Recipe",
+                        "Delete a Recipe",
+                        "Exit"
+                },
+                new int[]{ 1, 2, 3, 4, 5, 6, 0},
+                enabled,
+                ColorType.BRIGHT_PURPLE,
+                ColorType.BLUE,
+                ColorType.PURPLE
+        ));
+    }
+
     /**
      * This method is the starting point of the application.
      * It shows the main menu, reads the input from the user,
@@ -61,35 +258,11 @@ public class Main {
 
             // print menu
 
-            System.out.println();
-
-            System.out.println(ConsoleUtils.menuFormatter(
-                    "MAIN MENU",
-                    new String[] {
-                            "Make Coffee",
-                            "Show Inventory",
-                            "Refill Ingredients",
-                            "Add a Recipe",
-                            "Edit a Recipe",
-                            "Delete a Recipe",
-                            "Exit"
-                    },
-                    new int[]{ 1, 2, 3, 4, 5, 6, 0},
-                    new boolean[] {
-                            canMakeCoffee(),
-                            true,
-                            true,
-                            canAddRecipes(),
-                            canEditRecipes(),
-                            canDeleteRecipes(),
-                            true
-                    },
-                    ColorType.BRIGHT_PURPLE,
-                    ColorType.BLUE,
-                    ColorType.PURPLE
-            ));
-
-            System.out.println();
+            screen.println();
+
+            screen.println(renderMainMenu());
+
+            screen.println();
 
             // get user command
 
@@ -105,12 +278,14 @@ public class Main {
                     if (userInput == 6) deleteRecipe();
                     if (userInput == 0) break;
                 } else {
-                    System.out.println(ConsoleUtils.warningMessage("Please enter a number from 0 - 6"));
+                    screen.println(ConsoleUtils.warningMessage("Please enter a number from 0 - 6"));
                 }
             } catch (NumberFormatException e) {
-                System.out.println(ConsoleUtils.warningMessage("Please enter a number from 0 - 6"));
+                screen.println(ConsoleUtils.warningMessage("Please enter a number from 0 - 6"));
             }
         }
+
+        screen.flush();
     }
 
     /**
@@ -134,7 +309,7 @@ public class Main {
      * @return if the menu should be enabled or not
      */
     private boolean canAddRecipes() {
-        return coffeeMaker.getAllRecipes().size() < RecipeBook.MAX_RECIPES;
+        return coffeeMaker.getAllRecipes().size() < coffeeMaker.getRecipeCapacity();
     }
 
     /**
@@ -142,11 +317,7 @@ public class Main {
      * @return if the menu should be enabled or not
      */
     private boolean canMakeCoffee() {
-        List<Recipe> recipes = coffeeMaker.getAllRecipes();
-        for (Recipe recipe : recipes) {
-            if (coffeeMaker.hasEnoughIngredientsToMakeRecipe(recipe.getName())) return true;
-        }
-        return false;
+        return coffeeMaker.canMakeAnyRecipe();
     }
 
     /**
@@ -157,20 +328,21 @@ public class Main {
     private void makeCoffee() {
 
         List<Recipe> recipes = coffeeMaker.getAllRecipes();
+        Map<String, Integer> servings = coffeeMaker.getServingsTable();
         String[] names = new String[recipes.size()+1];
         int[] numbers = new int[recipes.size()+1];
         boolean[] enabled = new boolean[recipes.size()+1];
         for(int i = 0; i < recipes.size(); i++) {
-            names[i] = recipes.get(i).getName() + " (" + ConsoleUtils.formatCurrency(recipes.get(i).getPrice()) + ")";
+            names[i] = recipes.get(i).getName() + " (" + ConsoleUtils.formatCurrency(recipes.get(i).getPriceInCents()) + ")";
             numbers[i] = i+1;
-            enabled[i] = coffeeMaker.hasEnoughIngredientsToMakeRecipe(recipes.get(i).getName());
+            enabled[i] = servings.getOrDefault(recipes.get(i).getName(), 0) > 0;
         }
         names[recipes.size()] = "Back";
         numbers[recipes.size()] = 0;
         enabled[recipes.size()] = true;
 
-        System.out.println();
-        System.out.println(ConsoleUtils.menuFormatter(
+        screen.println();
+        screen.menu(
                 "COFFEE",
                 names,
                 numbers,
@@ -178,22 +350,22 @@ public class Main {
                 ColorType.BRIGHT_GREEN,
                 ColorType.BLUE,
                 ColorType.GREEN
-        ));
+        );
 
-        System.out.println();
+        screen.println();
 
         int recipeToPurchase;
         while(true) {
             try {
                 recipeToPurchase = Integer.parseInt(ConsoleUtils.readInput("Please select the number of the recipe to purchase: "));
                 if (recipeToPurchase < 0 || recipeToPurchase >= numbers.length) {
-                    System.out.println(ConsoleUtils.warningMessage("Please enter a valid option\n"));
+                    screen.println(ConsoleUtils.warningMessage("Please enter a valid option\n"));
                 }
                 else {
                     break;
                 }
             } catch (NumberFormatException e) {
-                System.out.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
+                screen.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
             }
         }
 
@@ -202,30 +374,30 @@ public class Main {
         }
 
         Recipe coffee = recipes.get(recipeToPurchase-1);
-        System.out.print("Selected product: ");
-        System.out.println(ConsoleUtils.colorOutput(coffee.getName(), ColorType.BRIGHT_GREEN));
+        screen.print("Selected product: ");
+        screen.println(ConsoleUtils.colorOutput(coffee.getName(), ColorType.BRIGHT_GREEN));
 
-        BigDecimal amountPaid;
+        long paidInCents;
         while (true) {
             try {
-                amountPaid = new BigDecimal(ConsoleUtils.readInput("Please enter the amount of money you will use to pay: $"));
-                if (amountPaid.subtract(coffee.getPrice()).doubleValue() < 0) {
-                    System.out.println(ConsoleUtils.warningMessage("Sorry, this is not enough money to purchase a " + coffee.getName()));
+                paidInCents = ConsoleUtils.parseCents(ConsoleUtils.readInput("Please enter the amount of money you will use to pay: $"));
+                if (paidInCents < coffee.getPriceInCents()) {
+                    screen.println(ConsoleUtils.warningMessage("Sorry, this is not enough money to purchase a " + coffee.getName()));
                     ConsoleUtils.readInput("Press ENTER to continue");
                     return;
                 }
                 else break;
             } catch (Exception e) {
-                System.out.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
+                screen.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
             }
         }
 
         boolean prepareCoffee = coffeeMaker.makeCoffee(coffee.getName());
         if (prepareCoffee) {
-            System.out.println("Thank you! Here's your "+coffee.getName()+" and your change (" + ConsoleUtils.formatCurrency(amountPaid.subtract(coffee.getPrice())) + ")");
+            screen.println("Thank you! Here's your "+coffee.getName()+" and your change (" + ConsoleUtils.formatCurrency(paidInCents - coffee.getPriceInCents()) + ")");
         }
         else {
-            System.out.println("Sorry, it was not possible to make your "+coffee.getName()+", here's your money back (" + ConsoleUtils.formatCurrency(amountPaid) + ")");
+            screen.println("Sorry, it was not possible to make your "+coffee.getName()+", here's your money back (" + ConsoleUtils.formatCurrency(paidInCents) + ")");
         }
 
         ConsoleUtils.readInput("Press ENTER to continue");
@@ -238,24 +410,33 @@ public class Main {
     private void showInventory() {
 
         Inventory inventory = coffeeMaker.getInventory();
+        int[] stock = inventory.snapshot();
+
+        // the basic ingredients are always shown, the registered ones only when there is some left
+        List<String> lines = new ArrayList<>(List.of(
+                "Coffee: " + stock[0],
+                "Milk: " + stock[1],
+                "Chocolate: " + stock[2],
+                "Sugar: " + stock[3]
+        ));
+        for (int id = lines.size(); id < stock.length; id++) {
+            if (stock[id] > 0) lines.add(IngredientRegistry.getName(id) + ": " + stock[id]);
+        }
+        int[] numbers = new int[lines.size()];
+        Arrays.setAll(numbers, i -> i + 1);
 
-        System.out.println();
+        screen.println();
 
-        System.out.println(ConsoleUtils.menuFormatter(
+        screen.menu(
                 "INVENTORY",
-                new String[] {
-                        "Coffee: " + inventory.getCoffee(),
-                        "Milk: " + inventory.getMilk(),
-                        "Chocolate: " + inventory.getChocolate(),
-                        "Sugar: " + inventory.getSugar()
-                },
-                new int[]{1, 2, 3, 4},
+                lines.toArray(new String[0]),
+                numbers,
                 ColorType.CYAN,
                 ColorType.BLUE,
                 ColorType.BLUE
-        ));
+        );
 
-        System.out.println();
+        screen.println();
 
         ConsoleUtils.readInput("Press ENTER to continue");
     }
@@ -270,25 +451,25 @@ public class Main {
         try {
             amountCoffee = Integer.parseInt(ConsoleUtils.readInput("Please enter how many new Coffee units: "));
         } catch (Exception e) {
-            System.out.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
+            screen.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
         }
 
         try {
             amountMilk = Integer.parseInt(ConsoleUtils.readInput("Please enter how many new Milk units: "));
         } catch (Exception e) {
-            System.out.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
+            screen.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
         }
 
         try {
             amountChocolate = Integer.parseInt(ConsoleUtils.readInput("Please enter how many new Chocolate units: "));
         } catch (Exception e) {
-            System.out.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
+            screen.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
         }
 
         try {
             amountSugar = Integer.parseInt(ConsoleUtils.readInput("Please enter how many new Sugar units: "));
         } catch (Exception e) {
-            System.out.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
+            screen.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
         }
 
         coffeeMaker.addIngredients(amountCoffee, amountMilk, amountChocolate, amountSugar);
@@ -308,31 +489,31 @@ public class Main {
         try {
             price = new BigDecimal(ConsoleUtils.readInput("Please enter the price: $"));
         } catch (Exception e) {
-            System.out.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
+            screen.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
         }
 
         try {
             amountCoffee = Integer.parseInt(ConsoleUtils.readInput("Please enter how many new Coffee units: "));
         } catch (Exception e) {
-            System.out.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
+            screen.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
         }
 
         try {
             amountMilk = Integer.parseInt(ConsoleUtils.readInput("Please enter how many new Milk units: "));
         } catch (Exception e) {
-            System.out.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
+            screen.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
         }
 
         try {
             amountChocolate = Integer.parseInt(ConsoleUtils.readInput("Please enter how many new Chocolate units: "));
         } catch (Exception e) {
-            System.out.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
+            screen.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
         }
 
         try {
             amountSugar = Integer.parseInt(ConsoleUtils.readInput("Please enter how many new Sugar units: "));
         } catch (Exception e) {
-            System.out.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
+            screen.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
         }
 
         try {
@@ -340,13 +521,13 @@ public class Main {
                     new Recipe(name, price, amountCoffee, amountMilk, amountChocolate, amountSugar)
             );
             if (result) {
-                System.out.println("Recipe '"+name+"' added to the Menu");
+                screen.println("Recipe '"+name+"' added to the Menu");
             }
             else {
-                System.out.println(ConsoleUtils.warningMessage("It was not possible to create the Recipe"));
+                screen.println(ConsoleUtils.warningMessage("It was not possible to create the Recipe"));
             }
         } catch (InvalidRecipeIngredientAmountException | InvalidRecipePriceException e) {
-            System.out.println(ConsoleUtils.warningMessage("It was not possible to create the Recipe: "+e.getMessage()));
+            screen.println(ConsoleUtils.warningMessage("It was not possible to create the Recipe: "+e.getMessage()));
         }
 
         ConsoleUtils.readInput("Press ENTER to continue");
@@ -360,36 +541,36 @@ public class Main {
         String[] names = new String[recipes.size()+1];
         int[] numbers = new int[recipes.size()+1];
         for(int i = 0; i < recipes.size(); i++) {
-            names[i] = recipes.get(i).getName() + " (" + ConsoleUtils.formatCurrency(recipes.get(i).getPrice()) + ")";
+            names[i] = recipes.get(i).getName() + " (" + ConsoleUtils.formatCurrency(recipes.get(i).getPriceInCents()) + ")";
             numbers[i] = i+1;
         }
         names[recipes.size()] = "Back";
         numbers[recipes.size()] = 0;
 
-        System.out.println();
-        System.out.println(ConsoleUtils.menuFormatter(
+        screen.println();
+        screen.menu(
                 "RECIPES",
                 names,
                 numbers,
                 ColorType.BRIGHT_GREEN,
                 ColorType.BLUE,
                 ColorType.GREEN
-        ));
+        );
 
-        System.out.println();
+        screen.println();
 
         int recipeToEdit;
         while(true) {
             try {
                 recipeToEdit = Integer.parseInt(ConsoleUtils.readInput("Please select the number of the recipe to edit: "));
                 if (recipeToEdit < 0 || recipeToEdit >= numbers.length) {
-                    System.out.println(ConsoleUtils.warningMessage("Please enter a valid option\n"));
+                    screen.println(ConsoleUtils.warningMessage("Please enter a valid option\n"));
                 }
                 else {
                     break;
                 }
             } catch (NumberFormatException e) {
-                System.out.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
+                screen.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
             }
         }
 
@@ -398,45 +579,45 @@ public class Main {
         }
 
         Recipe recipe = recipes.get(recipeToEdit-1);
-        System.out.print("Selected recipe: ");
-        System.out.println(ConsoleUtils.colorOutput(recipe.getName(), ColorType.BRIGHT_GREEN));
+        screen.print("Selected recipe: ");
+        screen.println(ConsoleUtils.colorOutput(recipe.getName(), ColorType.BRIGHT_GREEN));
 
         BigDecimal price = null;
         int amountCoffee = 0, amountMilk = 0, amountChocolate = 0, amountSugar = 0;
 
         try {
-            String strPrice = ConsoleUtils.readInput("Please enter the new price ("+ConsoleUtils.formatCurrency(recipe.getPrice())+"): $");
+            String strPrice = ConsoleUtils.readInput("Please enter the new price ("+ConsoleUtils.formatCurrency(recipe.getPriceInCents())+"): $");
             price = (!strPrice.equals(""))? new BigDecimal(strPrice) : recipe.getPrice();
         } catch (Exception e) {
-            System.out.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
+            screen.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
         }
 
         try {
             String strCoffee = ConsoleUtils.readInput("Please enter the new Coffee units ("+recipe.getAmountCoffee()+"): ");
             amountCoffee = (!strCoffee.equals(""))? Integer.parseInt(strCoffee) : recipe.getAmountCoffee();
         } catch (Exception e) {
-            System.out.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
+            screen.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
         }
 
         try {
             String strMilk = ConsoleUtils.readInput("Please enter the new Milk units ("+recipe.getAmountMilk()+"): ");
             amountMilk = (!strMilk.equals(""))? Integer.parseInt(strMilk) : recipe.getAmountMilk();
         } catch (Exception e) {
-            System.out.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
+            screen.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
         }
 
         try {
             String strChocolate = ConsoleUtils.readInput("Please enter the new Chocolate units ("+recipe.getAmountChocolate()+"): ");
             amountChocolate = (!strChocolate.equals(""))? Integer.parseInt(strChocolate) : recipe.getAmountChocolate();
         } catch (Exception e) {
-            System.out.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
+            screen.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
         }
 
         try {
             String strSugar = ConsoleUtils.readInput("Please enter the new Sugar units ("+recipe.getAmountSugar()+"): ");
             amountSugar = (!strSugar.equals(""))? Integer.parseInt(strSugar) : recipe.getAmountSugar();
         } catch (Exception e) {
-            System.out.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
+            screen.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
         }
 
         try {
@@ -444,13 +625,13 @@ public class Main {
                     new Recipe(recipe.getName(), price, amountCoffee, amountMilk, amountChocolate, amountSugar)
             );
             if (result) {
-                System.out.println("Recipe '"+recipe.getName()+"' was updated");
+                screen.println("Recipe '"+recipe.getName()+"' was updated");
             }
             else {
-                System.out.println(ConsoleUtils.warningMessage("It was not possible to update the Recipe"));
+                screen.println(ConsoleUtils.warningMessage("It was not possible to update the Recipe"));
             }
         } catch (InvalidRecipeIngredientAmountException | InvalidRecipePriceException e) {
-            System.out.println(ConsoleUtils.warningMessage("It was not possible to update the Recipe: "+e.getMessage()));
+            screen.println(ConsoleUtils.warningMessage("It was not possible to update the Recipe: "+e.getMessage()));
         }
 
         ConsoleUtils.readInput("Press ENTER to continue");
@@ -464,36 +645,36 @@ public class Main {
         String[] names = new String[recipes.size()+1];
         int[] numbers = new int[recipes.size()+1];
         for(int i = 0; i < recipes.size(); i++) {
-            names[i] = recipes.get(i).getName() + " (" + ConsoleUtils.formatCurrency(recipes.get(i).getPrice()) + ")";
+            names[i] = recipes.get(i).getName() + " (" + ConsoleUtils.formatCurrency(recipes.get(i).getPriceInCents()) + ")";
             numbers[i] = i+1;
         }
         names[recipes.size()] = "Back";
         numbers[recipes.size()] = 0;
 
-        System.out.println();
-        System.out.println(ConsoleUtils.menuFormatter(
+        screen.println();
+        screen.menu(
                 "RECIPES",
                 names,
                 numbers,
                 ColorType.BRIGHT_GREEN,
                 ColorType.BLUE,
                 ColorType.GREEN
-        ));
+        );
 
-        System.out.println();
+        screen.println();
 
         int recipeToEdit;
         while(true) {
             try {
                 recipeToEdit = Integer.parseInt(ConsoleUtils.readInput("Please select the number of the recipe to remove: "));
                 if (recipeToEdit < 0 || recipeToEdit >= numbers.length) {
-                    System.out.println(ConsoleUtils.warningMessage("Please enter a valid option\n"));
+                    screen.println(ConsoleUtils.warningMessage("Please enter a valid option\n"));
                 }
                 else {
                     break;
                 }
             } catch (NumberFormatException e) {
-                System.out.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
+                screen.println(ConsoleUtils.warningMessage("Please enter a valid number\n"));
             }
         }
 
@@ -502,21 +683,21 @@ public class Main {
         }
 
         Recipe recipe = recipes.get(recipeToEdit-1);
-        System.out.print("Selected recipe: ");
-        System.out.println(ConsoleUtils.colorOutput(recipe.getName(), ColorType.BRIGHT_RED));
+        screen.print("Selected recipe: ");
+        screen.println(ConsoleUtils.colorOutput(recipe.getName(), ColorType.BRIGHT_RED));
         String confirmation = ConsoleUtils.readInput(ConsoleUtils.colorOutput("Are you really sure about that? (type YES): ", ColorType.YELLOW));
 
         if (confirmation.equalsIgnoreCase("YES")) {
             boolean result = coffeeMaker.removeRecipe(recipe.getName());
             if (result) {
-                System.out.println("Recipe '"+recipe.getName()+"' was removed");
+                screen.println("Recipe '"+recipe.getName()+"' was removed");
             }
             else {
-                System.out.println(ConsoleUtils.warningMessage("It was not possible to remove the Recipe"));
+                screen.println(ConsoleUtils.warningMessage("It was not possible to remove the Recipe"));
             }
         }
         else {
-            System.out.println("Operation cancelled");
+            screen.println("Operation cancelled");
         }
 
         ConsoleUtils.readInput("Press ENTER to continue");
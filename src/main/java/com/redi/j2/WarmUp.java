@@ -0,0 +1,135 @@
+package com.redi.j2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs the work needed before the application starts, in parallel, and knows how much of it is done.
+ * <p>
+ * Each task has an amount of work units. A task can report its progress while it runs,
+ * and whatever it did not report is counted when it finishes.
+ */
+public class WarmUp {
+
+    /**
+     * Used by a task to report its progress
+     */
+    public static final class Progress {
+
+        private final int units;
+
+        private final AtomicInteger done = new AtomicInteger();
+
+        private final AtomicInteger total;
+
+        private Progress(int units, AtomicInteger total) {
+            this.units = units;
+            this.total = total;
+        }
+
+        /**
+         * Reports that one more unit of work is done
+         */
+        public void advance() {
+            if (done.getAndUpdate(d -> Math.min(d + 1, units)) < units) total.incrementAndGet();
+        }
+
+        /**
+         * Reports that all the units of work are done
+         */
+        private void finish() {
+            int before = done.getAndSet(units);
+            total.addAndGet(units - before);
+        }
+    }
+
+    private final ExecutorService executor;
+
+    private final List<CompletableFuture<?>> tasks = new ArrayList<>();
+
+    private final AtomicInteger unitsDone = new AtomicInteger();
+
+    private int units;
+
+    private volatile String lastMessage = "Initializing ...";
+
+    /**
+     * Default constructor
+     */
+    public WarmUp() {
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "warm-up");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts a task right away, in its own thread
+     * @param message what to show when the task is done
+     * @param units how many units of work the task has
+     * @param task the task, which receives the object to report its progress
+     * @param <T> the type of the result of the task
+     * @return the result of the task, when it finishes
+     */
+    public synchronized <T> CompletableFuture<T> submit(String message, int units, Function<Progress, T> task) {
+        Progress progress = new Progress(units, unitsDone);
+        this.units += units;
+        CompletableFuture<T> future = CompletableFuture.supplyAsync(() -> task.apply(progress), executor)
+                .whenComplete((result, error) -> {
+                    progress.finish();
+                    lastMessage = message;
+                });
+        tasks.add(future);
+        return future;
+    }
+
+    /**
+     * Getter for the progress of all the tasks
+     * @return a number from 0 to 100
+     */
+    public synchronized int getPercentage() {
+        return (units == 0) ? 100 : (int) (100L * unitsDone.get() / units);
+    }
+
+    /**
+     * Getter for the message of the last task that finished
+     * @return the message
+     */
+    public String getLastMessage() {
+        return lastMessage;
+    }
+
+    /**
+     * Waits for all the tasks, calling a function every now and then to show the progress
+     * @param display receives this object while the tasks run, and once more when they are done.
+     *                Can be null, to wait without showing anything.
+     */
+    public void await(Consumer<WarmUp> display) {
+        CompletableFuture<Void> all;
+        synchronized (this) {
+            all = CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0]));
+        }
+        while (true) {
+            try {
+                all.get(40, TimeUnit.MILLISECONDS);
+                break;
+            } catch (TimeoutException e) {
+                if (display != null) display.accept(this);
+            } catch (Exception e) {
+                // a failed task is reported by its own future
+                break;
+            }
+        }
+        if (display != null) display.accept(this);
+        executor.shutdown();
+    }
+}
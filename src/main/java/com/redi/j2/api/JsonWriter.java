@@ -0,0 +1,188 @@
+package com.redi.j2.api;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes JSON by hand into a reused buffer, without reflection.
+ * <p>
+ * Commas between values are added automatically, so objects are written as
+ * {@code beginObject().name("a").value(1).name("b").value("x").endObject()}.
+ * A writer is not thread safe: each thread should use its own.
+ */
+final class JsonWriter {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final StringBuilder builder = new StringBuilder(1024);
+
+    /**
+     * If the next value in the current object or array needs a comma before it
+     */
+    private boolean comma;
+
+    /**
+     * Empties the writer, so it can write a new document
+     * @return this writer
+     */
+    JsonWriter reset() {
+        builder.setLength(0);
+        comma = false;
+        return this;
+    }
+
+    /**
+     * Starts an object
+     * @return this writer
+     */
+    JsonWriter beginObject() {
+        separate();
+        builder.append('{');
+        comma = false;
+        return this;
+    }
+
+    /**
+     * Ends the current object
+     * @return this writer
+     */
+    JsonWriter endObject() {
+        builder.append('}');
+        comma = true;
+        return this;
+    }
+
+    /**
+     * Starts an array
+     * @return this writer
+     */
+    JsonWriter beginArray() {
+        separate();
+        builder.append('[');
+        comma = false;
+        return this;
+    }
+
+    /**
+     * Ends the current array
+     * @return this writer
+     */
+    JsonWriter endArray() {
+        builder.append(']');
+        comma = true;
+        return this;
+    }
+
+    /**
+     * Writes the name of the next member of an object
+     * @param name the name
+     * @return this writer
+     */
+    JsonWriter name(String name) {
+        separate();
+        quote(name);
+        builder.append(':');
+        comma = false;
+        return this;
+    }
+
+    /**
+     * Writes a string
+     * @param value the string, or null
+     * @return this writer
+     */
+    JsonWriter value(String value) {
+        separate();
+        if (value == null) builder.append("null");
+        else quote(value);
+        comma = true;
+        return this;
+    }
+
+    /**
+     * Writes an integer number
+     * @param value the number
+     * @return this writer
+     */
+    JsonWriter value(long value) {
+        separate();
+        builder.append(value);
+        comma = true;
+        return this;
+    }
+
+    /**
+     * Writes true or false
+     * @param value the value
+     * @return this writer
+     */
+    JsonWriter value(boolean value) {
+        separate();
+        builder.append(value);
+        comma = true;
+        return this;
+    }
+
+    /**
+     * Writes a decimal number exactly, without an exponent
+     * @param value the number
+     * @return this writer
+     */
+    JsonWriter value(BigDecimal value) {
+        separate();
+        builder.append(value.toPlainString());
+        comma = true;
+        return this;
+    }
+
+    /**
+     * Encodes the document written so far
+     * @return the document in UTF-8
+     */
+    byte[] toBytes() {
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return builder.toString();
+    }
+
+    private void separate() {
+        if (comma) builder.append(',');
+    }
+
+    /**
+     * Writes a string in quotes, escaping the characters JSON does not allow
+     */
+    private void quote(String text) {
+        builder.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        builder.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    } else {
+                        builder.append(c);
+                    }
+            }
+        }
+        builder.append('"');
+    }
+}
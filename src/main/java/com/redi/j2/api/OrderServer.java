@@ -0,0 +1,484 @@
+package com.redi.j2.api;
+
+import com.redi.j2.coffeemaker.BrewResult;
+import com.redi.j2.coffeemaker.CoffeeMaker;
+import com.redi.j2.coffeemaker.IngredientAmounts;
+import com.redi.j2.coffeemaker.IngredientRegistry;
+import com.redi.j2.coffeemaker.Recipe;
+import com.redi.j2.exceptions.InvalidRecipeIngredientAmountException;
+import com.redi.j2.exceptions.InvalidRecipePriceException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A small HTTP API for a coffee maker, so orders can come from other applications instead of the menus.
+ * <p>
+ * Parameters are sent in the query string or as a form ({@code application/x-www-form-urlencoded}),
+ * and every response is a JSON object. The endpoints are:
+ * <pre>
+ * POST   /brew?recipe=Mocha                        makes one Recipe
+ * POST   /batch?recipe=Mocha&amp;recipe=Latte          makes many Recipes at once
+ * GET    /inventory                                the amount of each ingredient
+ * POST   /inventory?coffee=5&amp;caramel=2             adds ingredients
+ * GET    /ingredients                              the names of the known ingredients
+ * POST   /ingredients?name=caramel                 registers a new ingredient
+ * GET    /recipes                                  all the Recipes
+ * GET    /recipes/Mocha                            one Recipe
+ * POST   /recipes?name=Mocha&amp;price=2.5&amp;coffee=1    adds a Recipe
+ * PUT    /recipes/Mocha?price=3&amp;coffee=1&amp;milk=1     replaces a Recipe
+ * DELETE /recipes/Mocha                            removes a Recipe
+ * </pre>
+ * In a Recipe, every parameter except the name and the price is the amount of an ingredient.
+ * Ingredients must be registered before they are used: an unknown ingredient is answered with 400,
+ * so stray parameters never add ingredients to the {@link IngredientRegistry}, which never shrinks.
+ * Orders are answered with 200 when they are made, 404 when the Recipe does not exist
+ * and 409 when there are not enough ingredients.
+ * <p>
+ * Requests are served by a fixed pool of worker threads. Responses are written by a {@link JsonWriter}
+ * reused by each worker, so serving a request creates little garbage.
+ */
+public class OrderServer {
+
+    /**
+     * How many connections can wait to be accepted
+     */
+    private static final int BACKLOG = 1024;
+
+    /**
+     * How many requests can wait for a free worker. When the queue is full, the thread that accepts
+     * connections serves the request itself, so new connections wait in the backlog instead of in memory.
+     */
+    private static final int QUEUE_CAPACITY = 4096;
+
+    /**
+     * Used to give each worker thread a unique name
+     */
+    private static final AtomicInteger SERVER_COUNT = new AtomicInteger();
+
+    /**
+     * The JDK server writes the headers and the body of a response separately. Without this option set to "true",
+     * the body waits for the client to acknowledge the headers, which adds about 40 ms to every request on a
+     * kept-alive connection. It applies to every JDK HTTP server in the process, and is read when the first one
+     * is created, so the application must set it before that. The server does not set it by itself.
+     */
+    public static final String NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private static final Logger LOGGER = Logger.getLogger(OrderServer.class.getName());
+
+    /**
+     * The writer of each worker thread
+     */
+    private static final ThreadLocal<JsonWriter> WRITERS = ThreadLocal.withInitial(JsonWriter::new);
+
+    private final CoffeeMaker coffeeMaker;
+
+    private final HttpServer server;
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Parameterized constructor. The server does not accept requests until it is started.
+     * @param coffeeMaker the machine that serves the orders
+     * @param address where to listen, with port 0 to choose any free port
+     * @param workers how many requests can be served at the same time
+     * @throws IOException if the address cannot be used
+     */
+    public OrderServer(CoffeeMaker coffeeMaker, InetSocketAddress address, int workers) throws IOException {
+        this.coffeeMaker = coffeeMaker;
+        int serverNumber = SERVER_COUNT.incrementAndGet();
+        AtomicInteger workerCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "order-server-" + serverNumber + "-worker-" + workerCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        server = HttpServer.create(address, BACKLOG);
+        server.setExecutor(executor);
+        server.createContext("/brew", exchange -> handle(exchange, this::brew));
+        server.createContext("/batch", exchange -> handle(exchange, this::batch));
+        server.createContext("/inventory", exchange -> handle(exchange, this::inventory));
+        server.createContext("/recipes", exchange -> handle(exchange, this::recipes));
+        server.createContext("/ingredients", exchange -> handle(exchange, this::ingredients));
+    }
+
+    /**
+     * Starts accepting requests
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, and waits for the ones being served
+     * @param delaySeconds the most seconds to wait for the requests being served
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    /**
+     * Getter for the port where the server listens
+     * @return the port, useful when the server was created with port 0
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * A request that can be answered
+     */
+    private interface Endpoint {
+
+        /**
+         * Serves a request, writing the response body into the writer
+         * @return the status code of the response
+         */
+        int serve(Request request, JsonWriter json) throws IOException;
+    }
+
+    /**
+     * Serves a request with an endpoint and sends its response. Errors are answered with a JSON message.
+     */
+    private void handle(HttpExchange exchange, Endpoint endpoint) {
+        JsonWriter json = WRITERS.get().reset();
+        int status;
+        try {
+            status = endpoint.serve(new Request(exchange), json);
+        } catch (BadRequestException e) {
+            status = e.status;
+            error(json.reset(), e.getMessage());
+        } catch (RuntimeException | IOException e) {
+            // the details stay in the log of the server, they mean nothing to the client
+            LOGGER.log(Level.SEVERE, "Failed to serve " + exchange.getRequestMethod() + " " + exchange.getRequestURI(), e);
+            status = 500;
+            error(json.reset(), "Internal error");
+        }
+        try {
+            byte[] body = json.toBytes();
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (IOException e) {
+            // the client is gone, there is nobody to tell
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * POST /brew: makes one Recipe
+     */
+    private int brew(Request request, JsonWriter json) throws IOException {
+        request.requireMethod("POST");
+        String recipe = request.required("recipe");
+        BrewResult result = coffeeMaker.brew(recipe);
+        json.beginObject().name("recipe").value(recipe).name("result").value(result.name()).endObject();
+        return status(result);
+    }
+
+    /**
+     * POST /batch: makes many Recipes, in the order they are given
+     */
+    private int batch(Request request, JsonWriter json) throws IOException {
+        request.requireMethod("POST");
+        List<String> recipes = request.all("recipe");
+        if (recipes.isEmpty()) throw new BadRequestException(400, "Missing parameter: recipe");
+        List<BrewResult> results = coffeeMaker.makeCoffeeBatch(recipes);
+        int brewed = 0;
+        json.beginObject().name("results").beginArray();
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).isBrewed()) brewed++;
+            json.beginObject().name("recipe").value(recipes.get(i)).name("result").value(results.get(i).name()).endObject();
+        }
+        json.endArray().name("brewed").value(brewed).endObject();
+        return 200;
+    }
+
+    /**
+     * GET /inventory shows the stock, POST /inventory adds ingredients and then shows the stock
+     */
+    private int inventory(Request request, JsonWriter json) throws IOException {
+        if (request.method.equals("POST")) {
+            IngredientAmounts.Builder amounts = IngredientAmounts.builder();
+            for (int i = 0; i < request.names.size(); i++) {
+                int amount = request.amount(i);
+                if (amount < 0) throw new BadRequestException(400, "The amount of " + request.names.get(i) + " is negative");
+                amounts.add(request.ingredientId(i), amount);
+            }
+            try {
+                coffeeMaker.addIngredients(amounts.build());
+            } catch (IllegalArgumentException e) {
+                // the amounts, or the stock after adding them, do not fit in an int
+                throw new BadRequestException(400, e.getMessage());
+            }
+        } else {
+            request.requireMethod("GET");
+        }
+        int[] stock = coffeeMaker.getInventory().snapshot();
+        json.beginObject().name("ingredients").beginObject();
+        for (int id = 0; id < stock.length; id++) {
+            json.name(IngredientRegistry.getName(id)).value(stock[id]);
+        }
+        json.endObject().endObject();
+        return 200;
+    }
+
+    /**
+     * GET /ingredients lists the known ingredients, POST /ingredients registers one
+     */
+    private int ingredients(Request request, JsonWriter json) throws IOException {
+        int status = 200;
+        if (request.method.equals("POST")) {
+            String name = request.required("name");
+            if (name.isBlank()) throw new BadRequestException(400, "The name of an ingredient must not be empty");
+            if (IngredientRegistry.getId(name) < 0) status = 201;
+            IngredientRegistry.register(name);
+        } else {
+            request.requireMethod("GET");
+        }
+        json.beginObject().name("ingredients").beginArray();
+        for (int id = 0; id < IngredientRegistry.size(); id++) {
+            json.value(IngredientRegistry.getName(id));
+        }
+        json.endArray().endObject();
+        return status;
+    }
+
+    /**
+     * Lists, shows, adds, replaces and removes Recipes
+     */
+    private int recipes(Request request, JsonWriter json) throws IOException {
+        String name = request.pathAfter("/recipes");
+        if (name.isEmpty()) {
+            if (request.method.equals("POST")) {
+                Recipe recipe = request.recipe(request.required("name"));
+                if (!coffeeMaker.addRecipe(recipe)) {
+                    throw new BadRequestException(409, "The Recipe exists, or there is no room for more Recipes");
+                }
+                writeRecipe(json, recipe);
+                return 201;
+            }
+            request.requireMethod("GET");
+            json.beginObject().name("recipes").beginArray();
+            for (Recipe recipe : coffeeMaker.getAllRecipes()) {
+                writeRecipe(json, recipe);
+            }
+            json.endArray().endObject();
+            return 200;
+        }
+
+        switch (request.method) {
+            case "GET":
+                Recipe recipe = coffeeMaker.getRecipe(name);
+                if (recipe == null) throw new BadRequestException(404, "Unknown Recipe: " + name);
+                writeRecipe(json, recipe);
+                return 200;
+            case "PUT":
+                Recipe updated = request.recipe(name);
+                if (!coffeeMaker.updateRecipe(updated)) throw new BadRequestException(404, "Unknown Recipe: " + name);
+                writeRecipe(json, updated);
+                return 200;
+            case "DELETE":
+                if (!coffeeMaker.removeRecipe(name)) throw new BadRequestException(404, "Unknown Recipe: " + name);
+                json.beginObject().name("removed").value(name).endObject();
+                return 200;
+            default:
+                throw new BadRequestException(405, "Method not allowed: " + request.method);
+        }
+    }
+
+    /**
+     * Writes a Recipe, with only the ingredients it uses
+     */
+    private static void writeRecipe(JsonWriter json, Recipe recipe) {
+        json.beginObject().name("name").value(recipe.getName()).name("price").value(recipe.getPrice());
+        json.name("ingredients").beginObject();
+        IngredientAmounts requirements = recipe.getRequirements();
+        for (int i = 0; i < requirements.size(); i++) {
+            json.name(IngredientRegistry.getName(requirements.getId(i))).value(requirements.getAmount(i));
+        }
+        json.endObject().endObject();
+    }
+
+    /**
+     * Writes the body of an error response
+     */
+    private static void error(JsonWriter json, String message) {
+        json.beginObject().name("error").value(message).endObject();
+    }
+
+    /**
+     * The status code that answers an order
+     */
+    private static int status(BrewResult result) {
+        switch (result) {
+            case BREWED:
+                return 200;
+            case UNKNOWN_RECIPE:
+                return 404;
+            default:
+                return 409;
+        }
+    }
+
+    /**
+     * A request that cannot be served, with the status code that explains why
+     */
+    private static final class BadRequestException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        BadRequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * The method, path and parameters of a request
+     */
+    private static final class Request {
+
+        private final String method;
+
+        private final String path;
+
+        /**
+         * The names of the parameters, in order. A name can appear more than once.
+         */
+        private final List<String> names = new ArrayList<>();
+
+        private final List<String> values = new ArrayList<>();
+
+        Request(HttpExchange exchange) throws IOException {
+            method = exchange.getRequestMethod();
+            path = exchange.getRequestURI().getRawPath();
+            parse(exchange.getRequestURI().getRawQuery());
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            if (contentType != null && contentType.startsWith("application/x-www-form-urlencoded")) {
+                try (InputStream body = exchange.getRequestBody()) {
+                    parse(new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        private void parse(String form) throws BadRequestException {
+            if (form == null || form.isEmpty()) return;
+            int start = 0;
+            while (start <= form.length()) {
+                int end = form.indexOf('&', start);
+                if (end < 0) end = form.length();
+                if (end > start) {
+                    int equals = form.indexOf('=', start);
+                    if (equals < 0 || equals > end) equals = end;
+                    names.add(decode(form.substring(start, equals)));
+                    values.add(equals < end ? decode(form.substring(equals + 1, end)) : "");
+                }
+                start = end + 1;
+            }
+        }
+
+        private static String decode(String text) throws BadRequestException {
+            try {
+                return URLDecoder.decode(text, StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException(400, "Badly encoded parameter: " + text);
+            }
+        }
+
+        void requireMethod(String expected) throws BadRequestException {
+            if (!method.equals(expected)) throw new BadRequestException(405, "Method not allowed: " + method);
+        }
+
+        /**
+         * Finds the decoded part of the path after a prefix, without the slash
+         */
+        String pathAfter(String prefix) throws BadRequestException {
+            String rest = path.substring(Math.min(prefix.length(), path.length()));
+            if (rest.isEmpty() || rest.equals("/")) return "";
+            if (!rest.startsWith("/")) throw new BadRequestException(404, "Not found: " + path);
+            return decode(rest.substring(1));
+        }
+
+        String required(String name) throws BadRequestException {
+            int index = names.indexOf(name);
+            if (index < 0 || values.get(index).isEmpty()) throw new BadRequestException(400, "Missing parameter: " + name);
+            return values.get(index);
+        }
+
+        List<String> all(String name) {
+            List<String> all = new ArrayList<>();
+            for (int i = 0; i < names.size(); i++) {
+                if (names.get(i).equals(name)) all.add(values.get(i));
+            }
+            return all;
+        }
+
+        /**
+         * Parses the value of a parameter as an amount of an ingredient
+         */
+        int amount(int index) throws BadRequestException {
+            try {
+                return Integer.parseInt(values.get(index));
+            } catch (NumberFormatException e) {
+                throw new BadRequestException(400, "The amount of " + names.get(index) + " is not a number");
+            }
+        }
+
+        /**
+         * Finds the ingredient named by a parameter, without registering it
+         */
+        int ingredientId(int index) throws BadRequestException {
+            int id = IngredientRegistry.getId(names.get(index));
+            if (id < 0) throw new BadRequestException(400, "Unknown ingredient: " + names.get(index));
+            return id;
+        }
+
+        /**
+         * Creates a Recipe from the price and the ingredients in the parameters
+         */
+        Recipe recipe(String name) throws BadRequestException {
+            BigDecimal price;
+            try {
+                price = new BigDecimal(required("price"));
+            } catch (NumberFormatException e) {
+                throw new BadRequestException(400, "The price is not a number");
+            }
+            IngredientAmounts.Builder requirements = IngredientAmounts.builder();
+            for (int i = 0; i < names.size(); i++) {
+                if (names.get(i).equals("name") || names.get(i).equals("price")) continue;
+                requirements.add(ingredientId(i), amount(i));
+            }
+            IngredientAmounts amounts = requirements.build();
+            String problem = Recipe.validate(name, price, amounts);
+            if (problem != null) throw new BadRequestException(400, "Invalid Recipe: " + problem);
+            try {
+                return new Recipe(name, price, amounts);
+            } catch (InvalidRecipePriceException | InvalidRecipeIngredientAmountException e) {
+                throw new BadRequestException(400, "Invalid Recipe: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.redi.j2.coffeemaker;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Knows which Recipes can be made with the current inventory.
+ * <p>
+ * For each ingredient, the Recipes that use it are sorted by the amount they require.
+ * When the amount of an ingredient changes, only the Recipes whose required amount was crossed
+ * are updated, and each Recipe keeps how many of its ingredients are missing.
+ * Asking if a Recipe can be made, or if any Recipe can be made, is a constant time lookup.
+ */
+public class AvailabilityIndex implements InventoryListener {
+
+    private final RecipeBook catalog;
+
+    /**
+     * A copy of the amounts in the inventory, updated on every change
+     */
+    private int[] stock = new int[0];
+
+    /**
+     * The list of Recipes the index was built from
+     */
+    private volatile List<Recipe> indexedRecipes;
+
+    /**
+     * The Recipes using each ingredient, by required amount
+     */
+    private List<ThresholdIndex<Entry>> byIngredient = new ArrayList<>();
+
+    /**
+     * The names of the Recipes that can be made. Replaced when the index is rebuilt.
+     */
+    private volatile Set<String> makeable = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The names of the Recipes that can be made, as returned to readers. It always reads the current set,
+     * so it stays up to date when the index is rebuilt.
+     */
+    private final Set<String> makeableView = new AbstractSet<>() {
+        @Override
+        public boolean contains(Object name) {
+            return current().contains(name);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return current().isEmpty();
+        }
+
+        @Override
+        public int size() {
+            return current().size();
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return Collections.unmodifiableSet(current()).iterator();
+        }
+    };
+
+    /**
+     * Updates the amount of missing ingredients of a Recipe when one of its thresholds is crossed
+     */
+    private final ThresholdIndex.Crossing<Entry> update = (entry, reached) -> {
+        if (reached) {
+            if (--entry.missing == 0) makeable.add(entry.name);
+        } else {
+            if (entry.missing++ == 0) makeable.remove(entry.name);
+        }
+    };
+
+    /**
+     * Parameterized constructor. The index must also be added as a listener of the inventory.
+     * @param catalog the catalog of Recipes
+     */
+    public AvailabilityIndex(RecipeBook catalog) {
+        this.catalog = catalog;
+    }
+
+    @Override
+    public synchronized void attached(int[] amounts) {
+        stock = amounts.clone();
+        rebuild(catalog.getRecipes());
+    }
+
+    @Override
+    public synchronized void amountChanged(int ingredient, int oldAmount, int newAmount) {
+        if (ingredient >= stock.length) stock = Arrays.copyOf(stock, ingredient + 1);
+        stock[ingredient] = newAmount;
+        if (ingredient < byIngredient.size()) {
+            byIngredient.get(ingredient).crossed(oldAmount, newAmount, update);
+        }
+    }
+
+    /**
+     * Checks if a Recipe can be made with the current inventory
+     * @param recipeName the name of the Recipe
+     * @return true if there are enough ingredients, false otherwise or if the Recipe does not exist
+     */
+    public boolean isMakeable(String recipeName) {
+        return current().contains(recipeName);
+    }
+
+    /**
+     * Checks if any Recipe can be made with the current inventory
+     * @return true if at least one Recipe can be made
+     */
+    public boolean isAnyMakeable() {
+        return !current().isEmpty();
+    }
+
+    /**
+     * Getter for the Recipes that can be made
+     * @return an unmodifiable, live view of the names of the Recipes that can be made
+     */
+    public Set<String> getMakeableRecipes() {
+        return makeableView;
+    }
+
+    /**
+     * Rebuilds the index if the catalog changed since it was built
+     * @return the set of makeable Recipes
+     */
+    private Set<String> current() {
+        if (catalog.getRecipes() != indexedRecipes) {
+            synchronized (this) {
+                List<Recipe> recipes = catalog.getRecipes();
+                if (recipes != indexedRecipes) rebuild(recipes);
+            }
+        }
+        return makeable;
+    }
+
+    /**
+     * Builds the index from scratch, for a new version of the catalog
+     */
+    private void rebuild(List<Recipe> recipes) {
+        int size = stock.length;
+        for (Recipe recipe : recipes) {
+            size = Math.max(size, recipe.getRequirements().maxId() + 1);
+        }
+        stock = Arrays.copyOf(stock, size);
+
+        // counted first, so the thresholds of each ingredient go straight into an array of the right size
+        int[] users = new int[size];
+        for (Recipe recipe : recipes) {
+            IngredientAmounts requirements = recipe.getRequirements();
+            for (int r = 0; r < requirements.size(); r++) {
+                users[requirements.getId(r)]++;
+            }
+        }
+        List<List<Entry>> entries = new ArrayList<>(size);
+        int[][] thresholds = new int[size][];
+        for (int i = 0; i < size; i++) {
+            entries.add(new ArrayList<>(users[i]));
+            thresholds[i] = new int[users[i]];
+        }
+
+        Set<String> newMakeable = ConcurrentHashMap.newKeySet();
+        for (Recipe recipe : recipes) {
+            Entry entry = new Entry(recipe.getName());
+            IngredientAmounts requirements = recipe.getRequirements();
+            for (int r = 0; r < requirements.size(); r++) {
+                int i = requirements.getId(r);
+                int amount = requirements.getAmount(r);
+                thresholds[i][entries.get(i).size()] = amount;
+                entries.get(i).add(entry);
+                if (stock[i] < amount) entry.missing++;
+            }
+            if (entry.missing == 0) newMakeable.add(entry.name);
+        }
+
+        List<ThresholdIndex<Entry>> newByIngredient = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            newByIngredient.add(new ThresholdIndex<>(thresholds[i], entries.get(i)));
+        }
+
+        byIngredient = newByIngredient;
+        makeable = newMakeable;
+        indexedRecipes = recipes;
+    }
+
+    /**
+     * A Recipe and how many of its ingredients are missing
+     */
+    private static final class Entry {
+
+        private final String name;
+
+        private int missing;
+
+        private Entry(String name) {
+            this.name = name;
+        }
+    }
+}
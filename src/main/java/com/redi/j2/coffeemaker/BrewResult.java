@@ -0,0 +1,30 @@
+package com.redi.j2.coffeemaker;
+
+/**
+ * The outcome of an order for a Recipe
+ */
+public enum BrewResult {
+
+    /**
+     * The Recipe was made and the ingredients were deducted from the inventory
+     */
+    BREWED,
+
+    /**
+     * There is no Recipe with the given name in the catalog
+     */
+    UNKNOWN_RECIPE,
+
+    /**
+     * There were not enough ingredients to make the Recipe
+     */
+    NOT_ENOUGH_INGREDIENTS;
+
+    /**
+     * Checks if the order was successful
+     * @return true if the Recipe was made, false if the order was rejected
+     */
+    public boolean isBrewed() {
+        return this == BREWED;
+    }
+}
@@ -0,0 +1,403 @@
+package com.redi.j2.coffeemaker;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads catalogs of Recipes from CSV files and from a compact binary format, and writes the binary format.
+ * <p>
+ * Both formats are read one Recipe at a time. Every Recipe is checked with {@link Recipe#validate},
+ * so a bad row is reported and skipped without creating an exception.
+ * <p>
+ * The CSV format has one Recipe per line: {@code name,price,coffee,milk,chocolate,sugar}.
+ * A first line starting with "name" is a header: the columns after the price name the ingredients,
+ * which are registered if needed, like {@code name,price,coffee,milk,caramel}.
+ * Without a header, the columns are the basic {@link Ingredient}s. Names with commas can be quoted.
+ * <p>
+ * The binary format is: the magic number "CMCT", a version byte, the amount of ingredients (unsigned short),
+ * their names, and the amount of Recipes (int). Then, for each Recipe: its name, the price as an unscaled long
+ * and a scale byte, the amount of ingredients it uses (unsigned short) and, for each one, its index in the
+ * names of ingredients (unsigned short) and the amount (int). Names are written as their length in bytes
+ * (unsigned short) and UTF-8. Numbers are big-endian.
+ * Version 1 files, with a byte for the amount of basic ingredients and one int per ingredient in each Recipe,
+ * can still be read.
+ */
+public final class CatalogImporter {
+
+    /**
+     * First bytes of every binary catalog ("CMCT")
+     */
+    private static final int MAGIC = 0x434D4354;
+
+    /**
+     * Version of the binary format
+     */
+    private static final byte VERSION = 2;
+
+    /**
+     * Version of the binary format before ingredients could be registered
+     */
+    private static final byte VERSION_BASIC_INGREDIENTS = 1;
+
+    /**
+     * The columns of a CSV file without a header: the name, the price and the basic ingredients
+     */
+    private static final String[] BASIC_COLUMNS = {"name", "price", "coffee", "milk", "chocolate", "sugar"};
+
+    /**
+     * How many problems are kept in a Result. The rest are only counted.
+     */
+    private static final int MAX_PROBLEMS = 100;
+
+    private CatalogImporter() {
+    }
+
+    /**
+     * The Recipes read from a catalog, and the ones that were skipped
+     */
+    public static final class Result {
+
+        private final List<Recipe> recipes = new ArrayList<>();
+
+        private final List<String> problems = new ArrayList<>();
+
+        private long rejected;
+
+        private void reject(String where, String reason) {
+            rejected++;
+            if (problems.size() < MAX_PROBLEMS) problems.add(where + ": " + reason);
+        }
+
+        /**
+         * Getter for the valid Recipes
+         * @return the Recipes, in the order they were read
+         */
+        public List<Recipe> getRecipes() {
+            return Collections.unmodifiableList(recipes);
+        }
+
+        /**
+         * Getter for the amount of Recipes that were skipped
+         * @return the amount of invalid Recipes
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * Getter for why Recipes were skipped
+         * @return the first problems found, with the line or record where they were found
+         */
+        public List<String> getProblems() {
+            return Collections.unmodifiableList(problems);
+        }
+    }
+
+    /**
+     * Reads a catalog in the CSV format
+     * @param csv the CSV content
+     * @return the Recipes that were read
+     * @throws IOException if the content cannot be read
+     */
+    public static Result readCsv(Reader csv) throws IOException {
+        Result result = new Result();
+        BufferedReader reader = new BufferedReader(csv, 64 * 1024);
+        String[] fields = new String[BASIC_COLUMNS.length];
+        int[] ids = columnIds(BASIC_COLUMNS, fields.length);
+        int[] amounts = new int[ids.length];
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) continue;
+            int count = splitCsv(line, fields);
+            if (lineNumber == 1 && count > 0 && fields[0].equalsIgnoreCase("name")) {
+                if (count != fields.length) {
+                    fields = new String[count];
+                    splitCsv(line, fields);
+                }
+                if (count < 2) throw new IOException("The header has no price column");
+                ids = columnIds(fields, count);
+                amounts = new int[ids.length];
+                continue;
+            }
+            String where = "line " + lineNumber;
+            if (count != fields.length) {
+                result.reject(where, "expected " + fields.length + " fields");
+                continue;
+            }
+            if (!isDecimal(fields[1])) {
+                result.reject(where, "the price is not a number");
+                continue;
+            }
+            boolean numbers = true;
+            for (int i = 0; i < amounts.length; i++) {
+                amounts[i] = parseAmount(fields[i + 2]);
+                if (amounts[i] == Integer.MIN_VALUE) numbers = false;
+            }
+            if (!numbers) {
+                result.reject(where, "an amount is not a number");
+                continue;
+            }
+            IngredientAmounts.Builder requirements = IngredientAmounts.builder();
+            for (int i = 0; i < amounts.length; i++) {
+                requirements.add(ids[i], amounts[i]);
+            }
+            add(result, where, fields[0], new BigDecimal(fields[1]), requirements);
+        }
+        return result;
+    }
+
+    /**
+     * Registers the ingredients named by the columns after the price
+     * @return the id of the ingredient of each column after the price
+     */
+    private static int[] columnIds(String[] columns, int count) throws IOException {
+        int[] ids = new int[count - 2];
+        for (int i = 0; i < ids.length; i++) {
+            try {
+                ids[i] = IngredientRegistry.register(columns[i + 2]);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Column " + (i + 3) + " of the header has no name", e);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Reads a catalog in the binary format, mapping the file into memory
+     * @param file the catalog file
+     * @return the Recipes that were read
+     * @throws IOException if the file cannot be read or is not a binary catalog
+     */
+    public static Result readBinary(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("The catalog is too big: " + file);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 10 || buffer.getInt() != MAGIC) throw new IOException("Not a catalog file: " + file);
+            byte version = buffer.get();
+            if (version != VERSION && version != VERSION_BASIC_INGREDIENTS) {
+                throw new IOException("Unsupported catalog version " + version + ": " + file);
+            }
+            boolean basic = version == VERSION_BASIC_INGREDIENTS;
+            byte[] name = new byte[256];
+            int[] ids;
+            int count;
+            try {
+                ids = new int[basic ? Byte.toUnsignedInt(buffer.get()) : Short.toUnsignedInt(buffer.getShort())];
+                for (int i = 0; i < ids.length; i++) {
+                    if (basic) {
+                        ids[i] = (i < Ingredient.values().length) ? i : -1;
+                        continue;
+                    }
+                    int length = Short.toUnsignedInt(buffer.getShort());
+                    if (length > name.length) name = new byte[length];
+                    buffer.get(name, 0, length);
+                    ids[i] = IngredientRegistry.register(new String(name, 0, length, StandardCharsets.UTF_8));
+                }
+                count = buffer.getInt();
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                throw new IOException("Corrupt names of ingredients: " + file, e);
+            }
+
+            Result result = new Result();
+            for (int i = 0; i < count; i++) {
+                String where = "record " + (i + 1);
+                try {
+                    int length = Short.toUnsignedInt(buffer.getShort());
+                    if (length > name.length) name = new byte[length];
+                    buffer.get(name, 0, length);
+                    long unscaled = buffer.getLong();
+                    int scale = buffer.get();
+                    IngredientAmounts.Builder requirements = IngredientAmounts.builder();
+                    boolean known = true;
+                    int used = basic ? ids.length : Short.toUnsignedInt(buffer.getShort());
+                    for (int j = 0; j < used; j++) {
+                        int index = basic ? j : Short.toUnsignedInt(buffer.getShort());
+                        int amount = buffer.getInt();
+                        if (index >= ids.length) known = false;
+                        else if (ids[index] >= 0) requirements.add(ids[index], amount);
+                    }
+                    if (!known) {
+                        result.reject(where, "unknown ingredient");
+                        continue;
+                    }
+                    add(result, where, new String(name, 0, length, StandardCharsets.UTF_8),
+                            BigDecimal.valueOf(unscaled, scale), requirements);
+                } catch (BufferUnderflowException e) {
+                    result.reject(where, "the file ends before the record");
+                    result.rejected += count - i - 1;
+                    break;
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Writes a catalog in the binary format
+     * @param file the catalog file, replaced if it exists
+     * @param recipes the Recipes
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if a name is longer than 65535 bytes,
+     *                                  or a price has too many digits for the format
+     */
+    public static void writeBinary(Path file, Collection<Recipe> recipes) throws IOException {
+        // the table of ingredients only has the ones the Recipes use, in order of id
+        int[] indexes = new int[IngredientRegistry.size()];
+        int ingredients = 0;
+        for (Recipe recipe : recipes) {
+            IngredientAmounts requirements = recipe.getRequirements();
+            for (int i = 0; i < requirements.size(); i++) {
+                if (indexes[requirements.getId(i)] == 0) {
+                    indexes[requirements.getId(i)] = 1;
+                    ingredients++;
+                }
+            }
+        }
+        if (ingredients > 0xFFFF) throw new IllegalArgumentException("Too many ingredients: " + ingredients);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeShort(ingredients);
+            int index = 0;
+            for (int id = 0; id < indexes.length; id++) {
+                if (indexes[id] == 0) continue;
+                indexes[id] = index++;
+                writeName(out, IngredientRegistry.getName(id));
+            }
+            out.writeInt(recipes.size());
+            for (Recipe recipe : recipes) {
+                BigDecimal price = recipe.getPrice();
+                if (price.unscaledValue().bitLength() > 63 || price.scale() != (byte) price.scale()) {
+                    throw new IllegalArgumentException("Price too precise: " + price);
+                }
+                writeName(out, recipe.getName());
+                out.writeLong(price.unscaledValue().longValue());
+                out.writeByte(price.scale());
+                IngredientAmounts requirements = recipe.getRequirements();
+                out.writeShort(requirements.size());
+                for (int i = 0; i < requirements.size(); i++) {
+                    out.writeShort(indexes[requirements.getId(i)]);
+                    out.writeInt(requirements.getAmount(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a name as its length in bytes and its UTF-8 bytes
+     */
+    private static void writeName(DataOutputStream out, String text) throws IOException {
+        byte[] name = text.getBytes(StandardCharsets.UTF_8);
+        if (name.length > 0xFFFF) throw new IllegalArgumentException("Name too long: " + text);
+        out.writeShort(name.length);
+        out.write(name);
+    }
+
+    /**
+     * Validates a Recipe and adds it to the result, or records why it was skipped
+     */
+    private static void add(Result result, String where, String name, BigDecimal price,
+                            IngredientAmounts.Builder builder) {
+        IngredientAmounts requirements;
+        try {
+            requirements = builder.build();
+        } catch (IllegalArgumentException e) {
+            // a repeated ingredient whose amounts add up beyond an int
+            result.reject(where, e.getMessage());
+            return;
+        }
+        String problem = Recipe.validate(name, price, requirements);
+        if (problem != null) {
+            result.reject(where, problem);
+        } else {
+            result.recipes.add(Recipe.ofValidated(name, price, requirements));
+        }
+    }
+
+    /**
+     * Splits a CSV line into fields. Fields can be quoted, and quotes inside quoted fields are doubled.
+     * @return how many fields the line has (it may be more than the array can hold)
+     */
+    private static int splitCsv(String line, String[] fields) {
+        int count = 0;
+        int i = 0;
+        StringBuilder quoted = null;
+        while (true) {
+            String field;
+            if (i < line.length() && line.charAt(i) == '"') {
+                if (quoted == null) quoted = new StringBuilder();
+                quoted.setLength(0);
+                i++;
+                while (i < line.length()) {
+                    char c = line.charAt(i++);
+                    if (c != '"') quoted.append(c);
+                    else if (i < line.length() && line.charAt(i) == '"') quoted.append(line.charAt(i++));
+                    else break;
+                }
+                field = quoted.toString();
+                int comma = line.indexOf(',', i);
+                i = (comma < 0) ? line.length() : comma;
+            } else {
+                int comma = line.indexOf(',', i);
+                int end = (comma < 0) ? line.length() : comma;
+                field = line.substring(i, end).trim();
+                i = end;
+            }
+            if (count < fields.length) fields[count] = field;
+            count++;
+            if (i >= line.length()) return count;
+            i++; // the comma
+        }
+    }
+
+    /**
+     * Checks if a text is a decimal number, like "2.50" or "-1", so it can be parsed without an exception
+     */
+    private static boolean isDecimal(String text) {
+        int i = (text.startsWith("-") || text.startsWith("+")) ? 1 : 0;
+        boolean digits = false;
+        boolean dot = false;
+        for (; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') digits = true;
+            else if (c == '.' && !dot) dot = true;
+            else return false;
+        }
+        return digits;
+    }
+
+    /**
+     * Parses an amount without an exception
+     * @return the amount, or Integer.MIN_VALUE if it is not a number
+     */
+    private static int parseAmount(String text) {
+        int i = (text.startsWith("-") || text.startsWith("+")) ? 1 : 0;
+        if (i == text.length()) return Integer.MIN_VALUE;
+        long value = 0;
+        for (; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return Integer.MIN_VALUE;
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE) return Integer.MIN_VALUE;
+        }
+        return text.startsWith("-") ? (int) -value : (int) value;
+    }
+}
@@ -0,0 +1,28 @@
+package com.redi.j2.coffeemaker;
+
+/**
+ * Receives the changes of a {@link RecipeBook}.
+ * Listeners are called while the catalog is held, right after each new version is published,
+ * so they see the changes in the order they happened. They must be fast,
+ * and must never change the catalog.
+ */
+public interface CatalogListener {
+
+    /**
+     * Called when a Recipe was added
+     * @param recipe the new Recipe
+     */
+    void recipeAdded(Recipe recipe);
+
+    /**
+     * Called when a Recipe was replaced
+     * @param recipe the new version of the Recipe
+     */
+    void recipeUpdated(Recipe recipe);
+
+    /**
+     * Called when a Recipe was removed
+     * @param recipe the Recipe that was removed
+     */
+    void recipeRemoved(Recipe recipe);
+}
@@ -4,14 +4,27 @@ import com.redi.j2.exceptions.InvalidRecipeIngredientAmountException;
 import com.redi.j2.exceptions.InvalidRecipePriceException;
 import com.redi.j2.utils.ConsoleUtils;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * The core of the application, this class represents a coffee maker machine
  */
 public class CoffeeMaker {
 
+    /**
+     * Defines how many asynchronous orders can wait in the default order intake
+     */
+    public static final int DEFAULT_ORDER_QUEUE_CAPACITY = 1024;
+
     /**
      * The place where the ingredients are stored
      */
@@ -22,6 +35,54 @@ public class CoffeeMaker {
      */
     private final RecipeBook catalog;
 
+    /**
+     * Where the changes are saved to survive restarts, or null if the machine is not journaled.
+     * When there is a journal, each change and its log record are done while holding the journal,
+     * so the log has the changes in the same order they were applied.
+     */
+    private final Journal journal;
+
+    /**
+     * How many servings of each Recipe can still be made
+     */
+    private final ServingsTable servingsTable;
+
+    /**
+     * Which Recipes can be made right now
+     */
+    private final AvailabilityIndex availabilityIndex;
+
+    /**
+     * The thresholds on the stock, alerted when they are crossed.
+     * Created on the first watch, so the inventory does not notify it before anyone watches.
+     */
+    private StockWatchers stockWatchers;
+
+    /**
+     * The ingredients held for orders that were paid but not made yet
+     */
+    private final Reservations reservations;
+
+    /**
+     * Everything the machine sold
+     */
+    private final SalesLedger salesLedger = new SalesLedger();
+
+    /**
+     * Who is told about the changes made by the machine
+     */
+    private final EventPublisher events = new EventPublisher();
+
+    /**
+     * What the machine is doing, or null if the metrics are disabled
+     */
+    private volatile CoffeeMakerMetrics metrics;
+
+    /**
+     * The queue of asynchronous orders, created on the first asynchronous order if not configured before
+     */
+    private OrderIntake orderIntake;
+
     /**
      * Getter for the Inventory
      * @return the inventory
@@ -31,12 +92,63 @@ public class CoffeeMaker {
     }
 
     /**
-     * The parameterized constructor.
+     * The default constructor, for a machine with up to {@link RecipeBook#MAX_RECIPES} Recipes.
      * The machine always starts with some amount of ingredients and one default Recipe
      */
     public CoffeeMaker() {
+        this(RecipeBook.MAX_RECIPES);
+    }
+
+    /**
+     * The parameterized constructor.
+     * The machine always starts with some amount of ingredients and one default Recipe
+     * @param recipeCapacity the maximum amount of Recipes the machine can have
+     */
+    public CoffeeMaker(int recipeCapacity) {
         inventory = new Inventory(10, 10, 10, 10);
-        catalog = new RecipeBook();
+        catalog = new RecipeBook(recipeCapacity);
+        journal = null;
+        addDefaultRecipes();
+        servingsTable = new ServingsTable(catalog);
+        inventory.addListener(servingsTable);
+        availabilityIndex = new AvailabilityIndex(catalog);
+        inventory.addListener(availabilityIndex);
+        reservations = new Reservations(inventory);
+        catalog.addListener(events.catalogListener());
+    }
+
+    /**
+     * Constructor for a journaled machine.
+     * The machine starts with the state saved in the journal. If the journal is new,
+     * it starts with some amount of ingredients and one default Recipe, like any other machine.
+     * From then on, all the changes made through the machine are saved in the journal.
+     * @param recipeCapacity the maximum amount of Recipes the machine can have
+     * @param journal where the state of the machine is saved
+     * @throws IOException if the saved state cannot be read
+     */
+    public CoffeeMaker(int recipeCapacity, Journal journal) throws IOException {
+        catalog = new RecipeBook(recipeCapacity);
+        this.journal = journal;
+        Inventory recovered = new Inventory(0, 0, 0, 0);
+        if (journal.recover(recovered, catalog)) {
+            inventory = recovered;
+        } else {
+            inventory = new Inventory(10, 10, 10, 10);
+            addDefaultRecipes();
+            journal.snapshot(inventory, catalog);
+        }
+        servingsTable = new ServingsTable(catalog);
+        inventory.addListener(servingsTable);
+        availabilityIndex = new AvailabilityIndex(catalog);
+        inventory.addListener(availabilityIndex);
+        reservations = new Reservations(inventory);
+        catalog.addListener(events.catalogListener());
+    }
+
+    /**
+     * Adds the Recipes every new machine comes with
+     */
+    private void addDefaultRecipes() {
         try {
             catalog.addRecipe(
                 new Recipe("Cappuccino", BigDecimal.valueOf(2.7), 2, 3, 0, 1)
@@ -47,13 +159,73 @@ public class CoffeeMaker {
         }
     }
 
+    /**
+     * Getter for the SalesLedger
+     * @return the record of everything the machine sold
+     */
+    public SalesLedger getSalesLedger() {
+        return salesLedger;
+    }
+
+    /**
+     * Getter for the Journal
+     * @return the journal of this machine, or null if the machine is not journaled
+     */
+    public Journal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Getter for the stream of changes. Subscribers are told about every Recipe made, every refill,
+     * and every change to the catalog, without slowing down the machine.
+     * @return the publisher of the changes made by this machine
+     */
+    public EventPublisher getEvents() {
+        return events;
+    }
+
     /**
      * Adds a Recipe to the machine, if there is space in the catalog
      * @param r the new recipe
      * @return true if the Recipe was added, false otherwise
      */
     public boolean addRecipe(Recipe r) {
-        return catalog.addRecipe(r);
+        CoffeeMakerMetrics m = metrics;
+        long start = (m != null) ? System.nanoTime() : 0;
+        boolean added;
+        if (journal == null) {
+            added = catalog.addRecipe(r);
+        } else {
+            synchronized (journal) {
+                added = catalog.addRecipe(r);
+                if (added) {
+                    journal.recipeAdded(r);
+                    snapshotIfDue();
+                }
+            }
+        }
+        if (added && m != null) m.recordRecipeAdded(System.nanoTime() - start);
+        return added;
+    }
+
+    /**
+     * Adds many Recipes to the machine at once, like a catalog that was imported.
+     * Recipes with a name already in the catalog, and Recipes beyond its capacity, are skipped.
+     * @param recipes the new Recipes
+     * @return how many Recipes were added
+     */
+    public int addRecipes(Collection<Recipe> recipes) {
+        if (journal == null) {
+            return catalog.addRecipes(recipes).size();
+        }
+        synchronized (journal) {
+            List<Recipe> added = catalog.addRecipes(recipes);
+            for (Recipe recipe : added) {
+                journal.recipeAdded(recipe);
+                snapshotIfDue();
+            }
+            return added.size();
+        }
     }
 
     /**
@@ -62,7 +234,22 @@ public class CoffeeMaker {
      * @return true if the recipe was found and removed, false otherwise
      */
     public boolean removeRecipe(String name) {
-        return catalog.removeRecipe(name);
+        CoffeeMakerMetrics m = metrics;
+        long start = (m != null) ? System.nanoTime() : 0;
+        boolean removed;
+        if (journal == null) {
+            removed = catalog.removeRecipe(name);
+        } else {
+            synchronized (journal) {
+                removed = catalog.removeRecipe(name);
+                if (removed) {
+                    journal.recipeRemoved(name);
+                    snapshotIfDue();
+                }
+            }
+        }
+        if (removed && m != null) m.recordRecipeRemoved(System.nanoTime() - start);
+        return removed;
     }
 
     /**
@@ -72,7 +259,48 @@ public class CoffeeMaker {
      * @return true if the recipe was found and updated, false otherwise
      */
     public boolean updateRecipe(Recipe r) {
-        return catalog.updateRecipe(r);
+        CoffeeMakerMetrics m = metrics;
+        long start = (m != null) ? System.nanoTime() : 0;
+        boolean updated;
+        if (journal == null) {
+            updated = catalog.updateRecipe(r);
+        } else {
+            synchronized (journal) {
+                updated = catalog.updateRecipe(r);
+                if (updated) {
+                    journal.recipeUpdated(r);
+                    snapshotIfDue();
+                }
+            }
+        }
+        if (updated && m != null) m.recordRecipeUpdated(System.nanoTime() - start);
+        return updated;
+    }
+
+    /**
+     * Updates many Recipes at once, like a change of all the prices. Orders made at the same time
+     * see either all the new Recipes or none of them, and never wait for the update.
+     * Recipes with a name that is not in the catalog are skipped.
+     * @param recipes the Recipes with all information to update
+     * @return how many Recipes were updated
+     */
+    public int updateRecipes(Collection<Recipe> recipes) {
+        CoffeeMakerMetrics m = metrics;
+        long start = (m != null) ? System.nanoTime() : 0;
+        List<Recipe> updated;
+        if (journal == null) {
+            updated = catalog.updateRecipes(recipes);
+        } else {
+            synchronized (journal) {
+                updated = catalog.updateRecipes(recipes);
+                for (Recipe recipe : updated) {
+                    journal.recipeUpdated(recipe);
+                    snapshotIfDue();
+                }
+            }
+        }
+        if (!updated.isEmpty() && m != null) m.recordRecipeUpdated(System.nanoTime() - start);
+        return updated.size();
     }
 
     /**
@@ -83,10 +311,38 @@ public class CoffeeMaker {
      * @param sugar The amount of Sugar to add
      */
     public void addIngredients(int coffee, int milk, int chocolate, int sugar){
-        inventory.addIngredient(Ingredient.COFFEE, coffee);
-        inventory.addIngredient(Ingredient.MILK, milk);
-        inventory.addIngredient(Ingredient.CHOCOLATE, chocolate);
-        inventory.addIngredient(Ingredient.SUGAR, sugar);
+        addIngredients(IngredientAmounts.of(coffee, milk, chocolate, sugar));
+    }
+
+    /**
+     * Adds an amount of any ingredient to the inventory, registering the ingredient if it is new
+     * @param ingredientName the name of the ingredient
+     * @param amount the amount to add
+     */
+    public void addIngredient(String ingredientName, int amount) {
+        addIngredients(IngredientAmounts.builder().add(ingredientName, amount).build());
+    }
+
+    /**
+     * Adds amounts of any ingredients to the inventory
+     * @param amounts the amounts to add
+     * @throws IllegalArgumentException if the stock of an ingredient would not fit in an int.
+     *                                  Nothing is added or journaled then.
+     */
+    public void addIngredients(IngredientAmounts amounts) {
+        CoffeeMakerMetrics m = metrics;
+        long start = (m != null) ? System.nanoTime() : 0;
+        if (journal == null) {
+            inventory.addAmounts(amounts);
+        } else {
+            synchronized (journal) {
+                inventory.addAmounts(amounts);
+                journal.refilled(amounts);
+                snapshotIfDue();
+            }
+        }
+        events.publish(CoffeeMakerEvent.Type.REFILLED, null, amounts);
+        if (m != null) m.recordRefill(System.nanoTime() - start);
     }
 
     /**
@@ -97,27 +353,342 @@ public class CoffeeMaker {
         return catalog.getRecipes();
     }
 
+    /**
+     * Searches for a Recipe in the catalog
+     * @param recipeName the name of the Recipe
+     * @return the Recipe, if found, or null otherwise
+     */
+    public Recipe getRecipe(String recipeName) {
+        return catalog.getRecipe(recipeName);
+    }
+
+    /**
+     * Getter for the maximum amount of Recipes
+     * @return the maximum amount of Recipes the machine can have
+     */
+    public int getRecipeCapacity() {
+        return catalog.getCapacity();
+    }
+
     /**
      * Makes a Recipe, if there are enough ingredients,
-     * and deducts the value from the inventory
+     * and deducts the value from the inventory.
+     * The check and the deduction happen atomically, so concurrent orders
+     * can never take the inventory below zero.
      * @param recipeName the recipe name
      * @return true if the coffee was made, false otherwise
      */
     public boolean makeCoffee(String recipeName) {
+        return brew(recipeName).isBrewed();
+    }
+
+    /**
+     * Makes a Recipe, if there are enough ingredients,
+     * and deducts the value from the inventory.
+     * Same as {@link #makeCoffee(String)}, but tells why an order was rejected.
+     * @param recipeName the recipe name
+     * @return the outcome of the order
+     */
+    public BrewResult brew(String recipeName) {
+        CoffeeMakerMetrics m = metrics;
+        if (m == null) return brew(catalog.getRecipe(recipeName));
 
+        long start = System.nanoTime();
         Recipe recipe = catalog.getRecipe(recipeName);
-        if (recipe == null) return false;
+        BrewResult result = brew(recipe);
+        m.recordBrew(recipe, result, System.nanoTime() - start);
+        return result;
+    }
 
-        if (!hasEnoughIngredientsToMakeRecipe(recipeName)) return false;
+    /**
+     * Makes a Recipe, if there are enough ingredients
+     * @param recipe the recipe, or null if it was not found
+     * @return the outcome of the order
+     */
+    private BrewResult brew(Recipe recipe) {
+
+        if (recipe == null) return BrewResult.UNKNOWN_RECIPE;
 
-        inventory.removeAmount(Ingredient.COFFEE, recipe.getAmountCoffee());
-        inventory.removeAmount(Ingredient.MILK, recipe.getAmountMilk());
-        inventory.removeAmount(Ingredient.CHOCOLATE, recipe.getAmountChocolate());
-        inventory.removeAmount(Ingredient.SUGAR, recipe.getAmountSugar());
+        IngredientAmounts amounts = recipe.getRequirements();
+        if (journal == null) {
+            if (!inventory.removeAmounts(amounts)) return BrewResult.NOT_ENOUGH_INGREDIENTS;
+        } else {
+            synchronized (journal) {
+                if (!inventory.removeAmounts(amounts)) return BrewResult.NOT_ENOUGH_INGREDIENTS;
+                journal.brewed(amounts);
+                snapshotIfDue();
+            }
+        }
+        salesLedger.record(recipe);
+        events.publish(CoffeeMakerEvent.Type.BREWED, recipe, amounts);
+        return BrewResult.BREWED;
+    }
 
+    /**
+     * Holds the ingredients of a Recipe for an order that will be made later, like a paid mobile order.
+     * The ingredients leave the stock at once, so other orders cannot take them, and go back to the stock
+     * if the reservation is cancelled or not committed before its lease runs out.
+     * Reservations are not journaled: after a restart, their ingredients are back in the stock.
+     * @param recipeName the recipe name
+     * @param lease how long the ingredients are held. They are released at most 10 ms after it runs out.
+     * @return the reservation, or null if the Recipe is unknown or there are not enough ingredients
+     */
+    public Reservation reserve(String recipeName, Duration lease) {
+        Recipe recipe = catalog.getRecipe(recipeName);
+        return (recipe == null) ? null : reservations.reserve(recipe, lease.toNanos());
+    }
+
+    /**
+     * Makes the Recipe of a reservation with the ingredients it holds.
+     * The Recipe is made as it was when the reservation was made, even if it changed since then.
+     * @param reservation the reservation
+     * @return true if the Recipe was made, false if the reservation was not active or its lease ran out
+     * @throws IllegalArgumentException if the reservation was made by another machine
+     */
+    public boolean commit(Reservation reservation) {
+        CoffeeMakerMetrics m = metrics;
+        long start = (m != null) ? System.nanoTime() : 0;
+        if (!reservations.commit(reservation)) return false;
+        Recipe recipe = reservation.getRecipe();
+        IngredientAmounts amounts = recipe.getRequirements();
+        if (journal == null) {
+            inventory.consumeReserved(amounts);
+        } else {
+            synchronized (journal) {
+                inventory.consumeReserved(amounts);
+                journal.brewed(amounts);
+                snapshotIfDue();
+            }
+        }
+        salesLedger.record(recipe);
+        events.publish(CoffeeMakerEvent.Type.BREWED, recipe, amounts);
+        if (m != null) m.recordBrew(recipe, BrewResult.BREWED, System.nanoTime() - start);
         return true;
     }
 
+    /**
+     * Drops a reservation, and puts its ingredients back in the stock
+     * @param reservation the reservation
+     * @return true if it was cancelled, false if it was not active anymore
+     * @throws IllegalArgumentException if the reservation was made by another machine
+     */
+    public boolean cancel(Reservation reservation) {
+        return reservations.cancel(reservation);
+    }
+
+    /**
+     * Getter for the amount of active reservations
+     * @return the reservations not committed, cancelled or expired yet
+     */
+    public int getActiveReservations() {
+        return reservations.getActive();
+    }
+
+    /**
+     * Queues an order to be made by the order intake of this machine.
+     * The calling thread does not wait for the Recipe to be made.
+     * @param recipeName the recipe name
+     * @return a future completed with the outcome of the order, or exceptionally
+     * with a {@link java.util.concurrent.RejectedExecutionException} if the order queue is full
+     */
+    public CompletableFuture<BrewResult> makeCoffeeAsync(String recipeName) {
+        return getOrderIntake().submit(() -> brew(recipeName));
+    }
+
+    /**
+     * Getter for the order intake. If none was configured, a default one is created,
+     * with {@link #DEFAULT_ORDER_QUEUE_CAPACITY} waiting orders, one worker per processor,
+     * and rejecting orders when the queue is full.
+     * @return the order intake used by {@link #makeCoffeeAsync(String)}
+     */
+    public synchronized OrderIntake getOrderIntake() {
+        if (orderIntake == null) {
+            orderIntake = new OrderIntake(DEFAULT_ORDER_QUEUE_CAPACITY,
+                    Runtime.getRuntime().availableProcessors(), OverflowPolicy.REJECT);
+        }
+        return orderIntake;
+    }
+
+    /**
+     * Setter for the order intake, to configure the queue of asynchronous orders.
+     * The replaced order intake, if any, is shut down: the orders it already queued are still made,
+     * and then its workers stop.
+     * @param orderIntake the order intake used by {@link #makeCoffeeAsync(String)}
+     */
+    public synchronized void setOrderIntake(OrderIntake orderIntake) {
+        OrderIntake replaced = this.orderIntake;
+        this.orderIntake = orderIntake;
+        if (replaced != null && replaced != orderIntake) replaced.shutdown();
+    }
+
+    /**
+     * Starts collecting metrics about what the machine is doing.
+     * While the metrics are disabled, the machine does not measure anything.
+     */
+    public synchronized void enableMetrics() {
+        if (metrics == null) {
+            metrics = new CoffeeMakerMetrics();
+        }
+    }
+
+    /**
+     * Stops collecting metrics, and discards the ones already collected
+     */
+    public synchronized void disableMetrics() {
+        metrics = null;
+    }
+
+    /**
+     * Takes a copy of the metrics at this moment
+     * @return the metrics of the machine, or null if the metrics are disabled
+     */
+    public MetricsSnapshot getMetricsSnapshot() {
+        CoffeeMakerMetrics m = metrics;
+        return (m != null) ? m.snapshot(inventory) : null;
+    }
+
+    /**
+     * Makes a batch of Recipes. The result is exactly the same as calling
+     * {@link #brew(String)} for each order in sequence, but each Recipe is looked up
+     * only once and the inventory is updated in a single step.
+     * @param recipeNames the recipe names, in the order they should be made
+     * @return the outcome of each order, in the same order
+     */
+    public List<BrewResult> makeCoffeeBatch(List<String> recipeNames) {
+
+        // all the Recipes come from the same version of the catalog, even if it changes meanwhile
+        RecipeBook.Snapshot version = catalog.snapshot();
+        Recipe[] recipes = new Recipe[recipeNames.size()];
+        IngredientAmounts[] amounts = new IngredientAmounts[recipes.length];
+        for (int i = 0; i < amounts.length; i++) {
+            recipes[i] = version.getRecipe(recipeNames.get(i));
+            if (recipes[i] != null) {
+                amounts[i] = recipes[i].getRequirements();
+            }
+        }
+
+        boolean[] removed = new boolean[amounts.length];
+        if (journal == null) {
+            inventory.removeAmountsInOrder(amounts, removed);
+        } else {
+            synchronized (journal) {
+                if (inventory.removeAmountsInOrder(amounts, removed) > 0) {
+                    IngredientAmounts.Builder total = IngredientAmounts.builder();
+                    for (int i = 0; i < amounts.length; i++) {
+                        if (!removed[i]) continue;
+                        for (int j = 0; j < amounts[i].size(); j++) {
+                            total.add(amounts[i].getId(j), amounts[i].getAmount(j));
+                        }
+                    }
+                    journal.brewed(total.build());
+                    snapshotIfDue();
+                }
+            }
+        }
+
+        CoffeeMakerMetrics m = metrics;
+        List<BrewResult> results = new ArrayList<>(amounts.length);
+        for (int i = 0; i < amounts.length; i++) {
+            BrewResult result;
+            if (amounts[i] == null) result = BrewResult.UNKNOWN_RECIPE;
+            else if (removed[i]) {
+                result = BrewResult.BREWED;
+                salesLedger.record(recipes[i]);
+                events.publish(CoffeeMakerEvent.Type.BREWED, recipes[i], amounts[i]);
+            }
+            else result = BrewResult.NOT_ENOUGH_INGREDIENTS;
+            results.add(result);
+            // orders in a batch have no latency of their own
+            if (m != null) m.recordBrew(recipes[i], result, -1);
+        }
+        return results;
+    }
+
+    /**
+     * Calculates how many more servings of a Recipe can be made with the current inventory
+     * @param recipeName the name of the recipe
+     * @return the amount of servings, {@link ServingsTable#UNLIMITED} if the Recipe uses no ingredients,
+     * or 0 if the Recipe does not exist
+     */
+    public int maxServings(String recipeName) {
+        return servingsTable.getServings(recipeName);
+    }
+
+    /**
+     * Getter for how many more servings of each Recipe can be made with the current inventory.
+     * The servings are kept up to date as the inventory changes, so reading them does not calculate anything.
+     * @return an unmodifiable, live view of the servings by Recipe name, in the order of the catalog
+     */
+    public Map<String, Integer> getServingsTable() {
+        return servingsTable.getTable();
+    }
+
+    /**
+     * Checks if any Recipe can be made with the current inventory.
+     * This is a constant time lookup, no matter how many Recipes there are.
+     * @return true if at least one Recipe can be made
+     */
+    public boolean canMakeAnyRecipe() {
+        return availabilityIndex.isAnyMakeable();
+    }
+
+    /**
+     * Getter for the Recipes that can be made with the current inventory
+     * @return an unmodifiable, live view of the names of the Recipes that can be made
+     */
+    public Set<String> getMakeableRecipes() {
+        return availabilityIndex.getMakeableRecipes();
+    }
+
+    /**
+     * Watches the amount of an ingredient, like "less than 20 units of milk".
+     * The action receives an alert when the amount goes below the threshold, and another one when it goes back
+     * to it or above it, but not on every change. Alerts are delivered by another thread, in the order they happened.
+     * @param ingredientName the name of the ingredient, registered if it is new
+     * @param threshold the amount below which the ingredient is low
+     * @param action what to do with the alerts
+     * @return the watch, low if the amount is already below the threshold
+     */
+    public StockWatch watchIngredient(String ingredientName, int threshold, Consumer<StockAlert> action) {
+        return getStockWatchers().watchIngredient(IngredientRegistry.register(ingredientName), threshold, action);
+    }
+
+    /**
+     * Watches how many servings of a Recipe can still be made, like "fewer than 5 Cappuccinos left".
+     * The action receives an alert when the servings go below the threshold, and another one when they go back
+     * to it or above it, also when the Recipe changes. A Recipe that is not in the catalog has no servings.
+     * Alerts are delivered by another thread, in the order they happened.
+     * @param recipeName the name of the Recipe
+     * @param servings the servings below which the Recipe is low
+     * @param action what to do with the alerts
+     * @return the watch, low if the servings are already below the threshold
+     */
+    public StockWatch watchServings(String recipeName, int servings, Consumer<StockAlert> action) {
+        return getStockWatchers().watchServings(recipeName, servings, action);
+    }
+
+    /**
+     * Removes a watch. Its alerts not delivered yet are dropped.
+     * @param watch the watch
+     * @return true if the watch was removed, false if it was not registered
+     */
+    public boolean unwatch(StockWatch watch) {
+        return getStockWatchers().unwatch(watch);
+    }
+
+    /**
+     * Getter for the stock watchers, created and attached to the inventory and the catalog on the first call
+     * @return the watchers of this machine
+     */
+    private synchronized StockWatchers getStockWatchers() {
+        if (stockWatchers == null) {
+            stockWatchers = new StockWatchers(catalog);
+            catalog.addListener(stockWatchers);
+            inventory.addListener(stockWatchers);
+        }
+        return stockWatchers;
+    }
+
     /**
      * Checks if there are enough ingredients to make a certain recipe
      * @param recipeName the name of the recipe
@@ -126,9 +697,16 @@ public class CoffeeMaker {
     public boolean hasEnoughIngredientsToMakeRecipe(String recipeName) {
         Recipe recipe = catalog.getRecipe(recipeName);
         if (recipe == null) return false;
-        return inventory.getCoffee() >= recipe.getAmountCoffee() &&
-                inventory.getMilk() >= recipe.getAmountMilk() &&
-                inventory.getChocolate() >= recipe.getAmountChocolate() &&
-                inventory.getSugar() >= recipe.getAmountSugar();
+        return inventory.hasAmounts(recipe.getRequirements());
+    }
+
+    /**
+     * Takes a new snapshot of the machine, if the journal has enough new records.
+     * Must be called while holding the journal, so the state does not change during the snapshot.
+     */
+    private void snapshotIfDue() {
+        if (journal.isSnapshotDue()) {
+            journal.snapshot(inventory, catalog);
+        }
     }
 }
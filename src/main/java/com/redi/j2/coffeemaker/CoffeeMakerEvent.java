@@ -0,0 +1,102 @@
+package com.redi.j2.coffeemaker;
+
+/**
+ * A change made by a {@link CoffeeMaker}, published to the subscribers of its {@link EventPublisher}.
+ * <p>
+ * Events are numbered in the order they were published. A subscriber that finds a gap in the numbers
+ * lost events because its buffer was full.
+ */
+public final class CoffeeMakerEvent {
+
+    /**
+     * The kinds of changes
+     */
+    public enum Type {
+
+        /**
+         * A Recipe was made, also from a reservation: the amounts are its ingredients, removed from the inventory
+         */
+        BREWED,
+
+        /**
+         * Ingredients were added to the inventory: the amounts are what was added
+         */
+        REFILLED,
+
+        /**
+         * A Recipe was added to the catalog
+         */
+        RECIPE_ADDED,
+
+        /**
+         * A Recipe of the catalog was replaced: the Recipe is the new one
+         */
+        RECIPE_UPDATED,
+
+        /**
+         * A Recipe was removed from the catalog: the Recipe is the one that was removed
+         */
+        RECIPE_REMOVED
+    }
+
+    private final Type type;
+
+    private final long sequence;
+
+    private final Recipe recipe;
+
+    private final IngredientAmounts amounts;
+
+    /**
+     * Parameterized constructor
+     * @param type the kind of change
+     * @param sequence the number of the event
+     * @param recipe the Recipe, or null for refills
+     * @param amounts the ingredients added or removed, or empty for changes to the catalog
+     */
+    CoffeeMakerEvent(Type type, long sequence, Recipe recipe, IngredientAmounts amounts) {
+        this.type = type;
+        this.sequence = sequence;
+        this.recipe = recipe;
+        this.amounts = amounts;
+    }
+
+    /**
+     * Getter for the kind of change
+     * @return the type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Getter for the number of the event. Each event published by a machine has a number one higher than the last.
+     * @return the sequence number, starting at 1
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Getter for the Recipe
+     * @return the Recipe made, added, updated or removed, or null for refills
+     */
+    public Recipe getRecipe() {
+        return recipe;
+    }
+
+    /**
+     * Getter for the ingredients
+     * @return what was removed from or added to the inventory, empty for changes to the catalog
+     */
+    public IngredientAmounts getAmounts() {
+        return amounts;
+    }
+
+    @Override
+    public String toString() {
+        return "CoffeeMakerEvent{" + sequence + " " + type
+                + (recipe != null ? " " + recipe.getName() : "")
+                + (amounts.size() > 0 ? " " + amounts : "") + "}";
+    }
+}
@@ -0,0 +1,220 @@
+package com.redi.j2.coffeemaker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coordinates many coffee maker machines behind one order intake.
+ * <p>
+ * The machines have no queues of their own: a brew only holds its machine for as long as it takes,
+ * so there is no backlog to steal from a machine. The orders are queued instead, in a work-stealing
+ * {@link ForkJoinPool}, so idle workers take orders from busy ones, and each order is only bound to a machine
+ * when a worker picks it up. At that moment it goes to the least busy machine that has the Recipe and enough
+ * ingredients, and if that machine runs dry in the meantime the order fails over to the next one.
+ */
+public class CoffeeMakerFleet {
+
+    /**
+     * Batches smaller than this are not split any further
+     */
+    private static final int BATCH_THRESHOLD = 64;
+
+    /**
+     * The machines of the fleet
+     */
+    private final List<CoffeeMaker> machines;
+
+    /**
+     * How many orders each machine is making right now, in the same order as the machines
+     */
+    private final AtomicInteger[] pending;
+
+    /**
+     * The work-stealing pool that runs the orders
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Rotates the first machine to look at, so equally busy machines share the orders
+     */
+    private final AtomicInteger nextMachine = new AtomicInteger();
+
+    private final LongAdder brewed = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder failovers = new LongAdder();
+
+    /**
+     * When the fleet was created, used to calculate the throughput
+     */
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * Constructor for a fleet using one worker per available processor
+     * @param machines the machines of the fleet
+     */
+    public CoffeeMakerFleet(List<CoffeeMaker> machines) {
+        this(machines, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Parameterized constructor
+     * @param machines the machines of the fleet
+     * @param parallelism how many orders can be processed at the same time
+     */
+    public CoffeeMakerFleet(List<CoffeeMaker> machines, int parallelism) {
+        if (machines.isEmpty()) {
+            throw new IllegalArgumentException("A fleet needs at least one machine");
+        }
+        this.machines = Collections.unmodifiableList(new ArrayList<>(machines));
+        this.pending = new AtomicInteger[machines.size()];
+        for (int i = 0; i < pending.length; i++) {
+            pending[i] = new AtomicInteger();
+        }
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Getter for the machines
+     * @return the machines of the fleet
+     */
+    public List<CoffeeMaker> getMachines() {
+        return machines;
+    }
+
+    /**
+     * Makes a Recipe in the current thread, on the best machine for it
+     * @param recipeName the recipe name
+     * @return the outcome of the order
+     */
+    public BrewResult brew(String recipeName) {
+        BrewResult result = route(recipeName);
+        if (result.isBrewed()) brewed.increment();
+        else rejected.increment();
+        return result;
+    }
+
+    /**
+     * Queues an order to be made by the fleet
+     * @param recipeName the recipe name
+     * @return a future completed with the outcome of the order
+     */
+    public CompletableFuture<BrewResult> submit(String recipeName) {
+        return CompletableFuture.supplyAsync(() -> brew(recipeName), pool);
+    }
+
+    /**
+     * Makes a batch of orders in parallel. The batch is split in smaller pieces
+     * that idle workers can steal, and the call returns when all the orders are done.
+     * @param recipeNames the recipe names
+     * @return the outcome of each order, in the same order
+     */
+    public List<BrewResult> brewAll(List<String> recipeNames) {
+        BrewResult[] results = new BrewResult[recipeNames.size()];
+        pool.invoke(new BrewTask(recipeNames, results, 0, results.length));
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Takes the current fleet-wide numbers
+     * @return the numbers of the fleet
+     */
+    public FleetStats getStats() {
+        return new FleetStats(brewed.sum(), rejected.sum(), failovers.sum(), System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Stops accepting orders. Orders already queued are still made.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Finds the best machine for an order and makes it there, failing over to
+     * the other machines if the chosen one cannot make it anymore
+     * @param recipeName the recipe name
+     * @return the outcome of the order
+     */
+    private BrewResult route(String recipeName) {
+        boolean known = false;
+        int start = Math.floorMod(nextMachine.getAndIncrement(), machines.size());
+
+        // a machine that just ran dry fails the ingredient check of the next scan, so every attempt
+        // goes to another machine, unless one was refilled meanwhile. One attempt per machine is enough.
+        for (int attempt = 0; attempt < machines.size(); attempt++) {
+            int best = -1;
+            int bestPending = Integer.MAX_VALUE;
+            for (int n = 0; n < machines.size(); n++) {
+                int i = (start + n) % machines.size();
+                int busy = pending[i].get();
+                // only a less busy machine can be better, so the others are not even checked
+                if (busy >= bestPending) continue;
+                if (!machines.get(i).hasEnoughIngredientsToMakeRecipe(recipeName)) continue;
+                best = i;
+                bestPending = busy;
+            }
+            if (best < 0) break;
+
+            pending[best].incrementAndGet();
+            BrewResult result;
+            try {
+                result = machines.get(best).brew(recipeName);
+            } finally {
+                pending[best].decrementAndGet();
+            }
+            if (result.isBrewed()) return result;
+            known = true;
+            failovers.increment();
+        }
+
+        if (known) return BrewResult.NOT_ENOUGH_INGREDIENTS;
+        for (CoffeeMaker machine : machines) {
+            if (machine.getRecipe(recipeName) != null) return BrewResult.NOT_ENOUGH_INGREDIENTS;
+        }
+        return BrewResult.UNKNOWN_RECIPE;
+    }
+
+    /**
+     * Makes a range of a batch of orders, splitting it in halves while it is big
+     */
+    private class BrewTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> recipeNames;
+
+        private final BrewResult[] results;
+
+        private final int from;
+
+        private final int to;
+
+        private BrewTask(List<String> recipeNames, BrewResult[] results, int from, int to) {
+            this.recipeNames = recipeNames;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    results[i] = brew(recipeNames.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BrewTask(recipeNames, results, from, middle), new BrewTask(recipeNames, results, middle, to));
+        }
+    }
+}
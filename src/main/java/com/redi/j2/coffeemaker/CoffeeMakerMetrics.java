@@ -0,0 +1,165 @@
+package com.redi.j2.coffeemaker;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts what a coffee maker machine is doing: orders made and rejected per Recipe,
+ * latencies of brews, refills and catalog changes, and how fast each ingredient is used.
+ * Counters are striped ({@link LongAdder}), so threads updating them at the same time do not contend.
+ */
+public class CoffeeMakerMetrics {
+
+    private final ConcurrentHashMap<String, LongAdder> brewed = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, LongAdder> rejected = new ConcurrentHashMap<>();
+
+    /**
+     * Orders for Recipes that do not exist. They are not counted per name, so unknown names cannot grow the maps.
+     */
+    private final LongAdder unknownRecipeOrders = new LongAdder();
+
+    /**
+     * The amount used of each ingredient, indexed by ingredient id.
+     * Replaced by a longer copy when an ingredient without a counter is used.
+     */
+    private volatile LongAdder[] consumed = new LongAdder[0];
+
+    private final LongAdder recipesAdded = new LongAdder();
+
+    private final LongAdder recipesUpdated = new LongAdder();
+
+    private final LongAdder recipesRemoved = new LongAdder();
+
+    private final LatencyHistogram brewLatency = new LatencyHistogram();
+
+    private final LatencyHistogram refillLatency = new LatencyHistogram();
+
+    private final LatencyHistogram catalogLatency = new LatencyHistogram();
+
+    /**
+     * When the metrics started to be collected
+     */
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * Default constructor
+     */
+    public CoffeeMakerMetrics() {
+        consumedCounters(IngredientRegistry.size());
+    }
+
+    /**
+     * Records an order
+     * @param recipe the ordered Recipe, or null if it does not exist
+     * @param result the outcome of the order
+     * @param nanos how long the order took, or a negative number to not record the latency
+     */
+    void recordBrew(Recipe recipe, BrewResult result, long nanos) {
+        if (nanos >= 0) brewLatency.record(nanos);
+        if (recipe == null) {
+            unknownRecipeOrders.increment();
+        } else if (result.isBrewed()) {
+            counter(brewed, recipe.getName()).increment();
+            IngredientAmounts requirements = recipe.getRequirements();
+            LongAdder[] counters = consumedCounters(requirements.maxId() + 1);
+            for (int i = 0; i < requirements.size(); i++) {
+                counters[requirements.getId(i)].add(requirements.getAmount(i));
+            }
+        } else {
+            counter(rejected, recipe.getName()).increment();
+        }
+    }
+
+    /**
+     * Gets the counters of consumed ingredients, creating the missing ones
+     * @param length how many counters are needed
+     * @return the counters, indexed by ingredient id, with at least the given length
+     */
+    private LongAdder[] consumedCounters(int length) {
+        LongAdder[] counters = consumed;
+        if (counters.length >= length) return counters;
+        synchronized (this) {
+            counters = consumed;
+            if (counters.length >= length) return counters;
+            LongAdder[] newCounters = Arrays.copyOf(counters, length);
+            for (int i = counters.length; i < length; i++) {
+                newCounters[i] = new LongAdder();
+            }
+            consumed = newCounters;
+            return newCounters;
+        }
+    }
+
+    /**
+     * Records a refill of ingredients
+     * @param nanos how long the refill took
+     */
+    void recordRefill(long nanos) {
+        refillLatency.record(nanos);
+    }
+
+    /**
+     * Records a successful change to the catalog
+     * @param counter which kind of change
+     * @param nanos how long the change took
+     */
+    private void recordCatalogChange(LongAdder counter, long nanos) {
+        counter.increment();
+        catalogLatency.record(nanos);
+    }
+
+    void recordRecipeAdded(long nanos) {
+        recordCatalogChange(recipesAdded, nanos);
+    }
+
+    void recordRecipeUpdated(long nanos) {
+        recordCatalogChange(recipesUpdated, nanos);
+    }
+
+    void recordRecipeRemoved(long nanos) {
+        recordCatalogChange(recipesRemoved, nanos);
+    }
+
+    /**
+     * Copies all the metrics at this moment
+     * @param inventory the inventory, to include the current amounts of ingredients
+     * @return an immutable copy of the metrics
+     */
+    public MetricsSnapshot snapshot(Inventory inventory) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        LongAdder[] counters = consumed;
+        long[] consumedCopy = new long[counters.length];
+        for (int i = 0; i < counters.length; i++) {
+            consumedCopy[i] = counters[i].sum();
+        }
+        return new MetricsSnapshot(
+                elapsedNanos,
+                sums(brewed),
+                sums(rejected),
+                unknownRecipeOrders.sum(),
+                consumedCopy,
+                inventory.snapshot(),
+                recipesAdded.sum(),
+                recipesUpdated.sum(),
+                recipesRemoved.sum(),
+                brewLatency.snapshot(),
+                refillLatency.snapshot(),
+                catalogLatency.snapshot()
+        );
+    }
+
+    private static LongAdder counter(ConcurrentHashMap<String, LongAdder> counters, String name) {
+        LongAdder counter = counters.get(name);
+        return counter != null ? counter : counters.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    private static Map<String, Long> sums(ConcurrentHashMap<String, LongAdder> counters) {
+        Map<String, Long> sums = new HashMap<>();
+        counters.forEach((name, counter) -> sums.put(name, counter.sum()));
+        return sums;
+    }
+}
@@ -0,0 +1,24 @@
+package com.redi.j2.coffeemaker;
+
+/**
+ * What to do with a new event when the buffer of a subscriber is full.
+ * The machine never waits for a subscriber, so every policy drops something.
+ */
+public enum EventOverflowPolicy {
+
+    /**
+     * The oldest event in the buffer is dropped to make room for the new one, so the subscriber sees the latest changes
+     */
+    DROP_OLDEST,
+
+    /**
+     * The new event is dropped, so the subscriber sees the events in the buffer first
+     */
+    DROP_NEWEST,
+
+    /**
+     * The subscription is cancelled and the buffered events are discarded. The subscriber receives an error,
+     * so it can subscribe again and start over from the current state
+     */
+    DISCONNECT
+}
@@ -0,0 +1,391 @@
+package com.redi.j2.coffeemaker;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the changes of a {@link CoffeeMaker} as a stream of {@link CoffeeMakerEvent}s.
+ * <p>
+ * Each subscriber has a bounded buffer of its own, and its events are delivered by an executor,
+ * never by the thread that made the change. Publishing an event only adds it to the buffers,
+ * so a slow subscriber never slows down the machine: when its buffer is full, its {@link EventOverflowPolicy}
+ * decides which event is lost. While there are no subscribers, nothing is published at all.
+ * <p>
+ * Every subscriber receives the events in the order of their sequence numbers.
+ * Recipes made and refills are published right after they change the inventory, so concurrent ones
+ * can be numbered in a different order than they were applied. They only add and remove amounts,
+ * so the sum of the events is the same in any order. Changes to the catalog are published
+ * while it is held, so they are numbered in the order they happened.
+ */
+public class EventPublisher implements Flow.Publisher<CoffeeMakerEvent> {
+
+    /**
+     * Defines how many events a subscriber can fall behind, if not given when subscribing
+     */
+    public static final int DEFAULT_BUFFER_CAPACITY = Flow.defaultBufferSize();
+
+    /**
+     * Defines what happens when a subscriber falls too far behind, if not given when subscribing
+     */
+    public static final EventOverflowPolicy DEFAULT_OVERFLOW_POLICY = EventOverflowPolicy.DROP_OLDEST;
+
+    /**
+     * Used to give each delivery thread a unique name
+     */
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    /**
+     * The executor of publishers created without one, also used to deliver {@link StockAlert}s.
+     * Its threads only live while there are events to deliver.
+     */
+    static final ExecutorService DEFAULT_EXECUTOR = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "coffee-maker-events-" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Runs the deliveries to the subscribers
+     */
+    private final Executor executor;
+
+    /**
+     * The current subscriptions. It is replaced, never modified, so it can be read without locking.
+     */
+    private volatile EventSubscription[] subscriptions = new EventSubscription[0];
+
+    /**
+     * How many events were lost by all subscribers, because their buffers were full
+     */
+    private final AtomicLong droppedEvents = new AtomicLong();
+
+    /**
+     * The sequence number of the last event. Guarded by this publisher.
+     */
+    private long sequence;
+
+    /**
+     * Whether the publisher was closed. Guarded by this publisher.
+     */
+    private boolean closed;
+
+    /**
+     * Default constructor, delivering the events with a shared pool of daemon threads
+     */
+    public EventPublisher() {
+        this(DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * Parameterized constructor
+     * @param executor runs the deliveries to the subscribers. It must not run them on the calling thread.
+     */
+    public EventPublisher(Executor executor) {
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    /**
+     * Adds a subscriber, with a buffer of {@link #DEFAULT_BUFFER_CAPACITY} events
+     * and the {@link #DEFAULT_OVERFLOW_POLICY}
+     * @param subscriber the subscriber
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super CoffeeMakerEvent> subscriber) {
+        subscribe(subscriber, DEFAULT_BUFFER_CAPACITY, DEFAULT_OVERFLOW_POLICY);
+    }
+
+    /**
+     * Adds a subscriber. It receives the events published after it subscribed,
+     * as it requests them through its subscription.
+     * @param subscriber the subscriber
+     * @param bufferCapacity how many events the subscriber can fall behind
+     * @param policy what happens to new events when the subscriber is that far behind
+     */
+    public void subscribe(Flow.Subscriber<? super CoffeeMakerEvent> subscriber, int bufferCapacity,
+                          EventOverflowPolicy policy) {
+        Objects.requireNonNull(subscriber);
+        Objects.requireNonNull(policy);
+        if (bufferCapacity < 1) {
+            throw new IllegalArgumentException("Buffer capacity must be positive");
+        }
+        EventSubscription subscription = new EventSubscription(subscriber, bufferCapacity, policy);
+        subscriber.onSubscribe(subscription);
+        synchronized (this) {
+            if (subscription.cancelled) return;
+            if (closed) {
+                subscription.complete();
+                return;
+            }
+            EventSubscription[] newSubscriptions = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+            newSubscriptions[subscriptions.length] = subscription;
+            subscriptions = newSubscriptions;
+        }
+    }
+
+    /**
+     * Getter for the amount of subscribers
+     * @return how many subscribers receive the events
+     */
+    public int getSubscriberCount() {
+        return subscriptions.length;
+    }
+
+    /**
+     * Getter for the amount of lost events
+     * @return how many events were dropped by all subscribers so far, because their buffers were full
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * Stops publishing. Every subscriber receives the events already in its buffer, and then completes.
+     */
+    public synchronized void close() {
+        closed = true;
+        for (EventSubscription subscription : subscriptions) {
+            subscription.complete();
+        }
+        subscriptions = new EventSubscription[0];
+    }
+
+    /**
+     * Publishes an event to every subscriber, without waiting for any of them.
+     * When there are no subscribers, the event is not even created.
+     * @param type the kind of change
+     * @param recipe the Recipe, or null for refills
+     * @param amounts the ingredients added or removed, or empty for changes to the catalog
+     */
+    void publish(CoffeeMakerEvent.Type type, Recipe recipe, IngredientAmounts amounts) {
+        if (subscriptions.length == 0) return;
+        synchronized (this) {
+            CoffeeMakerEvent event = new CoffeeMakerEvent(type, ++sequence, recipe, amounts);
+            for (EventSubscription subscription : subscriptions) {
+                subscription.offer(event);
+            }
+        }
+    }
+
+    /**
+     * Creates a listener that publishes the changes of a catalog
+     * @return the listener, to be added to the catalog
+     */
+    CatalogListener catalogListener() {
+        return new CatalogListener() {
+            @Override
+            public void recipeAdded(Recipe recipe) {
+                publish(CoffeeMakerEvent.Type.RECIPE_ADDED, recipe, IngredientAmounts.EMPTY);
+            }
+
+            @Override
+            public void recipeUpdated(Recipe recipe) {
+                publish(CoffeeMakerEvent.Type.RECIPE_UPDATED, recipe, IngredientAmounts.EMPTY);
+            }
+
+            @Override
+            public void recipeRemoved(Recipe recipe) {
+                publish(CoffeeMakerEvent.Type.RECIPE_REMOVED, recipe, IngredientAmounts.EMPTY);
+            }
+        };
+    }
+
+    /**
+     * Stops publishing to a subscription
+     */
+    private synchronized void remove(EventSubscription subscription) {
+        EventSubscription[] current = subscriptions;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] != subscription) continue;
+            EventSubscription[] newSubscriptions = new EventSubscription[current.length - 1];
+            System.arraycopy(current, 0, newSubscriptions, 0, i);
+            System.arraycopy(current, i + 1, newSubscriptions, i, current.length - i - 1);
+            subscriptions = newSubscriptions;
+            return;
+        }
+    }
+
+    /**
+     * The buffer and the demand of one subscriber.
+     * Events are added by the publisher, one at a time, and delivered by at most one executor task at a time.
+     */
+    private final class EventSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super CoffeeMakerEvent> subscriber;
+
+        private final int capacity;
+
+        private final EventOverflowPolicy policy;
+
+        /**
+         * The events not delivered yet
+         */
+        private final Queue<CoffeeMakerEvent> buffer = new ConcurrentLinkedQueue<>();
+
+        /**
+         * The amount of events in the buffer, since counting the queue is not constant time
+         */
+        private final AtomicInteger buffered = new AtomicInteger();
+
+        /**
+         * How many more events the subscriber asked for, or Long.MAX_VALUE if it asked for all of them
+         */
+        private final AtomicLong demand = new AtomicLong();
+
+        /**
+         * How many times a delivery was asked for since the running one started, 0 if none is running
+         */
+        private final AtomicInteger pendingDeliveries = new AtomicInteger();
+
+        /**
+         * The error to deliver instead of the events, if any. Cleared once delivered.
+         */
+        private volatile Throwable error;
+
+        /**
+         * Whether the publisher completed, so the subscriber completes when its buffer is empty
+         */
+        private volatile boolean completed;
+
+        /**
+         * Whether the subscriber must not receive anything else
+         */
+        private volatile boolean cancelled;
+
+        EventSubscription(Flow.Subscriber<? super CoffeeMakerEvent> subscriber, int capacity, EventOverflowPolicy policy) {
+            this.subscriber = subscriber;
+            this.capacity = capacity;
+            this.policy = policy;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("The amount of requested events must be positive"));
+                return;
+            }
+            demand.getAndUpdate(current -> (current + n < 0) ? Long.MAX_VALUE : current + n);
+            deliver();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            remove(this);
+            buffer.clear();
+        }
+
+        /**
+         * Adds an event to the buffer. Called by the publisher while holding it, so there is one event at a time.
+         */
+        void offer(CoffeeMakerEvent event) {
+            if (buffered.get() >= capacity) {
+                droppedEvents.incrementAndGet();
+                switch (policy) {
+                    case DROP_NEWEST:
+                        return;
+                    case DROP_OLDEST:
+                        if (buffer.poll() != null) buffered.decrementAndGet();
+                        break;
+                    default:
+                        fail(new IllegalStateException("The subscriber fell more than " + capacity + " events behind"));
+                        return;
+                }
+            }
+            buffer.offer(event);
+            buffered.incrementAndGet();
+            deliver();
+        }
+
+        /**
+         * Completes the subscriber once it received the events in its buffer
+         */
+        void complete() {
+            completed = true;
+            deliver();
+        }
+
+        /**
+         * Cancels the subscription right away, so it is never registered or kept by the publisher,
+         * and sends an error to the subscriber instead of the buffered events
+         */
+        private void fail(Throwable failure) {
+            if (cancelled) return;
+            error = failure;
+            cancelled = true;
+            remove(this);
+            buffer.clear();
+            deliver();
+        }
+
+        /**
+         * Makes sure a delivery runs after this call, starting one unless one is running already.
+         * If the executor rejects the delivery, the subscription fails instead, so the change that
+         * published the event is not affected, and no delivery is left pending forever.
+         */
+        private void deliver() {
+            if (pendingDeliveries.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this::runDeliveries);
+                } catch (RejectedExecutionException e) {
+                    pendingDeliveries.set(0);
+                    fail(e);
+                }
+            }
+        }
+
+        /**
+         * Delivers until no more deliveries were asked for
+         */
+        private void runDeliveries() {
+            int pending = 1;
+            do {
+                Throwable failure = error;
+                if (failure != null) {
+                    error = null;
+                    subscriber.onError(failure);
+                } else if (!cancelled) {
+                    deliverBuffered();
+                }
+                pending = pendingDeliveries.addAndGet(-pending);
+            } while (pending != 0);
+        }
+
+        /**
+         * Delivers as many buffered events as requested, and then the completion, if any
+         */
+        private void deliverBuffered() {
+            long requested = demand.get();
+            long delivered = 0;
+            while (delivered < requested && !cancelled) {
+                CoffeeMakerEvent event = buffer.poll();
+                if (event == null) break;
+                buffered.decrementAndGet();
+                delivered++;
+                try {
+                    subscriber.onNext(event);
+                } catch (RuntimeException e) {
+                    // a subscriber that throws is broken, so it does not receive anything else
+                    cancel();
+                    throw e;
+                }
+            }
+            if (delivered > 0 && requested != Long.MAX_VALUE) {
+                demand.addAndGet(-delivered);
+            }
+            // the publisher adds no events after completing, so an empty buffer stays empty
+            if (completed && !cancelled && buffer.isEmpty()) {
+                cancelled = true;
+                subscriber.onComplete();
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.redi.j2.coffeemaker;
+
+import java.util.Locale;
+
+/**
+ * Fleet-wide numbers of a {@link CoffeeMakerFleet}, taken at a certain moment
+ */
+public class FleetStats {
+
+    /**
+     * How many orders were made
+     */
+    private final long brewed;
+
+    /**
+     * How many orders were rejected
+     */
+    private final long rejected;
+
+    /**
+     * How many times the machine chosen for an order could not make it, and the order failed over
+     */
+    private final long failovers;
+
+    /**
+     * The time since the fleet was created, in nanoseconds
+     */
+    private final long elapsedNanos;
+
+    /**
+     * Parameterized constructor
+     * @param brewed how many orders were made
+     * @param rejected how many orders were rejected
+     * @param failovers how many times the machine chosen for an order could not make it
+     * @param elapsedNanos the time since the fleet was created, in nanoseconds
+     */
+    public FleetStats(long brewed, long rejected, long failovers, long elapsedNanos) {
+        this.brewed = brewed;
+        this.rejected = rejected;
+        this.failovers = failovers;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Getter for the amount of orders made
+     * @return how many orders were made
+     */
+    public long getBrewed() {
+        return brewed;
+    }
+
+    /**
+     * Getter for the amount of orders rejected
+     * @return how many orders were rejected
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Getter for the amount of failovers
+     * @return how many times the machine chosen for an order could not make it
+     */
+    public long getFailovers() {
+        return failovers;
+    }
+
+    /**
+     * Getter for the elapsed time
+     * @return the time since the fleet was created, in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Calculates the throughput of the fleet
+     * @return the amount of orders made per second, since the fleet was created
+     */
+    public double getBrewsPerSecond() {
+        return elapsedNanos == 0 ? 0 : brewed * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    /**
+     * Creates a string representation of the numbers
+     * @return a string representation
+     */
+    @Override
+    public String toString() {
+        return "FleetStats{" + "brewed=" + brewed +
+                ", rejected=" + rejected +
+                ", failovers=" + failovers +
+                ", brewsPerSecond=" + String.format(Locale.ENGLISH, "%.1f", getBrewsPerSecond()) +
+                '}';
+    }
+}
@@ -1,11 +1,21 @@
 package com.redi.j2.coffeemaker;
 
 /**
- * List of all the available ingredients
+ * List of the basic ingredients, available in every machine.
+ * More ingredients can be added with the {@link IngredientRegistry}:
+ * the basic ones always have the ids 0 to 3, in the order below.
  */
 public enum Ingredient {
     COFFEE,
     MILK,
     CHOCOLATE,
-    SUGAR
+    SUGAR;
+
+    /**
+     * Getter for the id of the ingredient in the {@link IngredientRegistry}
+     * @return the id, which is the same as {@link #ordinal()}
+     */
+    public int getId() {
+        return ordinal();
+    }
 }
@@ -0,0 +1,269 @@
+package com.redi.j2.coffeemaker;
+
+import java.util.Arrays;
+
+/**
+ * Amounts of some ingredients, like what a Recipe requires or what a refill adds.
+ * <p>
+ * Only the ingredients with an amount are stored, sorted by id, so going through the amounts
+ * takes as long as the ingredients used, no matter how many ingredients are registered.
+ * Objects of this class are immutable.
+ */
+public final class IngredientAmounts {
+
+    /**
+     * No ingredients at all
+     */
+    public static final IngredientAmounts EMPTY = new IngredientAmounts(new int[0], new int[0]);
+
+    private final int[] ids;
+
+    private final int[] amounts;
+
+    private IngredientAmounts(int[] ids, int[] amounts) {
+        this.ids = ids;
+        this.amounts = amounts;
+    }
+
+    /**
+     * Creates the amounts from an array with one position per ingredient
+     * @param amountsById the amounts, indexed by ingredient id
+     * @return the amounts that are not zero
+     */
+    public static IngredientAmounts ofDense(int[] amountsById) {
+        Builder builder = new Builder();
+        for (int id = 0; id < amountsById.length; id++) {
+            builder.add(id, amountsById[id]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates the amounts of the four basic ingredients
+     * @param coffee the amount of Coffee
+     * @param milk the amount of Milk
+     * @param chocolate the amount of Chocolate
+     * @param sugar the amount of Sugar
+     * @return the amounts that are not zero
+     */
+    public static IngredientAmounts of(int coffee, int milk, int chocolate, int sugar) {
+        return new Builder()
+                .add(Ingredient.COFFEE.getId(), coffee)
+                .add(Ingredient.MILK.getId(), milk)
+                .add(Ingredient.CHOCOLATE.getId(), chocolate)
+                .add(Ingredient.SUGAR.getId(), sugar)
+                .build();
+    }
+
+    /**
+     * Creates a builder, to add the amounts one by one
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Getter for the amount of ingredients with an amount
+     * @return how many ingredients are stored
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Getter for the id of a stored ingredient
+     * @param index the position, from 0 to {@link #size()} - 1
+     * @return the id of the ingredient in that position
+     */
+    public int getId(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Getter for the amount of a stored ingredient
+     * @param index the position, from 0 to {@link #size()} - 1
+     * @return the amount of the ingredient in that position
+     */
+    public int getAmount(int index) {
+        return amounts[index];
+    }
+
+    /**
+     * Finds the amount of an ingredient
+     * @param id the id of the ingredient
+     * @return the amount, or 0 if the ingredient is not stored
+     */
+    public int get(int id) {
+        int index = Arrays.binarySearch(ids, id);
+        return (index < 0) ? 0 : amounts[index];
+    }
+
+    /**
+     * Getter for the highest id stored
+     * @return the highest id, or -1 if there are no ingredients
+     */
+    public int maxId() {
+        return (ids.length == 0) ? -1 : ids[ids.length - 1];
+    }
+
+    /**
+     * Creates an array with one position per ingredient
+     * @param length the length of the array, at least {@link #maxId()} + 1
+     * @return the amounts, indexed by ingredient id
+     */
+    public int[] toDense(int length) {
+        int[] dense = new int[length];
+        for (int i = 0; i < ids.length; i++) {
+            dense[ids[i]] = amounts[i];
+        }
+        return dense;
+    }
+
+    /**
+     * The ids, without copying them. Used in the brew path; callers must never change the array.
+     */
+    int[] ids() {
+        return ids;
+    }
+
+    /**
+     * The amounts, without copying them. Used in the brew path; callers must never change the array.
+     */
+    int[] amounts() {
+        return amounts;
+    }
+
+    /**
+     * Compares these amounts with other ones
+     * @param o Another object (potentially an IngredientAmounts)
+     * @return If the object has the same ingredients with the same amounts
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IngredientAmounts other = (IngredientAmounts) o;
+        return Arrays.equals(ids, other.ids) && Arrays.equals(amounts, other.amounts);
+    }
+
+    /**
+     * Returns the hash code, based on the ingredients and amounts like {@link #equals(Object)}
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(ids) + Arrays.hashCode(amounts);
+    }
+
+    /**
+     * Creates a string representation of the amounts, with the names of the ingredients
+     * @return a string representation
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < ids.length; i++) {
+            if (i > 0) builder.append(", ");
+            builder.append(IngredientRegistry.getName(ids[i])).append('=').append(amounts[i]);
+        }
+        return builder.append('}').toString();
+    }
+
+    /**
+     * Collects amounts one by one. Adding the same ingredient twice adds up the amounts.
+     */
+    public static final class Builder {
+
+        private int[] ids = new int[4];
+
+        private int[] amounts = new int[4];
+
+        private int size;
+
+        private Builder() {
+        }
+
+        /**
+         * Adds an amount of an ingredient
+         * @param id the id of the ingredient
+         * @param amount the amount
+         * @return this builder
+         */
+        public Builder add(int id, int amount) {
+            if (id < 0) throw new IllegalArgumentException("Unknown ingredient id: " + id);
+            if (amount == 0) return this;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                amounts = Arrays.copyOf(amounts, size * 2);
+            }
+            ids[size] = id;
+            amounts[size] = amount;
+            size++;
+            return this;
+        }
+
+        /**
+         * Adds an amount of a basic ingredient
+         * @param ingredient the ingredient
+         * @param amount the amount
+         * @return this builder
+         */
+        public Builder add(Ingredient ingredient, int amount) {
+            return add(ingredient.getId(), amount);
+        }
+
+        /**
+         * Adds an amount of any ingredient, registering it if needed
+         * @param name the name of the ingredient
+         * @param amount the amount
+         * @return this builder
+         */
+        public Builder add(String name, int amount) {
+            return add(IngredientRegistry.register(name), amount);
+        }
+
+        /**
+         * Creates the amounts, sorted by ingredient id
+         * @return the amounts that are not zero
+         * @throws IllegalArgumentException if the amounts added for the same ingredient do not fit in an int
+         */
+        public IngredientAmounts build() {
+            if (size == 0) return EMPTY;
+            long[] pairs = new long[size];
+            for (int i = 0; i < size; i++) {
+                pairs[i] = ((long) ids[i] << 32) | (amounts[i] & 0xFFFFFFFFL);
+            }
+            Arrays.sort(pairs);
+            int[] sortedIds = new int[size];
+            int[] sortedAmounts = new int[size];
+            int count = 0;
+            for (long pair : pairs) {
+                int id = (int) (pair >>> 32);
+                int amount = (int) pair;
+                if (count > 0 && sortedIds[count - 1] == id) {
+                    try {
+                        sortedAmounts[count - 1] = Math.addExact(sortedAmounts[count - 1], amount);
+                    } catch (ArithmeticException e) {
+                        throw new IllegalArgumentException("The amounts of ingredient " + id + " add up to more than "
+                                + Integer.MAX_VALUE);
+                    }
+                } else {
+                    sortedIds[count] = id;
+                    sortedAmounts[count] = amount;
+                    count++;
+                }
+            }
+            // merged amounts may have added up to zero
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                if (sortedAmounts[i] == 0) continue;
+                sortedIds[kept] = sortedIds[i];
+                sortedAmounts[kept] = sortedAmounts[i];
+                kept++;
+            }
+            if (kept == 0) return EMPTY;
+            return new IngredientAmounts(Arrays.copyOf(sortedIds, kept), Arrays.copyOf(sortedAmounts, kept));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.redi.j2.coffeemaker;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * All the ingredients known by the application, each with a dense int id.
+ * <p>
+ * The ids start at 0 and have no gaps, so they can be used as indexes of arrays.
+ * The basic {@link Ingredient}s are registered first, so their ids are their ordinals.
+ * Names are compared ignoring case. Ingredients are never removed, so an id never changes
+ * while the application runs; the journal and the catalog files store names, not ids.
+ */
+public final class IngredientRegistry {
+
+    /**
+     * The ids by name, in lower case
+     */
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+
+    /**
+     * The names by id. Replaced, never modified, so it can be read without locking.
+     */
+    private static volatile String[] names = new String[0];
+
+    static {
+        for (Ingredient ingredient : Ingredient.values()) {
+            register(ingredient.name());
+        }
+    }
+
+    private IngredientRegistry() {
+    }
+
+    /**
+     * Registers an ingredient, if it is not registered yet
+     * @param name the name of the ingredient
+     * @return the id of the ingredient
+     * @throws IllegalArgumentException if the name is empty
+     */
+    public static int register(String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("The name of an ingredient must not be empty");
+        }
+        Integer id = IDS.get(key(name));
+        if (id != null) return id;
+        synchronized (IngredientRegistry.class) {
+            id = IDS.get(key(name));
+            if (id != null) return id;
+            String[] newNames = Arrays.copyOf(names, names.length + 1);
+            newNames[names.length] = name.trim();
+            names = newNames;
+            IDS.put(key(name), names.length - 1);
+            return names.length - 1;
+        }
+    }
+
+    /**
+     * Finds the id of an ingredient
+     * @param name the name of the ingredient
+     * @return the id, or -1 if the ingredient is not registered
+     */
+    public static int getId(String name) {
+        Integer id = (name == null) ? null : IDS.get(key(name));
+        return (id == null) ? -1 : id;
+    }
+
+    /**
+     * Finds the name of an ingredient
+     * @param id the id of the ingredient
+     * @return the name, as it was registered
+     * @throws IllegalArgumentException if there is no ingredient with that id
+     */
+    public static String getName(int id) {
+        String[] current = names;
+        if (id < 0 || id >= current.length) {
+            throw new IllegalArgumentException("Unknown ingredient id: " + id);
+        }
+        return current[id];
+    }
+
+    /**
+     * Getter for the amount of ingredients
+     * @return how many ingredients are registered, which is also the next id
+     */
+    public static int size() {
+        return names.length;
+    }
+
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
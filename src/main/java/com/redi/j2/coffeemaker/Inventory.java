@@ -1,17 +1,34 @@
 package com.redi.j2.coffeemaker;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 /**
- * Maintains the amounts of ingredients used by the Recipes
+ * Maintains the amounts of ingredients used by the Recipes.
+ * All the operations are thread-safe: the stock is guarded by the Inventory itself,
+ * so checking and deducting the ingredients of a Recipe happens as one single step.
+ * <p>
+ * The stock has one position per ingredient id of the {@link IngredientRegistry}, and grows
+ * when an ingredient it does not have yet is added. An ingredient that was never added has 0 units.
+ * <p>
+ * Ingredients can also be reserved: they leave the stock, so no other order can use them,
+ * but they still belong to the machine until the reservation is consumed or released.
  */
 public class Inventory {
 
     /**
-     * A list of ingredients and corresponding amounts in stock
+     * The amounts of ingredients in stock, indexed by ingredient id
      */
-    private final Map<Ingredient, Integer> stock;
+    private int[] stock;
+
+    /**
+     * The amounts of ingredients reserved, indexed by ingredient id. They are not in the stock.
+     */
+    private int[] reserved = new int[0];
+
+    /**
+     * Who is notified of the changes. Replaced, never modified, so it can be read without copying.
+     */
+    private InventoryListener[] listeners = new InventoryListener[0];
 
     /**
      * The parameterized constructor
@@ -21,43 +38,157 @@ public class Inventory {
      * @param sugar the initial amount of Sugar
      */
     public Inventory(int coffee, int milk, int chocolate, int sugar) {
-        stock = new HashMap<>();
-        stock.put(Ingredient.COFFEE, coffee);
-        stock.put(Ingredient.MILK, milk);
-        stock.put(Ingredient.SUGAR, sugar);
-        stock.put(Ingredient.CHOCOLATE, chocolate);
+        stock = new int[Ingredient.values().length];
+        stock[Ingredient.COFFEE.getId()] = coffee;
+        stock[Ingredient.MILK.getId()] = milk;
+        stock[Ingredient.CHOCOLATE.getId()] = chocolate;
+        stock[Ingredient.SUGAR.getId()] = sugar;
     }
 
     /**
      * Getter for Coffee
      * @return the current amount in stock
      */
-    public int getCoffee() {
-        return stock.get(Ingredient.COFFEE);
+    public synchronized int getCoffee() {
+        return stock[Ingredient.COFFEE.getId()];
     }
 
     /**
      * Getter for Milk
      * @return the current amount in stock
      */
-    public int getMilk() {
-        return stock.get(Ingredient.MILK);
+    public synchronized int getMilk() {
+        return stock[Ingredient.MILK.getId()];
     }
 
     /**
      * Getter for Chocolate
      * @return the current amount in stock
      */
-    public int getChocolate() {
-        return stock.get(Ingredient.CHOCOLATE);
+    public synchronized int getChocolate() {
+        return stock[Ingredient.CHOCOLATE.getId()];
     }
 
     /**
      * Getter for Sugar
      * @return the current amount in stock
      */
-    public int getSugar() {
-        return stock.get(Ingredient.SUGAR);
+    public synchronized int getSugar() {
+        return stock[Ingredient.SUGAR.getId()];
+    }
+
+    /**
+     * Getter for the amount of any ingredient
+     * @param ingredient the ingredient
+     * @return the current amount in stock
+     */
+    public synchronized int getAmount(Ingredient ingredient) {
+        return stock[ingredient.getId()];
+    }
+
+    /**
+     * Getter for the amount of any ingredient in the {@link IngredientRegistry}
+     * @param ingredientId the id of the ingredient
+     * @return the current amount in stock
+     */
+    public synchronized int getAmount(int ingredientId) {
+        return amount(ingredientId);
+    }
+
+    /**
+     * Copies the current amounts into the given array, indexed by ingredient id.
+     * All the amounts are read at the same moment. Positions of ingredients that
+     * were never added are set to 0, and ingredients that do not fit are left out.
+     * @param into the array to fill
+     * @return the same array, for convenience
+     */
+    public synchronized int[] snapshot(int[] into) {
+        int length = Math.min(into.length, stock.length);
+        System.arraycopy(stock, 0, into, 0, length);
+        Arrays.fill(into, length, into.length, 0);
+        return into;
+    }
+
+    /**
+     * Copies the current amounts of all the ingredients in stock.
+     * All the amounts are read at the same moment.
+     * @return a new array with the amounts, indexed by ingredient id
+     */
+    public synchronized int[] snapshot() {
+        return stock.clone();
+    }
+
+    /**
+     * Copies the current amounts of all the ingredients that belong to the machine: the ones in stock
+     * and the ones reserved. This is what the machine has if every reservation is released.
+     * @return a new array with the amounts, indexed by ingredient id
+     */
+    public synchronized int[] snapshotWithReserved() {
+        int[] amounts = stock.clone();
+        for (int i = 0; i < reserved.length; i++) {
+            amounts[i] += reserved[i];
+        }
+        return amounts;
+    }
+
+    /**
+     * Getter for the reserved amount of an ingredient
+     * @param ingredientId the id of the ingredient
+     * @return the amount reserved, and not in stock
+     */
+    public synchronized int getReserved(int ingredientId) {
+        return ingredientId < reserved.length ? reserved[ingredientId] : 0;
+    }
+
+    /**
+     * Moves some amounts from the stock to the reserved ingredients,
+     * if and only if the stock has enough of all of them
+     * @param amounts the amounts to reserve
+     * @return true if the amounts were reserved, false otherwise
+     */
+    public synchronized boolean reserve(IngredientAmounts amounts) {
+        if (!removeAmounts(amounts)) return false;
+        if (reserved.length < stock.length) reserved = Arrays.copyOf(reserved, stock.length);
+        int[] ids = amounts.ids();
+        int[] values = amounts.amounts();
+        for (int i = 0; i < ids.length; i++) {
+            reserved[ids[i]] += values[i];
+        }
+        return true;
+    }
+
+    /**
+     * Moves reserved amounts back to the stock
+     * @param amounts the amounts, reserved before with {@link #reserve(IngredientAmounts)}
+     */
+    public synchronized void release(IngredientAmounts amounts) {
+        unreserve(amounts);
+        addAmounts(amounts);
+    }
+
+    /**
+     * Uses reserved amounts, so they do not belong to the machine anymore.
+     * The stock does not change, because reserved amounts were already taken out of it.
+     * @param amounts the amounts, reserved before with {@link #reserve(IngredientAmounts)}
+     */
+    public synchronized void consumeReserved(IngredientAmounts amounts) {
+        unreserve(amounts);
+    }
+
+    /**
+     * Takes amounts out of the reserved ones, checking that all of them were reserved
+     */
+    private void unreserve(IngredientAmounts amounts) {
+        int[] ids = amounts.ids();
+        int[] values = amounts.amounts();
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] >= reserved.length || reserved[ids[i]] < values[i]) {
+                throw new IllegalStateException("Not reserved: " + amounts);
+            }
+        }
+        for (int i = 0; i < ids.length; i++) {
+            reserved[ids[i]] -= values[i];
+        }
     }
 
     /**
@@ -65,9 +196,69 @@ public class Inventory {
      * @param ingredient the ingredient to add
      * @param amount the amount to add
      */
-    public void addIngredient(Ingredient ingredient, int amount) {
-        int currentAmount = stock.get(ingredient);
-        stock.put(ingredient, currentAmount + amount);
+    public synchronized void addIngredient(Ingredient ingredient, int amount) {
+        addIngredient(ingredient.getId(), amount);
+    }
+
+    /**
+     * Adds an amount of any ingredient in the {@link IngredientRegistry} to the stock
+     * @param ingredientId the id of the ingredient to add
+     * @param amount the amount to add
+     * @throws IllegalArgumentException if the stock would not fit in an int
+     */
+    public synchronized void addIngredient(int ingredientId, int amount) {
+        ensureSize(ingredientId + 1);
+        stock[ingredientId] = added(ingredientId, amount);
+        changed(ingredientId, amount);
+    }
+
+    /**
+     * Adds the given amounts of all the ingredients at once
+     * @param amounts the amounts to add, indexed by ingredient id
+     * @throws IllegalArgumentException if the stock of an ingredient would not fit in an int.
+     *                                  Nothing is added then.
+     */
+    public synchronized void addAmounts(int[] amounts) {
+        ensureSize(amounts.length);
+        for (int i = 0; i < amounts.length; i++) {
+            added(i, amounts[i]);
+        }
+        for (int i = 0; i < amounts.length; i++) {
+            stock[i] += amounts[i];
+            changed(i, amounts[i]);
+        }
+    }
+
+    /**
+     * Adds the given amounts of some ingredients at once
+     * @param amounts the amounts to add
+     * @throws IllegalArgumentException if the stock of an ingredient would not fit in an int.
+     *                                  Nothing is added then.
+     */
+    public synchronized void addAmounts(IngredientAmounts amounts) {
+        ensureSize(amounts.maxId() + 1);
+        int[] ids = amounts.ids();
+        int[] values = amounts.amounts();
+        for (int i = 0; i < ids.length; i++) {
+            added(ids[i], values[i]);
+        }
+        for (int i = 0; i < ids.length; i++) {
+            stock[ids[i]] += values[i];
+            changed(ids[i], values[i]);
+        }
+    }
+
+    /**
+     * Calculates the stock of an ingredient after adding an amount, without changing it
+     * @throws IllegalArgumentException if the stock would not fit in an int
+     */
+    private int added(int ingredientId, int amount) {
+        try {
+            return Math.addExact(stock[ingredientId], amount);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("The stock of " + IngredientRegistry.getName(ingredientId)
+                    + " cannot hold " + stock[ingredientId] + " + " + amount);
+        }
     }
 
     /**
@@ -77,21 +268,230 @@ public class Inventory {
      * @param amount the amount to remove
      * @return true if the amount was removed, false otherwise
      */
-    public boolean removeAmount(Ingredient ingredient, int amount) {
-        int currentAmount = stock.get(ingredient);
-        if (currentAmount < amount) {
+    public synchronized boolean removeAmount(Ingredient ingredient, int amount) {
+        return removeAmount(ingredient.getId(), amount);
+    }
+
+    /**
+     * Removes an amount of any ingredient in the {@link IngredientRegistry} from the stock,
+     * if and only if the stock has enough amount
+     * @param ingredientId the id of the ingredient to be removed
+     * @param amount the amount to remove
+     * @return true if the amount was removed, false otherwise
+     */
+    public synchronized boolean removeAmount(int ingredientId, int amount) {
+        if (amount(ingredientId) < amount) {
+            return false;
+        }
+        ensureSize(ingredientId + 1);
+        stock[ingredientId] -= amount;
+        changed(ingredientId, -amount);
+        return true;
+    }
+
+    /**
+     * Checks if the stock has at least the given amounts of all the ingredients
+     * @param coffee the required amount of Coffee
+     * @param milk the required amount of Milk
+     * @param chocolate the required amount of Chocolate
+     * @param sugar the required amount of Sugar
+     * @return true if there is enough of every ingredient, false otherwise
+     */
+    public synchronized boolean hasAmounts(int coffee, int milk, int chocolate, int sugar) {
+        return stock[Ingredient.COFFEE.getId()] >= coffee &&
+                stock[Ingredient.MILK.getId()] >= milk &&
+                stock[Ingredient.CHOCOLATE.getId()] >= chocolate &&
+                stock[Ingredient.SUGAR.getId()] >= sugar;
+    }
+
+    /**
+     * Checks if the stock has at least the given amounts of all the ingredients
+     * @param amounts the required amounts, indexed by ingredient id
+     * @return true if there is enough of every ingredient, false otherwise
+     */
+    public synchronized boolean hasAmounts(int[] amounts) {
+        for (int i = 0; i < amounts.length; i++) {
+            if (amount(i) < amounts[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the stock has at least the given amounts of some ingredients.
+     * It only looks at the ingredients in the amounts, no matter how many ingredients there are.
+     * @param amounts the required amounts
+     * @return true if there is enough of every ingredient, false otherwise
+     */
+    public synchronized boolean hasAmounts(IngredientAmounts amounts) {
+        int[] ids = amounts.ids();
+        int[] values = amounts.amounts();
+        for (int i = 0; i < ids.length; i++) {
+            if (amount(ids[i]) < values[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Removes the given amounts of all the ingredients at once,
+     * if and only if the stock has enough of every one of them.
+     * Either all the amounts are removed, or none of them.
+     * @param coffee the amount of Coffee to remove
+     * @param milk the amount of Milk to remove
+     * @param chocolate the amount of Chocolate to remove
+     * @param sugar the amount of Sugar to remove
+     * @return true if the amounts were removed, false otherwise
+     */
+    public synchronized boolean removeAmounts(int coffee, int milk, int chocolate, int sugar) {
+        if (!hasAmounts(coffee, milk, chocolate, sugar)) {
             return false;
         }
-        stock.put(ingredient, currentAmount - amount);
+        stock[Ingredient.COFFEE.getId()] -= coffee;
+        changed(Ingredient.COFFEE.getId(), -coffee);
+        stock[Ingredient.MILK.getId()] -= milk;
+        changed(Ingredient.MILK.getId(), -milk);
+        stock[Ingredient.CHOCOLATE.getId()] -= chocolate;
+        changed(Ingredient.CHOCOLATE.getId(), -chocolate);
+        stock[Ingredient.SUGAR.getId()] -= sugar;
+        changed(Ingredient.SUGAR.getId(), -sugar);
+        return true;
+    }
+
+    /**
+     * Removes the given amounts of all the ingredients at once,
+     * if and only if the stock has enough of every one of them.
+     * Either all the amounts are removed, or none of them.
+     * @param amounts the amounts to remove, indexed by ingredient id
+     * @return true if the amounts were removed, false otherwise
+     */
+    public synchronized boolean removeAmounts(int[] amounts) {
+        if (!hasAmounts(amounts)) {
+            return false;
+        }
+        ensureSize(amounts.length);
+        for (int i = 0; i < amounts.length; i++) {
+            stock[i] -= amounts[i];
+            changed(i, -amounts[i]);
+        }
         return true;
     }
 
     /**
-     * Generates a String representation of the class
+     * Removes the given amounts of some ingredients at once,
+     * if and only if the stock has enough of every one of them.
+     * Either all the amounts are removed, or none of them.
+     * It only looks at the ingredients in the amounts, no matter how many ingredients there are.
+     * @param amounts the amounts to remove
+     * @return true if the amounts were removed, false otherwise
+     */
+    public synchronized boolean removeAmounts(IngredientAmounts amounts) {
+        if (!hasAmounts(amounts)) {
+            return false;
+        }
+        ensureSize(amounts.maxId() + 1);
+        int[] ids = amounts.ids();
+        int[] values = amounts.amounts();
+        for (int i = 0; i < ids.length; i++) {
+            stock[ids[i]] -= values[i];
+            changed(ids[i], -values[i]);
+        }
+        return true;
+    }
+
+    /**
+     * Removes the amounts of a sequence of orders, as if {@link #removeAmounts(IngredientAmounts)}
+     * was called for each one of them in order, but holding the inventory only once.
+     * When there is enough stock for all the orders together, the total is deducted in a single pass.
+     * @param amounts the amounts of each order. A null entry is an order that should be skipped.
+     * @param removed filled with true for each order whose amounts were removed, false otherwise
+     * @return how many orders had their amounts removed
+     */
+    public synchronized int removeAmountsInOrder(IngredientAmounts[] amounts, boolean[] removed) {
+        IngredientAmounts.Builder total = IngredientAmounts.builder();
+        int orders = 0;
+        for (IngredientAmounts order : amounts) {
+            if (order == null) continue;
+            orders++;
+            for (int i = 0; i < order.size(); i++) {
+                total.add(order.getId(i), order.getAmount(i));
+            }
+        }
+
+        IngredientAmounts all;
+        try {
+            all = total.build();
+        } catch (IllegalArgumentException e) {
+            // the orders together need more than an int of some ingredient, which is never in stock
+            all = null;
+        }
+        if (all != null && removeAmounts(all)) {
+            for (int o = 0; o < amounts.length; o++) {
+                removed[o] = amounts[o] != null;
+            }
+            return orders;
+        }
+
+        int count = 0;
+        for (int o = 0; o < amounts.length; o++) {
+            removed[o] = amounts[o] != null && removeAmounts(amounts[o]);
+            if (removed[o]) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Adds a listener, to be notified of every change of the amounts.
+     * The listener first receives the current amounts, and then every change after them.
+     * Changes can be about ingredients that were not in the first amounts.
+     * @param listener the listener
+     */
+    public synchronized void addListener(InventoryListener listener) {
+        InventoryListener[] newListeners = Arrays.copyOf(listeners, listeners.length + 1);
+        newListeners[listeners.length] = listener;
+        listeners = newListeners;
+        listener.attached(stock.clone());
+    }
+
+    /**
+     * Reads an amount, even of an ingredient that is not in the stock array yet
+     */
+    private int amount(int ingredientId) {
+        return (ingredientId < stock.length) ? stock[ingredientId] : 0;
+    }
+
+    /**
+     * Grows the stock array, so it has at least the given amount of positions
+     */
+    private void ensureSize(int length) {
+        if (length > stock.length) {
+            stock = Arrays.copyOf(stock, Math.max(length, IngredientRegistry.size()));
+        }
+    }
+
+    /**
+     * Notifies the listeners of a change that was just applied to the stock
+     * @param ingredient the id of the ingredient
+     * @param delta how much the amount changed
+     */
+    private void changed(int ingredient, int delta) {
+        if (delta == 0) return;
+        for (InventoryListener listener : listeners) {
+            listener.amountChanged(ingredient, stock[ingredient] - delta, stock[ingredient]);
+        }
+    }
+
+    /**
+     * Generates a String representation of the class,
+     * with the basic ingredients and any other ingredient in stock
      * @return the string representation
      */
     @Override
-    public String toString() {
-        return "Inventory{" + "stock=" + stock + '}';
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder("Inventory{stock={");
+        for (int i = 0; i < stock.length; i++) {
+            if (i >= Ingredient.values().length && stock[i] == 0) continue;
+            if (i > 0) builder.append(", ");
+            builder.append(IngredientRegistry.getName(i)).append('=').append(stock[i]);
+        }
+        return builder.append("}}").toString();
     }
 }
@@ -0,0 +1,26 @@
+package com.redi.j2.coffeemaker;
+
+/**
+ * Receives the changes of the amounts in an {@link Inventory}.
+ * Listeners are called while the inventory is held, right after each change,
+ * so they see the changes in the order they happened. They must be fast,
+ * and must never call the inventory back.
+ */
+public interface InventoryListener {
+
+    /**
+     * Called once, when the listener is added to the inventory
+     * @param amounts the current amounts, indexed by ingredient id
+     */
+    default void attached(int[] amounts) {
+    }
+
+    /**
+     * Called when the amount of an ingredient changed.
+     * The ingredient may be one that was not in the amounts received by {@link #attached(int[])}.
+     * @param ingredient the id of the ingredient in the {@link IngredientRegistry}
+     * @param oldAmount the amount before the change
+     * @param newAmount the amount after the change
+     */
+    void amountChanged(int ingredient, int oldAmount, int newAmount);
+}
@@ -0,0 +1,711 @@
+package com.redi.j2.coffeemaker;
+
+import com.redi.j2.exceptions.InvalidRecipeIngredientAmountException;
+import com.redi.j2.exceptions.InvalidRecipePriceException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Makes the state of a coffee maker machine survive restarts.
+ * Every change is appended to a memory-mapped write-ahead log, and a snapshot of the whole state
+ * is taken every few changes, so the log (and the time to recover from it) stays small.
+ * <p>
+ * Each log record has its length and a checksum, so a record torn by a crash is detected and ignored.
+ * The snapshot and the log have a generation number: a log from an older generation than the snapshot
+ * was already included in the snapshot, and is not replayed again.
+ * <p>
+ * Ingredient ids are only valid while the application runs, so the journal also saves their names:
+ * the snapshot has a table of names, and the log has a record naming each ingredient before it is used
+ * (the basic {@link Ingredient}s always have the same ids, so they are never named).
+ * Files from version 1, which only knew the basic ingredients, are still read, and replaced by a new
+ * snapshot when they are recovered.
+ */
+public class Journal implements Closeable {
+
+    /**
+     * Name of the write-ahead log file
+     */
+    public static final String LOG_FILE = "coffeemaker.wal";
+
+    /**
+     * Name of the snapshot file
+     */
+    public static final String SNAPSHOT_FILE = "coffeemaker.snapshot";
+
+    /**
+     * Defines after how many log records a new snapshot is taken, by default
+     */
+    public static final int DEFAULT_SNAPSHOT_EVERY = 10_000;
+
+    private static final int LOG_MAGIC = 0x434D574C; // "CMWL"
+
+    private static final int SNAPSHOT_MAGIC = 0x434D534E; // "CMSN"
+
+    private static final int VERSION = 2;
+
+    /**
+     * The version before ingredients could be registered: amounts were arrays of the basic ingredients
+     */
+    private static final int VERSION_BASIC_INGREDIENTS = 1;
+
+    /**
+     * How many ingredients have fixed ids, and never need to be named
+     */
+    private static final int BASIC_INGREDIENTS = Ingredient.values().length;
+
+    /**
+     * Size of the log header: magic, version and generation
+     */
+    private static final int LOG_HEADER_SIZE = 4 + 4 + 8;
+
+    /**
+     * Size of a record header: length and checksum
+     */
+    private static final int RECORD_HEADER_SIZE = 4 + 4;
+
+    private static final int INITIAL_LOG_SIZE = 1 << 20;
+
+    private static final byte REFILL = 1;
+    private static final byte BREW = 2;
+    private static final byte ADD_RECIPE = 3;
+    private static final byte UPDATE_RECIPE = 4;
+    private static final byte REMOVE_RECIPE = 5;
+    private static final byte INGREDIENT = 6;
+
+    /**
+     * Copied over the log to clear it, many bytes at a time
+     */
+    private static final byte[] ZEROS = new byte[8192];
+
+    private final Path logPath;
+
+    private final Path snapshotPath;
+
+    private final int snapshotEvery;
+
+    private final FileChannel channel;
+
+    private MappedByteBuffer log;
+
+    /**
+     * The end of the part of the log that may not be zero. Everything after it is zero already,
+     * so clearing the log never goes beyond it, no matter how big the log file grew.
+     */
+    private int written;
+
+    /**
+     * The generation of the current snapshot and log
+     */
+    private long generation;
+
+    /**
+     * How many records were appended since the last snapshot
+     */
+    private int recordsSinceSnapshot;
+
+    /**
+     * Scratch buffer to encode records before copying them to the log
+     */
+    private byte[] scratch = new byte[256];
+
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * The ingredients already named in the current log
+     */
+    private final BitSet named = new BitSet();
+
+    /**
+     * While recovering, the id in this application of each ingredient id found in the files
+     */
+    private int[] idMap = new int[0];
+
+    /**
+     * While recovering, the version of the file being read
+     */
+    private int readVersion;
+
+    private long lastRecoveryNanos;
+
+    private long lastRecoveredRecords;
+
+    /**
+     * Opens a journal in the given directory, taking a snapshot every {@link #DEFAULT_SNAPSHOT_EVERY} records
+     * @param directory where the journal files are kept
+     * @throws IOException if the journal files cannot be opened
+     */
+    public Journal(Path directory) throws IOException {
+        this(directory, DEFAULT_SNAPSHOT_EVERY);
+    }
+
+    /**
+     * Opens a journal in the given directory
+     * @param directory where the journal files are kept
+     * @param snapshotEvery after how many log records a new snapshot is taken
+     * @throws IOException if the journal files cannot be opened
+     */
+    public Journal(Path directory, int snapshotEvery) throws IOException {
+        Files.createDirectories(directory);
+        this.logPath = directory.resolve(LOG_FILE);
+        this.snapshotPath = directory.resolve(SNAPSHOT_FILE);
+        this.snapshotEvery = snapshotEvery;
+        this.channel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.log = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), INITIAL_LOG_SIZE));
+        // nothing is known about an existing file, so it may have records anywhere
+        this.written = log.capacity();
+    }
+
+    /**
+     * Getter for the duration of the last recovery
+     * @return how long the last call to {@link #recover(Inventory, RecipeBook)} took, in nanoseconds
+     */
+    public long getLastRecoveryNanos() {
+        return lastRecoveryNanos;
+    }
+
+    /**
+     * Getter for the amount of log records replayed in the last recovery
+     * @return how many log records were replayed by the last call to {@link #recover(Inventory, RecipeBook)}
+     */
+    public long getLastRecoveredRecords() {
+        return lastRecoveredRecords;
+    }
+
+    /**
+     * Restores the state saved in the journal: first the snapshot, then the log records after it.
+     * After recovering, new records are appended after the last valid one.
+     * @param inventory an empty inventory, to receive the saved amounts
+     * @param catalog an empty catalog, to receive the saved Recipes
+     * @return true if there was a saved state, false if the journal is new
+     * @throws IOException if the journal files cannot be read, or are corrupt,
+     *                     or the saved Recipes do not fit in the catalog
+     */
+    public synchronized boolean recover(Inventory inventory, RecipeBook catalog) throws IOException {
+        long start = System.nanoTime();
+        boolean hasSnapshot = Files.exists(snapshotPath);
+        resetIdMap();
+        generation = hasSnapshot ? readSnapshot(inventory, catalog) : 0;
+        boolean outdated = hasSnapshot && readVersion == VERSION_BASIC_INGREDIENTS;
+
+        long records = 0;
+        log.position(0);
+        int magic = log.getInt();
+        readVersion = log.getInt();
+        boolean validLog = magic == LOG_MAGIC && (readVersion == VERSION || readVersion == VERSION_BASIC_INGREDIENTS)
+                && log.getLong() == generation;
+        if (validLog) {
+            resetIdMap();
+            records = replay(inventory, catalog);
+            outdated |= readVersion == VERSION_BASIC_INGREDIENTS && records > 0;
+            clearFrom(log.position());
+            // the ids of this application may be different: ingredients are named again before they are used
+            named.clear();
+        } else {
+            resetLog();
+        }
+
+        recordsSinceSnapshot = (int) records;
+        if (outdated) {
+            // the files are rewritten in the current version, so the log never mixes versions
+            snapshot(inventory, catalog);
+        } else if (validLog && readVersion == VERSION_BASIC_INGREDIENTS) {
+            resetLog();
+        }
+        lastRecoveredRecords = records;
+        lastRecoveryNanos = System.nanoTime() - start;
+        return hasSnapshot || records > 0;
+    }
+
+    /**
+     * Appends a refill of ingredients to the log
+     * @param amounts the amounts added
+     */
+    public synchronized void refilled(IngredientAmounts amounts) {
+        appendAmounts(REFILL, amounts);
+    }
+
+    /**
+     * Appends the ingredients used to make Recipes to the log
+     * @param amounts the amounts removed
+     */
+    public synchronized void brewed(IngredientAmounts amounts) {
+        appendAmounts(BREW, amounts);
+    }
+
+    /**
+     * Appends a new Recipe to the log
+     * @param recipe the added Recipe
+     */
+    public synchronized void recipeAdded(Recipe recipe) {
+        appendRecipe(ADD_RECIPE, recipe);
+    }
+
+    /**
+     * Appends a Recipe update to the log
+     * @param recipe the updated Recipe
+     */
+    public synchronized void recipeUpdated(Recipe recipe) {
+        appendRecipe(UPDATE_RECIPE, recipe);
+    }
+
+    /**
+     * Appends a Recipe removal to the log
+     * @param name the name of the removed Recipe
+     */
+    public synchronized void recipeRemoved(String name) {
+        int length = 1 + putString(1, name);
+        scratch[0] = REMOVE_RECIPE;
+        append(length);
+    }
+
+    /**
+     * Checks if enough records were appended to take a new snapshot
+     * @return true if a snapshot should be taken
+     */
+    public synchronized boolean isSnapshotDue() {
+        return recordsSinceSnapshot >= snapshotEvery;
+    }
+
+    /**
+     * Saves the whole state in a new snapshot, and starts a new empty log.
+     * The caller must make sure the state does not change while the snapshot is taken.
+     * @param inventory the inventory to save
+     * @param catalog the catalog to save
+     */
+    public synchronized void snapshot(Inventory inventory, RecipeBook catalog) {
+        try {
+            writeSnapshot(inventory, catalog, generation + 1);
+            generation++;
+            resetLog();
+            recordsSinceSnapshot = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("It was not possible to take a snapshot of the journal", e);
+        }
+    }
+
+    /**
+     * Forces all the appended records to the storage device,
+     * so they also survive a power failure (not only a crash of the application)
+     */
+    public synchronized void sync() {
+        log.force();
+    }
+
+    /**
+     * Writes all the pending records and closes the log file
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        log.force();
+        channel.close();
+    }
+
+    // ---- log ----
+
+    private void appendAmounts(byte type, IngredientAmounts amounts) {
+        nameIngredients(amounts);
+        scratch[0] = type;
+        append(putAmounts(1, amounts));
+    }
+
+    private void appendRecipe(byte type, Recipe recipe) {
+        nameIngredients(recipe.getRequirements());
+        scratch[0] = type;
+        int position = 1;
+        position += putString(position, recipe.getName());
+        position += putString(position, recipe.getPrice().toPlainString());
+        append(putAmounts(position, recipe.getRequirements()));
+    }
+
+    /**
+     * Appends a record with the name of each ingredient that was not named in this log yet
+     */
+    private void nameIngredients(IngredientAmounts amounts) {
+        for (int i = amounts.size() - 1; i >= 0 && amounts.getId(i) >= BASIC_INGREDIENTS; i--) {
+            int id = amounts.getId(i);
+            if (named.get(id)) continue;
+            scratch[0] = INGREDIENT;
+            putInt(1, id);
+            append(5 + putString(5, IngredientRegistry.getName(id)));
+            named.set(id);
+        }
+    }
+
+    /**
+     * Writes amounts as their count, followed by pairs of ingredient id and amount
+     * @return the position after the amounts
+     */
+    private int putAmounts(int position, IngredientAmounts amounts) {
+        int end = position + 4 + 8 * amounts.size();
+        ensureScratch(end);
+        putInt(position, amounts.size());
+        for (int i = 0; i < amounts.size(); i++) {
+            putInt(position + 4 + 8 * i, amounts.getId(i));
+            putInt(position + 8 + 8 * i, amounts.getAmount(i));
+        }
+        return end;
+    }
+
+    /**
+     * Copies the record in the scratch buffer to the log, after its length and checksum
+     */
+    private void append(int length) {
+        ensureLogCapacity(RECORD_HEADER_SIZE + length + 4);
+        crc.reset();
+        crc.update(scratch, 0, length);
+        int start = log.position();
+        log.position(start + 4);
+        log.putInt((int) crc.getValue());
+        log.put(scratch, 0, length);
+        // the length is written last, so a reader never sees a record before it is complete
+        log.putInt(start, length);
+        written = Math.max(written, log.position());
+        recordsSinceSnapshot++;
+    }
+
+    /**
+     * Replays the log records, from the current position, until the first missing or invalid record.
+     * Consecutive added Recipes are added to the catalog at once, before any other change to the catalog.
+     */
+    private long replay(Inventory inventory, RecipeBook catalog) throws IOException {
+        long records = 0;
+        List<Recipe> added = new ArrayList<>();
+        byte[] payload = scratch;
+        while (log.remaining() >= RECORD_HEADER_SIZE) {
+            int start = log.position();
+            int length = log.getInt();
+            int checksum = log.getInt();
+            if (length <= 0 || length > log.remaining()) {
+                log.position(start);
+                break;
+            }
+            if (payload.length < length) payload = new byte[length];
+            log.get(payload, 0, length);
+            crc.reset();
+            crc.update(payload, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                log.position(start);
+                break;
+            }
+            apply(payload, inventory, catalog, added);
+            records++;
+        }
+        scratch = payload;
+        addRecipes(catalog, added);
+        return records;
+    }
+
+    private void apply(byte[] record, Inventory inventory, RecipeBook catalog, List<Recipe> added) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        byte type = buffer.get();
+        switch (type) {
+            case REFILL:
+                inventory.addAmounts(readAmounts(buffer));
+                break;
+            case INGREDIENT:
+                int id = buffer.getInt();
+                mapId(id, readString(buffer));
+                break;
+            case BREW:
+                if (!inventory.removeAmounts(readAmounts(buffer))) {
+                    throw new IOException("Corrupt journal: not enough ingredients to replay a brew");
+                }
+                break;
+            case ADD_RECIPE:
+                added.add(readRecipe(buffer));
+                break;
+            case UPDATE_RECIPE:
+                addRecipes(catalog, added);
+                catalog.updateRecipe(readRecipe(buffer));
+                break;
+            case REMOVE_RECIPE:
+                addRecipes(catalog, added);
+                catalog.removeRecipe(readString(buffer));
+                break;
+            default:
+                throw new IOException("Corrupt journal: unknown record type " + type);
+        }
+    }
+
+    private IngredientAmounts readAmounts(ByteBuffer buffer) throws IOException {
+        int count = buffer.getInt();
+        IngredientAmounts.Builder amounts = IngredientAmounts.builder();
+        for (int i = 0; i < count; i++) {
+            if (readVersion == VERSION_BASIC_INGREDIENTS) {
+                amounts.add(i, buffer.getInt());
+            } else {
+                amounts.add(currentId(buffer.getInt()), buffer.getInt());
+            }
+        }
+        return build(amounts);
+    }
+
+    /**
+     * Builds amounts read from the journal, which a corrupt journal can make overflow
+     */
+    private static IngredientAmounts build(IngredientAmounts.Builder amounts) throws IOException {
+        try {
+            return amounts.build();
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt journal: " + e.getMessage(), e);
+        }
+    }
+
+    private Recipe readRecipe(ByteBuffer buffer) throws IOException {
+        String name = readString(buffer);
+        String price = readString(buffer);
+        IngredientAmounts requirements = (readVersion == VERSION_BASIC_INGREDIENTS)
+                ? IngredientAmounts.of(buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt())
+                : readAmounts(buffer);
+        try {
+            return new Recipe(name, new BigDecimal(price), requirements);
+        } catch (InvalidRecipeIngredientAmountException | InvalidRecipePriceException | NumberFormatException e) {
+            throw new IOException("Corrupt journal: invalid recipe '" + name + "'", e);
+        }
+    }
+
+    /**
+     * Adds the saved Recipes read so far to the catalog in a single change, and forgets them.
+     * Adding them one by one would copy the whole catalog for each Recipe.
+     * @throws IOException if the catalog could not take all of them
+     */
+    private static void addRecipes(RecipeBook catalog, List<Recipe> recipes) throws IOException {
+        if (recipes.isEmpty()) return;
+        int added = catalog.addRecipes(recipes).size();
+        if (added < recipes.size()) {
+            throw new IOException("Only " + added + " of " + recipes.size() + " saved Recipes could be restored: "
+                    + "the catalog holds " + catalog.getCapacity() + " Recipes, and the names must be unique");
+        }
+        recipes.clear();
+    }
+
+    /**
+     * Starts a new mapping of ids, where only the basic ingredients are known
+     */
+    private void resetIdMap() {
+        idMap = new int[BASIC_INGREDIENTS];
+        for (int i = 0; i < BASIC_INGREDIENTS; i++) {
+            idMap[i] = i;
+        }
+    }
+
+    /**
+     * Maps an id found in the files to the id of the same ingredient in this application
+     */
+    private void mapId(int fileId, String name) throws IOException {
+        if (fileId < BASIC_INGREDIENTS) throw new IOException("Corrupt journal: basic ingredient " + fileId + " renamed");
+        if (fileId >= idMap.length) {
+            int oldLength = idMap.length;
+            idMap = Arrays.copyOf(idMap, fileId + 1);
+            Arrays.fill(idMap, oldLength, idMap.length, -1);
+        }
+        try {
+            idMap[fileId] = IngredientRegistry.register(name);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt journal: ingredient " + fileId + " has no name", e);
+        }
+    }
+
+    /**
+     * Finds the id in this application of an id found in the files
+     */
+    private int currentId(int fileId) throws IOException {
+        if (fileId < 0 || fileId >= idMap.length || idMap[fileId] < 0) {
+            throw new IOException("Corrupt journal: ingredient " + fileId + " used before being named");
+        }
+        return idMap[fileId];
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Empties the log and starts it again with the current generation
+     */
+    private void resetLog() {
+        named.clear();
+        clearFrom(0);
+        log.position(0);
+        log.putInt(LOG_MAGIC).putInt(VERSION).putLong(generation);
+        written = log.position();
+    }
+
+    /**
+     * Fills the log with zeros from a position to the end of what was written, so old records are never read again
+     */
+    private void clearFrom(int position) {
+        log.position(position);
+        while (log.position() < written) {
+            log.put(ZEROS, 0, Math.min(ZEROS.length, written - log.position()));
+        }
+        written = position;
+        log.position(position);
+    }
+
+    /**
+     * Maps a bigger region of the log file when the current one has no room for the next record
+     */
+    private void ensureLogCapacity(int bytes) {
+        if (log.remaining() >= bytes) return;
+        try {
+            int position = log.position();
+            long newSize = Math.max((long) log.capacity() * 2, (long) position + bytes);
+            if (newSize > Integer.MAX_VALUE) {
+                throw new IOException("The journal log is full");
+            }
+            log.force();
+            log = channel.map(FileChannel.MapMode.READ_WRITE, 0, newSize);
+            log.position(position);
+        } catch (IOException e) {
+            throw new UncheckedIOException("It was not possible to grow the journal log", e);
+        }
+    }
+
+    private void ensureScratch(int length) {
+        if (scratch.length < length) {
+            byte[] bigger = new byte[Math.max(length, scratch.length * 2)];
+            System.arraycopy(scratch, 0, bigger, 0, scratch.length);
+            scratch = bigger;
+        }
+    }
+
+    private void putInt(int position, int value) {
+        scratch[position] = (byte) (value >>> 24);
+        scratch[position + 1] = (byte) (value >>> 16);
+        scratch[position + 2] = (byte) (value >>> 8);
+        scratch[position + 3] = (byte) value;
+    }
+
+    /**
+     * Writes a string with its length in two bytes
+     * @return how many bytes were written
+     */
+    private int putString(int position, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Text too long for the journal");
+        }
+        ensureScratch(position + 2 + bytes.length);
+        scratch[position] = (byte) (bytes.length >>> 8);
+        scratch[position + 1] = (byte) bytes.length;
+        System.arraycopy(bytes, 0, scratch, position + 2, bytes.length);
+        return 2 + bytes.length;
+    }
+
+    // ---- snapshot ----
+
+    private void writeSnapshot(Inventory inventory, RecipeBook catalog, long newGeneration) throws IOException {
+        Path temporary = snapshotPath.resolveSibling(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(file)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(newGeneration);
+            int ingredients = IngredientRegistry.size();
+            out.writeInt(ingredients);
+            for (int id = 0; id < ingredients; id++) {
+                out.writeUTF(IngredientRegistry.getName(id));
+            }
+            // reservations are not journaled, so their ingredients go back to the stock on recovery
+            int[] amounts = inventory.snapshotWithReserved();
+            out.writeInt(amounts.length);
+            for (int amount : amounts) {
+                out.writeInt(amount);
+            }
+            List<Recipe> recipes = catalog.getRecipes();
+            out.writeInt(recipes.size());
+            for (Recipe recipe : recipes) {
+                out.writeUTF(recipe.getName());
+                out.writeUTF(recipe.getPrice().toPlainString());
+                IngredientAmounts requirements = recipe.getRequirements();
+                out.writeInt(requirements.size());
+                for (int i = 0; i < requirements.size(); i++) {
+                    out.writeInt(requirements.getId(i));
+                    out.writeInt(requirements.getAmount(i));
+                }
+            }
+            out.flush();
+            file.force(true);
+        }
+        Files.move(temporary, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads the snapshot into the given inventory and catalog
+     * @return the generation of the snapshot
+     */
+    private long readSnapshot(Inventory inventory, RecipeBook catalog) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            int magic = in.readInt();
+            readVersion = in.readInt();
+            if (magic != SNAPSHOT_MAGIC || (readVersion != VERSION && readVersion != VERSION_BASIC_INGREDIENTS)) {
+                throw new IOException("Corrupt journal: " + snapshotPath + " is not a snapshot");
+            }
+            boolean basic = readVersion == VERSION_BASIC_INGREDIENTS;
+            long snapshotGeneration = in.readLong();
+            if (!basic) {
+                int ingredients = in.readInt();
+                for (int id = 0; id < ingredients; id++) {
+                    String name = in.readUTF();
+                    if (id >= BASIC_INGREDIENTS) mapId(id, name);
+                }
+            }
+            IngredientAmounts.Builder amounts = IngredientAmounts.builder();
+            int stock = in.readInt();
+            for (int id = 0; id < stock; id++) {
+                amounts.add(basic ? id : currentId(id), in.readInt());
+            }
+            inventory.addAmounts(build(amounts));
+            int recipes = in.readInt();
+            List<Recipe> saved = new ArrayList<>();
+            for (int i = 0; i < recipes; i++) {
+                String name = in.readUTF();
+                String price = in.readUTF();
+                IngredientAmounts requirements;
+                if (basic) {
+                    requirements = IngredientAmounts.of(in.readInt(), in.readInt(), in.readInt(), in.readInt());
+                } else {
+                    IngredientAmounts.Builder builder = IngredientAmounts.builder();
+                    int count = in.readInt();
+                    for (int j = 0; j < count; j++) {
+                        builder.add(currentId(in.readInt()), in.readInt());
+                    }
+                    requirements = build(builder);
+                }
+                try {
+                    saved.add(new Recipe(name, new BigDecimal(price), requirements));
+                } catch (InvalidRecipeIngredientAmountException | InvalidRecipePriceException | NumberFormatException e) {
+                    throw new IOException("Corrupt journal: invalid recipe '" + name + "'", e);
+                }
+            }
+            addRecipes(catalog, saved);
+            return snapshotGeneration;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.redi.j2.coffeemaker;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies, in nanoseconds.
+ * Values are counted in logarithmic buckets, each power of two split in 8 linear sub-buckets,
+ * so recording is a single atomic increment and percentiles have at most 12.5% of relative error.
+ */
+public class LatencyHistogram {
+
+    /**
+     * How many sub-buckets each power of two is split in, as a power of two
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int BUCKETS = SUB_BUCKETS + (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /**
+     * How many values were recorded in each bucket
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Records a latency
+     * @param nanos the latency, in nanoseconds. Negative values are counted as zero.
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(bucketOf(Math.max(0, nanos)));
+    }
+
+    /**
+     * Copies the current counts
+     * @return an immutable copy of the histogram
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new Snapshot(copy);
+    }
+
+    /**
+     * Finds the bucket of a value: small values have one bucket each,
+     * bigger values share a bucket with others with the same highest bits
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Finds the highest value counted in a bucket
+     */
+    private static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = (bucket - SUB_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS;
+        long subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        long lowest = (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * An immutable copy of a histogram
+     */
+    public static class Snapshot {
+
+        private final long[] counts;
+
+        private final long total;
+
+        private Snapshot(long[] counts) {
+            this.counts = counts;
+            long sum = 0;
+            for (long count : counts) {
+                sum += count;
+            }
+            this.total = sum;
+        }
+
+        /**
+         * Getter for the amount of values
+         * @return how many latencies were recorded
+         */
+        public long getCount() {
+            return total;
+        }
+
+        /**
+         * Calculates a percentile
+         * @param percentile the percentile, from 0 to 100 (e.g. 99.9)
+         * @return the latency in nanoseconds below which that percentage of values are, or 0 if there are no values
+         */
+        public long getPercentile(double percentile) {
+            if (total == 0) return 0;
+            long rank = (long) Math.ceil(percentile / 100 * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= Math.max(rank, 1)) return highestValueOf(i);
+            }
+            return highestValueOf(counts.length - 1);
+        }
+
+        /**
+         * Getter for the median
+         * @return the 50th percentile, in nanoseconds
+         */
+        public long getP50() {
+            return getPercentile(50);
+        }
+
+        /**
+         * Getter for the 99th percentile
+         * @return the 99th percentile, in nanoseconds
+         */
+        public long getP99() {
+            return getPercentile(99);
+        }
+
+        /**
+         * Getter for the 99.9th percentile
+         * @return the 99.9th percentile, in nanoseconds
+         */
+        public long getP999() {
+            return getPercentile(99.9);
+        }
+
+        /**
+         * Creates a string representation of the histogram
+         * @return a string representation
+         */
+        @Override
+        public String toString() {
+            return "{count=" + total + ", p50=" + getP50() + "ns, p99=" + getP99() + "ns, p999=" + getP999() + "ns}";
+        }
+    }
+}
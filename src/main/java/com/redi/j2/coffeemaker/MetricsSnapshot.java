@@ -0,0 +1,199 @@
+package com.redi.j2.coffeemaker;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * An immutable copy of the {@link CoffeeMakerMetrics} of a machine, taken at a certain moment
+ */
+public class MetricsSnapshot {
+
+    private final long elapsedNanos;
+
+    private final Map<String, Long> brewedByRecipe;
+
+    private final Map<String, Long> rejectedByRecipe;
+
+    private final long unknownRecipeOrders;
+
+    private final long[] consumed;
+
+    private final int[] stock;
+
+    private final long recipesAdded;
+
+    private final long recipesUpdated;
+
+    private final long recipesRemoved;
+
+    private final LatencyHistogram.Snapshot brewLatency;
+
+    private final LatencyHistogram.Snapshot refillLatency;
+
+    private final LatencyHistogram.Snapshot catalogLatency;
+
+    MetricsSnapshot(long elapsedNanos, Map<String, Long> brewedByRecipe, Map<String, Long> rejectedByRecipe,
+                    long unknownRecipeOrders, long[] consumed, int[] stock,
+                    long recipesAdded, long recipesUpdated, long recipesRemoved,
+                    LatencyHistogram.Snapshot brewLatency, LatencyHistogram.Snapshot refillLatency,
+                    LatencyHistogram.Snapshot catalogLatency) {
+        this.elapsedNanos = elapsedNanos;
+        this.brewedByRecipe = Collections.unmodifiableMap(brewedByRecipe);
+        this.rejectedByRecipe = Collections.unmodifiableMap(rejectedByRecipe);
+        this.unknownRecipeOrders = unknownRecipeOrders;
+        this.consumed = consumed;
+        this.stock = stock;
+        this.recipesAdded = recipesAdded;
+        this.recipesUpdated = recipesUpdated;
+        this.recipesRemoved = recipesRemoved;
+        this.brewLatency = brewLatency;
+        this.refillLatency = refillLatency;
+        this.catalogLatency = catalogLatency;
+    }
+
+    /**
+     * Getter for the elapsed time
+     * @return the time since the metrics were enabled, in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Getter for the orders made
+     * @return how many orders of each Recipe were made
+     */
+    public Map<String, Long> getBrewedByRecipe() {
+        return brewedByRecipe;
+    }
+
+    /**
+     * Getter for the orders rejected for lack of ingredients
+     * @return how many orders of each Recipe were rejected
+     */
+    public Map<String, Long> getRejectedByRecipe() {
+        return rejectedByRecipe;
+    }
+
+    /**
+     * Getter for the orders of Recipes that do not exist
+     * @return how many orders were rejected because the Recipe does not exist
+     */
+    public long getUnknownRecipeOrders() {
+        return unknownRecipeOrders;
+    }
+
+    /**
+     * Getter for the amount used of an ingredient
+     * @param ingredient the ingredient
+     * @return how many units were used to make Recipes
+     */
+    public long getConsumed(Ingredient ingredient) {
+        return getConsumed(ingredient.getId());
+    }
+
+    /**
+     * Getter for the amount used of any ingredient in the {@link IngredientRegistry}
+     * @param ingredientId the id of the ingredient
+     * @return how many units were used to make Recipes
+     */
+    public long getConsumed(int ingredientId) {
+        return (ingredientId < consumed.length) ? consumed[ingredientId] : 0;
+    }
+
+    /**
+     * Getter for the amount in stock of an ingredient
+     * @param ingredient the ingredient
+     * @return how many units were in the inventory when the snapshot was taken
+     */
+    public int getStock(Ingredient ingredient) {
+        return getStock(ingredient.getId());
+    }
+
+    /**
+     * Getter for the amount in stock of any ingredient in the {@link IngredientRegistry}
+     * @param ingredientId the id of the ingredient
+     * @return how many units were in the inventory when the snapshot was taken
+     */
+    public int getStock(int ingredientId) {
+        return (ingredientId < stock.length) ? stock[ingredientId] : 0;
+    }
+
+    /**
+     * Calculates how fast each basic ingredient is being used (see {@link #getConsumed(int)} for the others)
+     * @return the units of each ingredient used per second, since the metrics were enabled
+     */
+    public Map<Ingredient, Double> getDepletionRatePerSecond() {
+        Map<Ingredient, Double> rates = new EnumMap<>(Ingredient.class);
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        for (Ingredient ingredient : Ingredient.values()) {
+            rates.put(ingredient, seconds == 0 ? 0 : getConsumed(ingredient) / seconds);
+        }
+        return rates;
+    }
+
+    /**
+     * Getter for the amount of Recipes added
+     * @return how many Recipes were added to the catalog
+     */
+    public long getRecipesAdded() {
+        return recipesAdded;
+    }
+
+    /**
+     * Getter for the amount of Recipes updated
+     * @return how many Recipes were updated in the catalog
+     */
+    public long getRecipesUpdated() {
+        return recipesUpdated;
+    }
+
+    /**
+     * Getter for the amount of Recipes removed
+     * @return how many Recipes were removed from the catalog
+     */
+    public long getRecipesRemoved() {
+        return recipesRemoved;
+    }
+
+    /**
+     * Getter for the brew latencies
+     * @return the histogram of the time to process an order
+     */
+    public LatencyHistogram.Snapshot getBrewLatency() {
+        return brewLatency;
+    }
+
+    /**
+     * Getter for the refill latencies
+     * @return the histogram of the time to refill ingredients
+     */
+    public LatencyHistogram.Snapshot getRefillLatency() {
+        return refillLatency;
+    }
+
+    /**
+     * Getter for the catalog change latencies
+     * @return the histogram of the time to add, update or remove Recipes
+     */
+    public LatencyHistogram.Snapshot getCatalogLatency() {
+        return catalogLatency;
+    }
+
+    /**
+     * Creates a string representation of the metrics
+     * @return a string representation
+     */
+    @Override
+    public String toString() {
+        return "MetricsSnapshot{" + "brewed=" + brewedByRecipe +
+                ", rejected=" + rejectedByRecipe +
+                ", unknownRecipeOrders=" + unknownRecipeOrders +
+                ", depletionRatePerSecond=" + getDepletionRatePerSecond() +
+                ", brewLatency=" + brewLatency +
+                ", refillLatency=" + refillLatency +
+                ", catalogLatency=" + catalogLatency +
+                '}';
+    }
+}
@@ -0,0 +1,145 @@
+package com.redi.j2.coffeemaker;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A bounded queue of orders, served by a fixed amount of worker threads.
+ * When the queue is full, the {@link OverflowPolicy} decides what happens to the new order,
+ * so an overloaded machine sheds or slows down work instead of queueing it forever.
+ */
+public class OrderIntake {
+
+    /**
+     * Used to give each worker thread a unique name
+     */
+    private static final AtomicInteger INTAKE_COUNT = new AtomicInteger();
+
+    /**
+     * The worker threads and the queue of waiting orders
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Parameterized constructor
+     * @param queueCapacity how many orders can wait to be made
+     * @param workers how many orders can be made at the same time
+     * @param policy what to do with new orders when the queue is full
+     */
+    public OrderIntake(int queueCapacity, int workers, OverflowPolicy policy) {
+        BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(queueCapacity);
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, queue,
+                workerFactory(), (order, pool) -> overflow((Order<?>) order, pool, policy));
+    }
+
+    /**
+     * Queues an order
+     * @param order the work to do
+     * @param <T> the type of the result
+     * @return a future completed with the result of the order, or exceptionally
+     * with a {@link RejectedExecutionException} if the order was not accepted
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> order) {
+        Order<T> task = new Order<>(order);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.future.completeExceptionally(e);
+        }
+        return task.future;
+    }
+
+    /**
+     * Getter for the amount of waiting orders
+     * @return how many orders are waiting to be made
+     */
+    public int getQueuedOrders() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Stops accepting orders. Orders already queued are still made.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Waits until all the queued orders are made, after a {@link #shutdown()}
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return true if all the orders were made, false if the timeout elapsed before
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Applies the overflow policy to an order that did not fit in the queue
+     */
+    private static void overflow(Order<?> order, ThreadPoolExecutor pool, OverflowPolicy policy) {
+        if (pool.isShutdown()) {
+            order.future.completeExceptionally(new RejectedExecutionException("The order intake is shut down"));
+            return;
+        }
+        switch (policy) {
+            case CALLER_RUNS:
+                order.run();
+                break;
+            case DISCARD_OLDEST:
+                Runnable oldest = pool.getQueue().poll();
+                if (oldest != null) {
+                    ((Order<?>) oldest).future.completeExceptionally(new RejectedExecutionException("The order queue is full"));
+                }
+                pool.execute(order);
+                break;
+            default:
+                order.future.completeExceptionally(new RejectedExecutionException("The order queue is full"));
+        }
+    }
+
+    /**
+     * Creates daemon worker threads, so waiting orders never keep the application running
+     */
+    private static ThreadFactory workerFactory() {
+        int intake = INTAKE_COUNT.incrementAndGet();
+        AtomicInteger workerCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "order-intake-" + intake + "-worker-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * An order waiting in the queue, together with the future of its result
+     */
+    private static final class Order<T> implements Runnable {
+
+        private final Supplier<T> work;
+
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private Order(Supplier<T> work) {
+            this.work = work;
+        }
+
+        @Override
+        public void run() {
+            if (future.isDone()) return;
+            try {
+                future.complete(work.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.redi.j2.coffeemaker;
+
+/**
+ * What to do with a new order when the order queue is full
+ */
+public enum OverflowPolicy {
+
+    /**
+     * The new order fails with a {@link java.util.concurrent.RejectedExecutionException}
+     */
+    REJECT,
+
+    /**
+     * The new order is made by the thread that submitted it, slowing the client down
+     */
+    CALLER_RUNS,
+
+    /**
+     * The oldest waiting order fails with a {@link java.util.concurrent.RejectedExecutionException},
+     * and the new order takes its place in the queue
+     */
+    DISCARD_OLDEST
+}
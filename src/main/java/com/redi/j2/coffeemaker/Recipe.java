@@ -4,38 +4,39 @@ import com.redi.j2.exceptions.InvalidRecipeIngredientAmountException;
 import com.redi.j2.exceptions.InvalidRecipePriceException;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 
-public class Recipe {
+/**
+ * A Recipe that can be made by the coffee maker.
+ * Recipes are immutable: to change a Recipe, create a new one with the same name.
+ * Two Recipes are equal if they have the same name.
+ */
+public final class Recipe {
 
     /**
      * The name
      */
-    private String name;
+    private final String name;
 
     /**
      * The price
      */
-    private BigDecimal price;
+    private final BigDecimal price;
 
     /**
-     * The required amount of Coffee
+     * The price as a whole number of cents, rounded half up
      */
-    private int amountCoffee;
+    private final long priceInCents;
 
     /**
-     * The required amount of Milk
+     * The required amounts of the ingredients the Recipe uses
      */
-    private int amountMilk;
+    private final IngredientAmounts requirements;
 
     /**
-     * The required amount of Chocolate
+     * The hash code, calculated once from the name
      */
-    private int amountChocolate;
-
-    /**
-     * The required amount of Sugar
-     */
-    private int amountSugar;
+    private final int hash;
 
     /**
      * Getter for Name
@@ -45,14 +46,6 @@ public class Recipe {
         return name;
     }
 
-    /**
-     * Setter for Name
-     * @param name the new name
-     */
-    public void setName(String name) {
-        this.name = name;
-    }
-
     /**
      * Getter for Price
      * @return the price
@@ -62,16 +55,11 @@ public class Recipe {
     }
 
     /**
-     * Setter for Price
-     * @param price The new price
-     * @throws InvalidRecipePriceException in case the parameter is a negative number
+     * Getter for the price in cents, to do money calculations without {@link BigDecimal}
+     * @return the price as a whole number of cents, rounded half up
      */
-    public void setPrice(BigDecimal price) throws InvalidRecipePriceException {
-        if (price.compareTo(BigDecimal.ZERO) >= 0) {
-            this.price = price;
-        } else {
-            throw new InvalidRecipePriceException();
-        }
+    public long getPriceInCents() {
+        return priceInCents;
     }
 
     /**
@@ -79,83 +67,65 @@ public class Recipe {
      * @return the amount
      */
     public int getAmountCoffee() {
-        return amountCoffee;
+        return requirements.get(Ingredient.COFFEE.getId());
     }
 
     /**
-     * Setter for required amount of Coffee
-     * @param amountCoffee the new amount
-     * @throws InvalidRecipeIngredientAmountException in case the parameter is a negative number
+     * Getter for required amount of Milk
+     * @return the amount
      */
-    public void setAmountCoffee(int amountCoffee) throws InvalidRecipeIngredientAmountException {
-        if (amountCoffee >= 0) {
-            this.amountCoffee = amountCoffee;
-        } else {
-            throw new InvalidRecipeIngredientAmountException("coffee");
-        }
+    public int getAmountMilk() {
+        return requirements.get(Ingredient.MILK.getId());
     }
 
     /**
-     * Getter for required amount of Milk
+     * Getter for required amount of Chocolate
      * @return the amount
      */
-    public int getAmountMilk() {
-        return amountMilk;
+    public int getAmountChocolate() {
+        return requirements.get(Ingredient.CHOCOLATE.getId());
     }
 
     /**
-     * Setter for required amount of Milk
-     * @param amountMilk the new amount
-     * @throws InvalidRecipeIngredientAmountException in case the parameter is a negative number
+     * Getter for required amount of Sugar
+     * @return the amount
      */
-    public void setAmountMilk(int amountMilk) throws InvalidRecipeIngredientAmountException {
-        if (amountMilk >= 0) {
-            this.amountMilk = amountMilk;
-        } else {
-            throw new InvalidRecipeIngredientAmountException("milk");
-        }
+    public int getAmountSugar() {
+        return requirements.get(Ingredient.SUGAR.getId());
     }
 
     /**
-     * Getter for required amount of Chocolate
+     * Getter for the required amount of any ingredient
+     * @param ingredient the ingredient
      * @return the amount
      */
-    public int getAmountChocolate() {
-        return amountChocolate;
+    public int getAmount(Ingredient ingredient) {
+        return requirements.get(ingredient.getId());
     }
 
     /**
-     * Setter for required amount of Chocolate
-     * @param amountChocolate the new amount
-     * @throws InvalidRecipeIngredientAmountException in case the parameter is a negative number
+     * Getter for the required amount of any ingredient in the {@link IngredientRegistry}
+     * @param ingredientId the id of the ingredient
+     * @return the amount, or 0 if the Recipe does not use the ingredient
      */
-    public void setAmountChocolate(int amountChocolate) throws InvalidRecipeIngredientAmountException {
-        if (amountChocolate >= 0) {
-            this.amountChocolate = amountChocolate;
-        } else {
-            throw new InvalidRecipeIngredientAmountException("chocolate");
-        }
+    public int getAmount(int ingredientId) {
+        return requirements.get(ingredientId);
     }
 
     /**
-     * Getter for required amount of Sugar
-     * @return the amount
+     * Getter for the required amounts of the ingredients the Recipe uses
+     * @return the amounts, by ingredient id
      */
-    public int getAmountSugar() {
-        return amountSugar;
+    public IngredientAmounts getRequirements() {
+        return requirements;
     }
 
     /**
-     * Setter for required amount of Sugar
-     * @param amountSugar the new amount
-     * @throws InvalidRecipeIngredientAmountException in case the parameter is a negative number
+     * Getter for the required amounts of all the ingredients
+     * @return the amounts, indexed by ingredient id, with at least one position per basic {@link Ingredient}
      */
-    public void setAmountSugar(int amountSugar) throws InvalidRecipeIngredientAmountException {
-        if (amountSugar >= 0) {
-            this.amountSugar = amountSugar;
-        } else {
-            throw new InvalidRecipeIngredientAmountException("sugar");
-        }
+    public int[] getAmounts() {
+        return requirements.toDense(Math.max(Ingredient.values().length, requirements.maxId() + 1));
     }
 
     /**
@@ -167,16 +137,108 @@ public class Recipe {
      * @param amountChocolate the required amount of Chocolate
      * @param amountSugar the required amount of Sugar
      * @throws InvalidRecipeIngredientAmountException in case a required ingredient amount is a negative number
-     * @throws InvalidRecipePriceException in case the price is a negative number
+     * @throws InvalidRecipePriceException in case the price is a negative number, or too high to be counted in cents
      */
     public Recipe(String name, BigDecimal price, int amountCoffee, int amountMilk, int amountChocolate, int amountSugar)
             throws InvalidRecipeIngredientAmountException, InvalidRecipePriceException {
-        setName(name);
-        setPrice(price);
-        setAmountCoffee(amountCoffee);
-        setAmountMilk(amountMilk);
-        setAmountChocolate(amountChocolate);
-        setAmountSugar(amountSugar);
+        if (price.compareTo(BigDecimal.ZERO) < 0 || price.compareTo(MAX_PRICE) > 0) {
+            throw new InvalidRecipePriceException();
+        }
+        this.name = name;
+        this.price = price;
+        this.priceInCents = price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        this.requirements = IngredientAmounts.of(
+                checkAmount(amountCoffee, "coffee"),
+                checkAmount(amountMilk, "milk"),
+                checkAmount(amountChocolate, "chocolate"),
+                checkAmount(amountSugar, "sugar"));
+        this.hash = name.hashCode();
+    }
+
+    /**
+     * Parameterized constructor, for Recipes using any ingredient of the {@link IngredientRegistry}
+     * @param name the name
+     * @param price the price
+     * @param requirements the required amounts of the ingredients
+     * @throws InvalidRecipeIngredientAmountException in case a required ingredient amount is a negative number
+     * @throws InvalidRecipePriceException in case the price is a negative number, or too high to be counted in cents
+     */
+    public Recipe(String name, BigDecimal price, IngredientAmounts requirements)
+            throws InvalidRecipeIngredientAmountException, InvalidRecipePriceException {
+        if (price.compareTo(BigDecimal.ZERO) < 0 || price.compareTo(MAX_PRICE) > 0) {
+            throw new InvalidRecipePriceException();
+        }
+        for (int i = 0; i < requirements.size(); i++) {
+            checkAmount(requirements.getAmount(i), IngredientRegistry.getName(requirements.getId(i)).toLowerCase());
+        }
+        this.name = name;
+        this.price = price;
+        this.priceInCents = price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        this.requirements = requirements;
+        this.hash = name.hashCode();
+    }
+
+    /**
+     * Constructor for values that were already checked with {@link #validate}.
+     * The last parameter only tells it apart from the public constructor.
+     */
+    private Recipe(String name, BigDecimal price, IngredientAmounts requirements, boolean validated) {
+        this.name = name;
+        this.price = price;
+        this.priceInCents = price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        this.requirements = requirements;
+        this.hash = name.hashCode();
+    }
+
+    /**
+     * The highest price a Recipe can have, so its price in cents fits in a long
+     */
+    private static final BigDecimal MAX_PRICE = BigDecimal.valueOf(Long.MAX_VALUE, 2);
+
+    /**
+     * Checks if the values of a Recipe are valid, without throwing an exception.
+     * Useful to check many Recipes at once, like when a catalog is imported.
+     * @param name the name
+     * @param price the price
+     * @param requirements the required amounts of the ingredients
+     * @return null if the values are valid, or the reason why they are not
+     */
+    public static String validate(String name, BigDecimal price, IngredientAmounts requirements) {
+        if (name == null || name.isEmpty()) return "the name is empty";
+        if (price == null) return "the price is missing";
+        if (price.signum() < 0) return "the price is negative";
+        if (price.compareTo(MAX_PRICE) > 0) return "the price is too high";
+        for (int i = 0; i < requirements.size(); i++) {
+            if (requirements.getAmount(i) < 0) {
+                return "the amount of " + IngredientRegistry.getName(requirements.getId(i)).toLowerCase() + " is negative";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates a Recipe from values that were already checked with {@link #validate}
+     * @param name the name
+     * @param price the price
+     * @param requirements the required amounts of the ingredients
+     * @return the new Recipe
+     */
+    static Recipe ofValidated(String name, BigDecimal price, IngredientAmounts requirements) {
+        return new Recipe(name, price, requirements, true);
+    }
+
+    /**
+     * Validates the required amount of an ingredient
+     * @param amount the amount
+     * @param ingredientName the name of the ingredient, for the error message
+     * @return the same amount, if it is valid
+     * @throws InvalidRecipeIngredientAmountException in case the amount is a negative number
+     */
+    private static int checkAmount(int amount, String ingredientName) throws InvalidRecipeIngredientAmountException {
+        if (amount < 0) {
+            throw new InvalidRecipeIngredientAmountException(ingredientName);
+        }
+        return amount;
     }
 
     /**
@@ -187,13 +249,27 @@ public class Recipe {
     public String toString() {
         return "Recipe{" + "name='" + name + '\'' +
                 ", price=" + price +
-                ", amountCoffee=" + amountCoffee +
-                ", amountMilk=" + amountMilk +
-                ", amountChocolate=" + amountChocolate +
-                ", amountSugar=" + amountSugar +
+                ", amountCoffee=" + getAmountCoffee() +
+                ", amountMilk=" + getAmountMilk() +
+                ", amountChocolate=" + getAmountChocolate() +
+                ", amountSugar=" + getAmountSugar() +
+                extraIngredients() +
                 '}';
     }
 
+    /**
+     * Lists the ingredients used besides the basic ones, for {@link #toString()}
+     */
+    private String extraIngredients() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < requirements.size(); i++) {
+            int id = requirements.getId(i);
+            if (id < Ingredient.values().length) continue;
+            builder.append(", ").append(IngredientRegistry.getName(id)).append('=').append(requirements.getAmount(i));
+        }
+        return builder.toString();
+    }
+
     /**
      * Compares this Recipe with another one
      * @param o Another object (potentially a Recipe)
@@ -206,21 +282,15 @@ public class Recipe {
 
         Recipe recipe = (Recipe) o;
 
-        return getName().equals(recipe.getName());
+        return hash == recipe.hash && name.equals(recipe.name);
     }
 
     /**
-     * Calculates a hash code based on all the properties
+     * Returns the hash code, based on the name like {@link #equals(Object)}
      * @return the hash code
      */
     @Override
     public int hashCode() {
-        int result = getName().hashCode();
-        result = 31 * result + getPrice().hashCode();
-        result = 31 * result + getAmountCoffee();
-        result = 31 * result + getAmountMilk();
-        result = 31 * result + getAmountChocolate();
-        result = 31 * result + getAmountSugar();
-        return result;
+        return hash;
     }
 }
@@ -1,95 +1,280 @@
 package com.redi.j2.coffeemaker;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * A catalog of Recipes
+ * A catalog of Recipes.
+ * Recipes are indexed by name, so finding a Recipe does not depend on the size of the catalog.
+ * The catalog is copy-on-write: every change publishes a new immutable version,
+ * so readers never lock and always see a consistent catalog, even while it is being edited.
+ * A reader that needs more than one Recipe from the same version, like a batch of orders,
+ * should read them from a {@link #snapshot()}. Changes to many Recipes at once, like
+ * {@link #updateRecipes(Collection)}, publish a single version, so no reader sees them half done.
+ * <p>
+ * The price of lock-free reads is paid by the writers: every change copies the list and the index of
+ * the catalog, so it takes time proportional to the size of the catalog. Adding thousands of Recipes
+ * one by one takes quadratic time, so many Recipes should be added or updated with
+ * {@link #addRecipes(Collection)} and {@link #updateRecipes(Collection)}, which copy the catalog once.
  */
 public class RecipeBook {
 
     /**
-     * Defines the maximum amount of Recipes this catalog can have
+     * Defines the default maximum amount of Recipes this catalog can have
      */
     public static final int MAX_RECIPES = 4;
 
     /**
-     * The list of Recipes
+     * The maximum amount of Recipes this catalog can have
      */
-    private final List<Recipe> recipes;
+    private final int capacity;
+
+    /**
+     * The current version of the catalog. It is replaced, never modified.
+     */
+    private volatile Snapshot catalog;
+
+    /**
+     * Who is notified of the changes. It is replaced, never modified, so it can be read without locking.
+     */
+    private volatile CatalogListener[] listeners = new CatalogListener[0];
 
     /**
      * Getter for the list of Recipes
-     * @return the list of Recipes
+     * @return an unmodifiable list of Recipes, in the order they were added
      */
     public List<Recipe> getRecipes() {
-        return recipes;
+        return catalog.recipes;
     }
 
     /**
-     * Default constructor
+     * Getter for the current version of the catalog. It never changes, so all the Recipes read from it
+     * belong to the same version, and reading it never waits for writers.
+     * @return the current version of the catalog
+     */
+    public Snapshot snapshot() {
+        return catalog;
+    }
+
+    /**
+     * Getter for the maximum amount of Recipes
+     * @return the capacity of the catalog
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Default constructor, for a catalog with up to {@link #MAX_RECIPES} Recipes
      */
     public RecipeBook() {
-        recipes = new ArrayList<>();
+        this(MAX_RECIPES);
+    }
+
+    /**
+     * Parameterized constructor
+     * @param capacity the maximum amount of Recipes this catalog can have
+     */
+    public RecipeBook(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative");
+        }
+        this.capacity = capacity;
+        this.catalog = new Snapshot(0, new ArrayList<>(), new HashMap<>());
     }
 
     /**
      * Adds a new recipe to the catalog.
      * It does not allow duplicates, and controls the maximum size of the list.
+     * It copies the whole catalog, see {@link #addRecipes(Collection)} to add many Recipes.
      * @param newRecipe A new recipe
      * @return true if added the Recipe, false otherwise
      */
-    public boolean addRecipe(Recipe newRecipe) {
-        if (recipes.contains(newRecipe)) {
+    public synchronized boolean addRecipe(Recipe newRecipe) {
+        Snapshot current = catalog;
+        if (current.byName.containsKey(newRecipe.getName())) {
             return false;
         }
-        if (recipes.size() == MAX_RECIPES) {
+        if (current.recipes.size() >= capacity) {
             return false;
         }
+        List<Recipe> recipes = new ArrayList<>(current.recipes);
         recipes.add(newRecipe);
+        Map<String, Recipe> byName = new HashMap<>(current.byName);
+        byName.put(newRecipe.getName(), newRecipe);
+        publish(recipes, byName);
+        for (CatalogListener listener : listeners) listener.recipeAdded(newRecipe);
         return true;
     }
 
     /**
-     * Removes a recipe by a given name
+     * Adds many Recipes to the catalog, publishing a single new version of it.
+     * Adding them one by one would copy the whole catalog for each Recipe.
+     * Recipes with a name already in the catalog, and Recipes beyond its capacity, are skipped.
+     * @param newRecipes the new Recipes
+     * @return the Recipes that were added, in order
+     */
+    public synchronized List<Recipe> addRecipes(Collection<Recipe> newRecipes) {
+        Snapshot current = catalog;
+        List<Recipe> recipes = new ArrayList<>(current.recipes.size() + newRecipes.size());
+        recipes.addAll(current.recipes);
+        Map<String, Recipe> byName = new HashMap<>(current.byName);
+        List<Recipe> added = new ArrayList<>();
+        for (Recipe recipe : newRecipes) {
+            if (recipes.size() >= capacity) break;
+            if (byName.putIfAbsent(recipe.getName(), recipe) != null) continue;
+            recipes.add(recipe);
+            added.add(recipe);
+        }
+        if (added.isEmpty()) return added;
+        publish(recipes, byName);
+        for (CatalogListener listener : listeners) {
+            for (Recipe recipe : added) listener.recipeAdded(recipe);
+        }
+        return added;
+    }
+
+    /**
+     * Removes a recipe by a given name. It copies the whole catalog.
      * @param name the name of the Recipe to remove
      * @return true if the Recipe was found and removed, false otherwise
      */
-    public boolean removeRecipe(String name) {
-        for (Recipe r : recipes) {
-            if (r.getName().equals(name)) {
-                return recipes.remove(r);
-            }
+    public synchronized boolean removeRecipe(String name) {
+        Snapshot current = catalog;
+        Recipe existing = current.byName.get(name);
+        if (existing == null) {
+            return false;
+        }
+        // copied in one pass, skipping the removed Recipe, instead of copied and then searched and shifted
+        List<Recipe> recipes = new ArrayList<>(current.recipes.size() - 1);
+        for (Recipe recipe : current.recipes) {
+            if (recipe != existing) recipes.add(recipe);
         }
-        return false;
+        Map<String, Recipe> byName = new HashMap<>(current.byName);
+        byName.remove(name);
+        publish(recipes, byName);
+        for (CatalogListener listener : listeners) listener.recipeRemoved(existing);
+        return true;
     }
 
     /**
      * Updates a given Recipe. It finds the corresponding recipe by its name.
+     * It copies the whole catalog, see {@link #updateRecipes(Collection)} to update many Recipes.
      * @param recipe the recipe object with all the information
      * @return true if the Recipe was found and updated, false otherwise
      */
-    public boolean updateRecipe(Recipe recipe) {
-        for (int i=0; i<recipes.size(); i++) {
-            if (recipes.get(i).getName().equals(recipe.getName())) {
-                recipes.set(i, recipe);
-                return true;
-            }
+    public synchronized boolean updateRecipe(Recipe recipe) {
+        Snapshot current = catalog;
+        Recipe existing = current.byName.get(recipe.getName());
+        if (existing == null) {
+            return false;
         }
-        return false;
+        List<Recipe> recipes = new ArrayList<>(current.recipes);
+        recipes.set(recipes.indexOf(existing), recipe);
+        Map<String, Recipe> byName = new HashMap<>(current.byName);
+        byName.put(recipe.getName(), recipe);
+        publish(recipes, byName);
+        for (CatalogListener listener : listeners) listener.recipeUpdated(recipe);
+        return true;
     }
 
     /**
-     * Searches for a Recipe in the list
+     * Updates many Recipes, publishing a single new version of the catalog.
+     * Readers see either all the updates or none of them, and are never blocked while they are applied.
+     * Recipes with a name that is not in the catalog are skipped.
+     * @param changedRecipes the Recipes with all the new information
+     * @return the Recipes that were updated, in order
+     */
+    public synchronized List<Recipe> updateRecipes(Collection<Recipe> changedRecipes) {
+        Snapshot current = catalog;
+        Map<String, Recipe> byName = new HashMap<>(current.byName);
+        List<Recipe> updated = new ArrayList<>();
+        for (Recipe recipe : changedRecipes) {
+            if (byName.replace(recipe.getName(), recipe) != null) updated.add(recipe);
+        }
+        if (updated.isEmpty()) return updated;
+        List<Recipe> recipes = new ArrayList<>(current.recipes.size());
+        for (Recipe recipe : current.recipes) {
+            recipes.add(byName.get(recipe.getName()));
+        }
+        publish(recipes, byName);
+        for (CatalogListener listener : listeners) {
+            for (Recipe recipe : updated) listener.recipeUpdated(recipe);
+        }
+        return updated;
+    }
+
+    /**
+     * Searches for a Recipe in the catalog
      * @param name the name of the Recipe
      * @return the Recipe, if found, or null otherwise
      */
     public Recipe getRecipe(String name) {
-        for (Recipe r : recipes) {
-            if (r.getName().equals(name)) {
-                return r;
-            }
+        return catalog.byName.get(name);
+    }
+
+    /**
+     * Registers a listener to be notified of every change from now on
+     * @param listener the listener
+     */
+    public synchronized void addListener(CatalogListener listener) {
+        CatalogListener[] newListeners = Arrays.copyOf(listeners, listeners.length + 1);
+        newListeners[listeners.length] = listener;
+        listeners = newListeners;
+    }
+
+    /**
+     * Replaces the catalog with a new version. Must be called while holding this catalog.
+     */
+    private void publish(List<Recipe> recipes, Map<String, Recipe> byName) {
+        catalog = new Snapshot(catalog.version + 1, recipes, byName);
+    }
+
+    /**
+     * One immutable version of the catalog: the Recipes in order, and the same Recipes indexed by name
+     */
+    public static final class Snapshot {
+
+        private final long version;
+
+        private final List<Recipe> recipes;
+
+        private final Map<String, Recipe> byName;
+
+        private Snapshot(long version, List<Recipe> recipes, Map<String, Recipe> byName) {
+            this.version = version;
+            this.recipes = Collections.unmodifiableList(recipes);
+            this.byName = byName;
+        }
+
+        /**
+         * Getter for the version. Every change to the catalog publishes a version one higher.
+         * @return the version, 0 for a new catalog
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Getter for the list of Recipes
+         * @return an unmodifiable list of Recipes, in the order they were added
+         */
+        public List<Recipe> getRecipes() {
+            return recipes;
+        }
+
+        /**
+         * Searches for a Recipe in this version
+         * @param name the name of the Recipe
+         * @return the Recipe, if found, or null otherwise
+         */
+        public Recipe getRecipe(String name) {
+            return byName.get(name);
         }
-        return null;
     }
 }
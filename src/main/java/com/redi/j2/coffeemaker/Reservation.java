@@ -0,0 +1,119 @@
+package com.redi.j2.coffeemaker;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingredients held for a Recipe that was paid but not made yet.
+ * <p>
+ * A reservation starts {@link State#ACTIVE}, and ends only once: committed when the Recipe is made,
+ * cancelled when the order is dropped, or expired when its lease runs out first.
+ * Reservations are created by {@link CoffeeMaker#reserve}.
+ */
+public final class Reservation {
+
+    /**
+     * Where a reservation is in its life
+     */
+    public enum State {
+
+        /**
+         * The ingredients are held, and can still be used to make the Recipe
+         */
+        ACTIVE,
+
+        /**
+         * The Recipe was made with the ingredients
+         */
+        COMMITTED,
+
+        /**
+         * The order was dropped, and the ingredients went back to the stock
+         */
+        CANCELLED,
+
+        /**
+         * The lease ran out before the Recipe was made, and the ingredients went back to the stock
+         */
+        EXPIRED
+    }
+
+    /**
+     * The reservations of the machine that made this one
+     */
+    private final Reservations owner;
+
+    private final Recipe recipe;
+
+    private final long expiresAtNanos;
+
+    private State state = State.ACTIVE;
+
+    /**
+     * Parameterized constructor
+     * @param owner the reservations of the machine that holds the ingredients
+     * @param recipe the Recipe whose ingredients are held
+     * @param expiresAtNanos when the lease runs out, from {@link System#nanoTime()}
+     */
+    Reservation(Reservations owner, Recipe recipe, long expiresAtNanos) {
+        this.owner = owner;
+        this.recipe = recipe;
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    /**
+     * Getter for the Recipe
+     * @return the Recipe, as it was when the reservation was made
+     */
+    public Recipe getRecipe() {
+        return recipe;
+    }
+
+    /**
+     * Getter for the state
+     * @return where the reservation is in its life
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Calculates how long the lease still lasts
+     * @param unit the unit of the result
+     * @return the remaining time, or 0 if the lease ran out
+     */
+    public long getRemainingLease(TimeUnit unit) {
+        return unit.convert(Math.max(0, expiresAtNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Getter for the owner
+     * @return the reservations of the machine that made this one
+     */
+    Reservations getOwner() {
+        return owner;
+    }
+
+    /**
+     * Getter for when the lease runs out
+     * @return the time, from {@link System#nanoTime()}
+     */
+    long getExpiresAtNanos() {
+        return expiresAtNanos;
+    }
+
+    /**
+     * Ends the reservation, if it is still active
+     * @param end how it ends
+     * @return true if it was active, false if it had already ended
+     */
+    synchronized boolean end(State end) {
+        if (state != State.ACTIVE) return false;
+        state = end;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "Reservation{recipe=" + recipe.getName() + ", state=" + getState() + "}";
+    }
+}
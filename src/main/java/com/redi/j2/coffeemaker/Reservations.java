@@ -0,0 +1,145 @@
+package com.redi.j2.coffeemaker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The active reservations of a machine, and the thread that releases them when their lease runs out.
+ * <p>
+ * Leases are tracked by a {@link TimingWheel} with {@link #TICK_MILLIS} ms ticks, checked by a single reaper
+ * thread, instead of one timer per reservation. The reaper only runs while there are active reservations,
+ * so a machine that does not use them has no extra thread.
+ */
+final class Reservations {
+
+    /**
+     * How precise the expiry is: a lease is released at most this late
+     */
+    static final long TICK_MILLIS = 10;
+
+    /**
+     * How many ticks make one turn of the wheel
+     */
+    private static final int TICKS_PER_TURN = 512;
+
+    private final Inventory inventory;
+
+    private final TimingWheel<Reservation> wheel =
+            new TimingWheel<>(TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS), TICKS_PER_TURN, System.nanoTime());
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    /**
+     * The thread that expires leases, or null when there is none. Guarded by this.
+     */
+    private Thread reaper;
+
+    /**
+     * Parameterized constructor
+     * @param inventory where the ingredients are reserved
+     */
+    Reservations(Inventory inventory) {
+        this.inventory = inventory;
+    }
+
+    /**
+     * Reserves the ingredients of a Recipe, if there are enough of all of them
+     * @param recipe the Recipe
+     * @param leaseNanos how long the ingredients are held
+     * @return the reservation, or null if there were not enough ingredients
+     */
+    Reservation reserve(Recipe recipe, long leaseNanos) {
+        if (!inventory.reserve(recipe.getRequirements())) return null;
+        Reservation reservation = new Reservation(this, recipe, System.nanoTime() + leaseNanos);
+        active.incrementAndGet();
+        wheel.schedule(reservation, reservation.getExpiresAtNanos());
+        startReaper();
+        return reservation;
+    }
+
+    /**
+     * Ends a reservation so its ingredients can be used, unless it already ended or its lease ran out.
+     * The caller must then consume the reserved ingredients.
+     * @param reservation the reservation
+     * @return true if the ingredients can be used, false otherwise
+     * @throws IllegalArgumentException if the reservation was made by another machine
+     */
+    boolean commit(Reservation reservation) {
+        checkOwner(reservation);
+        if (System.nanoTime() - reservation.getExpiresAtNanos() >= 0) {
+            // the reaper may not have seen it yet, but the lease is over
+            expire(reservation);
+            return false;
+        }
+        if (!reservation.end(Reservation.State.COMMITTED)) return false;
+        active.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * Ends a reservation and releases its ingredients, unless it already ended
+     * @param reservation the reservation
+     * @return true if it was cancelled, false if it had already ended
+     * @throws IllegalArgumentException if the reservation was made by another machine
+     */
+    boolean cancel(Reservation reservation) {
+        checkOwner(reservation);
+        return release(reservation, Reservation.State.CANCELLED);
+    }
+
+    /**
+     * Getter for the amount of active reservations
+     * @return the reservations that were not committed, cancelled or expired yet
+     */
+    int getActive() {
+        return active.get();
+    }
+
+    /**
+     * Makes sure a reservation holds ingredients of this machine, before it is ended
+     */
+    private void checkOwner(Reservation reservation) {
+        if (reservation.getOwner() != this) {
+            throw new IllegalArgumentException("The reservation was made by another machine: " + reservation);
+        }
+    }
+
+    private void expire(Reservation reservation) {
+        release(reservation, Reservation.State.EXPIRED);
+    }
+
+    private boolean release(Reservation reservation, Reservation.State end) {
+        if (!reservation.end(end)) return false;
+        inventory.release(reservation.getRecipe().getRequirements());
+        active.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * Starts the reaper, if it is not running
+     */
+    private synchronized void startReaper() {
+        if (reaper != null) return;
+        reaper = new Thread(this::reap, "reservation-reaper");
+        reaper.setDaemon(true);
+        reaper.start();
+    }
+
+    /**
+     * What the reaper does: advance the wheel every tick, until there are no active reservations
+     */
+    private void reap() {
+        long tickNanos = TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+        while (true) {
+            LockSupport.parkNanos(tickNanos);
+            wheel.advance(System.nanoTime(), this::expire);
+            synchronized (this) {
+                if (active.get() == 0) {
+                    reaper = null;
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.redi.j2.coffeemaker;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records what was sold by a coffee maker machine.
+ * Prices are kept as a whole number of cents, and every sale is added to striped counters
+ * per Recipe and per period of time, so recording never contends and the reports
+ * only depend on the amount of Recipes and periods, not on the amount of sales.
+ */
+public class SalesLedger {
+
+    /**
+     * Defines the default length of each reporting period
+     */
+    public static final Duration DEFAULT_PERIOD = Duration.ofHours(1);
+
+    private final Clock clock;
+
+    private final long periodMillis;
+
+    private final ConcurrentHashMap<String, Sales> byRecipe = new ConcurrentHashMap<>();
+
+    /**
+     * Sales by period, keyed by the index of the period since the epoch
+     */
+    private final ConcurrentHashMap<Long, Sales> byPeriod = new ConcurrentHashMap<>();
+
+    private final Sales total = new Sales();
+
+    /**
+     * Default constructor, with periods of {@link #DEFAULT_PERIOD}
+     */
+    public SalesLedger() {
+        this(Clock.systemUTC(), DEFAULT_PERIOD);
+    }
+
+    /**
+     * Parameterized constructor
+     * @param clock the clock used to know the period of each sale
+     * @param period the length of each reporting period
+     */
+    public SalesLedger(Clock clock, Duration period) {
+        if (period.toMillis() <= 0) {
+            throw new IllegalArgumentException("The period must be at least one millisecond");
+        }
+        this.clock = clock;
+        this.periodMillis = period.toMillis();
+    }
+
+    /**
+     * Records the sale of a Recipe, at its current price
+     * @param recipe the Recipe sold
+     */
+    public void record(Recipe recipe) {
+        record(recipe, 1);
+    }
+
+    /**
+     * Records many sales of the same Recipe, at its current price
+     * @param recipe the Recipe sold
+     * @param count how many were sold
+     */
+    public void record(Recipe recipe, long count) {
+        long cents = recipe.getPriceInCents() * count;
+        sales(byRecipe, recipe.getName()).add(count, cents);
+        sales(byPeriod, clock.millis() / periodMillis).add(count, cents);
+        total.add(count, cents);
+    }
+
+    /**
+     * Getter for the total amount of sales
+     * @return how many Recipes were sold
+     */
+    public long getTotalSales() {
+        return total.count.sum();
+    }
+
+    /**
+     * Getter for the total revenue
+     * @return the revenue of all the sales, in cents
+     */
+    public long getTotalRevenueCents() {
+        return total.cents.sum();
+    }
+
+    /**
+     * Reports the amount of sales of each Recipe
+     * @return how many of each Recipe were sold, by Recipe name
+     */
+    public Map<String, Long> getSalesByRecipe() {
+        Map<String, Long> report = new HashMap<>();
+        byRecipe.forEach((name, sales) -> report.put(name, sales.count.sum()));
+        return report;
+    }
+
+    /**
+     * Reports the revenue of each Recipe
+     * @return the revenue in cents, by Recipe name
+     */
+    public Map<String, Long> getRevenueByRecipe() {
+        Map<String, Long> report = new HashMap<>();
+        byRecipe.forEach((name, sales) -> report.put(name, sales.cents.sum()));
+        return report;
+    }
+
+    /**
+     * Reports the revenue of each period
+     * @return the revenue in cents, by the start of each period, in chronological order
+     */
+    public SortedMap<Instant, Long> getRevenueByPeriod() {
+        SortedMap<Instant, Long> report = new TreeMap<>();
+        byPeriod.forEach((period, sales) -> report.put(Instant.ofEpochMilli(period * periodMillis), sales.cents.sum()));
+        return report;
+    }
+
+    private static <K> Sales sales(ConcurrentHashMap<K, Sales> map, K key) {
+        Sales sales = map.get(key);
+        return sales != null ? sales : map.computeIfAbsent(key, k -> new Sales());
+    }
+
+    /**
+     * The amount of sales and their revenue, for one Recipe, one period, or all of them
+     */
+    private static final class Sales {
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder cents = new LongAdder();
+
+        private void add(long count, long cents) {
+            this.count.add(count);
+            this.cents.add(cents);
+        }
+    }
+}
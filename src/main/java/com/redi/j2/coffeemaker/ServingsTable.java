@@ -0,0 +1,259 @@
+package com.redi.j2.coffeemaker;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Knows how many servings of each Recipe can still be made with the current inventory.
+ * <p>
+ * The servings of a Recipe are the minimum, over the ingredients it uses, of the amount in stock
+ * divided by the amount required. They are kept up to date on every change of the inventory:
+ * for each ingredient, the table knows the Recipes that use it, and a change only updates those Recipes,
+ * and only when the servings that ingredient allows actually changed. Reading the servings, or the whole
+ * table, never calculates anything, unless the catalog changed since the last read.
+ */
+public class ServingsTable implements InventoryListener {
+
+    /**
+     * The servings of a Recipe that does not use any ingredient
+     */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final RecipeBook catalog;
+
+    /**
+     * A copy of the amounts in the inventory, updated on every change. Guarded by this table.
+     */
+    private int[] stock = new int[0];
+
+    /**
+     * The list of Recipes the entries were built from
+     */
+    private volatile List<Recipe> indexedRecipes;
+
+    /**
+     * The entries in the order of the catalog. Replaced when the table is rebuilt.
+     */
+    private volatile RecipeServings[] ordered = new RecipeServings[0];
+
+    /**
+     * The entries by Recipe name. Replaced when the table is rebuilt.
+     */
+    private volatile Map<String, RecipeServings> entries = new HashMap<>();
+
+    /**
+     * The entries of the Recipes using each ingredient. Guarded by this table.
+     */
+    private RecipeServings[][] byIngredient = new RecipeServings[0][];
+
+    /**
+     * The table returned to readers, always showing the current servings
+     */
+    private final Map<String, Integer> table = new TableView();
+
+    /**
+     * Parameterized constructor. The table must also be added as a listener of the inventory.
+     * @param catalog the catalog of Recipes
+     */
+    public ServingsTable(RecipeBook catalog) {
+        this.catalog = catalog;
+    }
+
+    @Override
+    public synchronized void attached(int[] amounts) {
+        stock = amounts.clone();
+        rebuild(catalog.getRecipes());
+    }
+
+    @Override
+    public synchronized void amountChanged(int ingredient, int oldAmount, int newAmount) {
+        if (ingredient >= stock.length) stock = Arrays.copyOf(stock, ingredient + 1);
+        stock[ingredient] = newAmount;
+        if (ingredient >= byIngredient.length) return;
+        for (RecipeServings entry : byIngredient[ingredient]) {
+            entry.amountChanged(ingredient, oldAmount, newAmount);
+        }
+    }
+
+    /**
+     * Getter for how many more servings of a Recipe can be made
+     * @param recipeName the name of the Recipe
+     * @return the amount of servings, {@link #UNLIMITED} if the Recipe uses no ingredients,
+     * or 0 if the Recipe does not exist
+     */
+    public int getServings(String recipeName) {
+        RecipeServings entry = current().get(recipeName);
+        return (entry == null) ? 0 : entry.servings;
+    }
+
+    /**
+     * Getter for how many more servings of each Recipe can be made
+     * @return an unmodifiable, live view of the servings by Recipe name, in the order of the catalog
+     */
+    public Map<String, Integer> getTable() {
+        return table;
+    }
+
+    /**
+     * Rebuilds the table if the catalog changed since it was built
+     * @return the entries by Recipe name
+     */
+    private Map<String, RecipeServings> current() {
+        if (catalog.getRecipes() != indexedRecipes) {
+            synchronized (this) {
+                List<Recipe> recipes = catalog.getRecipes();
+                if (recipes != indexedRecipes) rebuild(recipes);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Builds the table from scratch, for a new version of the catalog
+     */
+    private void rebuild(List<Recipe> recipes) {
+        int size = stock.length;
+        for (Recipe recipe : recipes) {
+            size = Math.max(size, recipe.getRequirements().maxId() + 1);
+        }
+        stock = Arrays.copyOf(stock, size);
+
+        List<List<RecipeServings>> users = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            users.add(new ArrayList<>());
+        }
+        RecipeServings[] newOrdered = new RecipeServings[recipes.size()];
+        Map<String, RecipeServings> newEntries = new HashMap<>();
+        for (int r = 0; r < newOrdered.length; r++) {
+            RecipeServings entry = new RecipeServings(recipes.get(r));
+            entry.recalculate();
+            for (int used : entry.used) {
+                users.get(used).add(entry);
+            }
+            newOrdered[r] = entry;
+            newEntries.put(entry.name, entry);
+        }
+
+        RecipeServings[][] newByIngredient = new RecipeServings[size][];
+        for (int i = 0; i < size; i++) {
+            newByIngredient[i] = users.get(i).toArray(new RecipeServings[0]);
+        }
+        byIngredient = newByIngredient;
+        ordered = newOrdered;
+        entries = newEntries;
+        indexedRecipes = recipes;
+    }
+
+    /**
+     * The servings of one Recipe
+     */
+    private final class RecipeServings {
+
+        private final String name;
+
+        /**
+         * The ids of the ingredients used by the Recipe
+         */
+        private final int[] used;
+
+        /**
+         * The required amounts of the ingredients used, in the same order
+         */
+        private final int[] required;
+
+        private volatile int servings;
+
+        private RecipeServings(Recipe recipe) {
+            name = recipe.getName();
+            used = recipe.getRequirements().ids();
+            required = recipe.getRequirements().amounts();
+        }
+
+        /**
+         * Updates the servings after a change of one of the used ingredients.
+         * Only a change of the servings that ingredient allows can change the servings of the Recipe,
+         * and only a rise of the scarcest ingredient needs to look at the other ingredients.
+         */
+        private void amountChanged(int ingredient, int oldAmount, int newAmount) {
+            int amount = required[Arrays.binarySearch(used, ingredient)];
+            int oldServings = Math.max(0, oldAmount) / amount;
+            int newServings = Math.max(0, newAmount) / amount;
+            if (newServings == oldServings) return;
+            if (newServings < servings) servings = newServings;
+            else if (oldServings == servings) recalculate();
+        }
+
+        /**
+         * Calculates the servings from all the used ingredients
+         */
+        private void recalculate() {
+            int min = UNLIMITED;
+            for (int u = 0; u < used.length; u++) {
+                min = Math.min(min, Math.max(0, stock[used[u]]) / required[u]);
+            }
+            servings = min;
+        }
+    }
+
+    /**
+     * The servings by Recipe name, read from the current entries every time
+     */
+    private final class TableView extends AbstractMap<String, Integer> {
+
+        @Override
+        public Integer get(Object key) {
+            RecipeServings entry = current().get(key);
+            return (entry == null) ? null : entry.servings;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return current().containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            current();
+            return ordered.length;
+        }
+
+        @Override
+        public Set<Map.Entry<String, Integer>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<String, Integer>> iterator() {
+                    current();
+                    RecipeServings[] snapshot = ordered;
+                    return new Iterator<>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < snapshot.length;
+                        }
+
+                        @Override
+                        public Map.Entry<String, Integer> next() {
+                            if (next >= snapshot.length) throw new NoSuchElementException();
+                            RecipeServings entry = snapshot[next++];
+                            return new SimpleImmutableEntry<>(entry.name, entry.servings);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return TableView.this.size();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.redi.j2.coffeemaker;
+
+/**
+ * Tells that the stock watched by a {@link StockWatch} crossed its threshold
+ */
+public final class StockAlert {
+
+    private final StockWatch watch;
+
+    private final boolean low;
+
+    private final int amount;
+
+    /**
+     * Parameterized constructor
+     * @param watch the watch whose threshold was crossed
+     * @param low true if the stock went below the threshold, false if it went back to it or above it
+     * @param amount the amount of the ingredient, or the servings of the Recipe, right after the crossing
+     */
+    StockAlert(StockWatch watch, boolean low, int amount) {
+        this.watch = watch;
+        this.low = low;
+        this.amount = amount;
+    }
+
+    /**
+     * Getter for the watch
+     * @return the watch whose threshold was crossed
+     */
+    public StockWatch getWatch() {
+        return watch;
+    }
+
+    /**
+     * Tells which way the threshold was crossed
+     * @return true if the stock went below the threshold, false if it went back to it or above it
+     */
+    public boolean isLow() {
+        return low;
+    }
+
+    /**
+     * Getter for the stock right after the crossing. It may have changed again by the time the alert is received.
+     * @return the amount of the ingredient, or the servings of the Recipe
+     */
+    public int getAmount() {
+        return amount;
+    }
+
+    @Override
+    public String toString() {
+        return "StockAlert{" + watch + (low ? " low" : " restocked") + " at " + amount + "}";
+    }
+}
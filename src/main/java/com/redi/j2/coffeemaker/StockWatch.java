@@ -0,0 +1,119 @@
+package com.redi.j2.coffeemaker;
+
+import java.util.function.Consumer;
+
+/**
+ * A threshold on the stock of a machine, like "less than 20 units of milk" or "fewer than 5 Cappuccinos left".
+ * The watch is low while the stock is below its threshold, and its action receives a {@link StockAlert}
+ * only when the stock crosses the threshold, not on every change.
+ */
+public final class StockWatch {
+
+    private final int ingredient;
+
+    private final String recipeName;
+
+    private final int threshold;
+
+    private final Consumer<StockAlert> action;
+
+    /**
+     * Whether the stock is below the threshold
+     */
+    private volatile boolean low;
+
+    /**
+     * Whether the watch still receives alerts
+     */
+    private volatile boolean active = true;
+
+    /**
+     * How many reasons the watch has to be low: the ingredients below their threshold, plus one if the watched
+     * Recipe is not in the catalog. -1 until the watch is first evaluated. Guarded by the {@link StockWatchers}.
+     */
+    int missing = -1;
+
+    /**
+     * Parameterized constructor
+     * @param ingredient the id of the watched ingredient, or -1 for a watch on a Recipe
+     * @param recipeName the name of the watched Recipe, or null for a watch on an ingredient
+     * @param threshold the amount or servings below which the watch is low
+     * @param action what to do with the alerts
+     */
+    StockWatch(int ingredient, String recipeName, int threshold, Consumer<StockAlert> action) {
+        this.ingredient = ingredient;
+        this.recipeName = recipeName;
+        this.threshold = threshold;
+        this.action = action;
+    }
+
+    /**
+     * Getter for the watched ingredient
+     * @return the id of the ingredient in the {@link IngredientRegistry}, or -1 for a watch on a Recipe
+     */
+    public int getIngredient() {
+        return ingredient;
+    }
+
+    /**
+     * Getter for the watched Recipe
+     * @return the name of the Recipe, or null for a watch on an ingredient
+     */
+    public String getRecipeName() {
+        return recipeName;
+    }
+
+    /**
+     * Getter for the threshold
+     * @return the amount of the ingredient, or the servings of the Recipe, below which the watch is low
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Tells if the stock is below the threshold right now
+     * @return true if the watch is low
+     */
+    public boolean isLow() {
+        return low;
+    }
+
+    /**
+     * Tells if the watch still receives alerts
+     * @return false once the watch was removed
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Setter for the state, when the watch is evaluated
+     * @param low whether the stock is below the threshold
+     */
+    void setLow(boolean low) {
+        this.low = low;
+    }
+
+    /**
+     * Stops the alerts of this watch, including the ones not delivered yet
+     */
+    void deactivate() {
+        active = false;
+    }
+
+    /**
+     * Delivers an alert, unless the watch was removed meanwhile
+     * @param alert the alert
+     */
+    void deliver(StockAlert alert) {
+        if (active) action.accept(alert);
+    }
+
+    @Override
+    public String toString() {
+        return (recipeName != null)
+                ? "StockWatch{" + recipeName + " servings < " + threshold + "}"
+                : "StockWatch{" + IngredientRegistry.getName(ingredient) + " < " + threshold + "}";
+    }
+}
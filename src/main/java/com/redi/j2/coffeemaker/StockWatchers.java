@@ -0,0 +1,322 @@
+package com.redi.j2.coffeemaker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the {@link StockWatch}es of a machine, and alerts them when the stock crosses their thresholds.
+ * <p>
+ * A watch on the servings of a Recipe is low when any of its ingredients is below the servings times
+ * the amount the Recipe requires, so every watch becomes one threshold per ingredient, like in the
+ * {@link AvailabilityIndex}. For each ingredient, the thresholds are sorted, and the position of the current
+ * amount among them is kept. A change of the inventory moves that position, so it costs the same no matter
+ * how many watches there are, plus the thresholds it actually crossed.
+ * <p>
+ * The alerts are queued while the inventory is held, and delivered in that order by an executor,
+ * so the actions of the watches never slow down the machine.
+ */
+public class StockWatchers implements InventoryListener, CatalogListener {
+
+    private final RecipeBook catalog;
+
+    /**
+     * Runs the deliveries of the alerts
+     */
+    private final Executor executor;
+
+    /**
+     * A copy of the amounts in the inventory, updated on every change
+     */
+    private int[] stock = new int[0];
+
+    /**
+     * Every registered watch, in the order they were added
+     */
+    private final List<StockWatch> watches = new ArrayList<>();
+
+    /**
+     * The Recipes of the watches on servings, as they were when the index was built. A null value is a Recipe
+     * that is not in the catalog.
+     */
+    private Map<String, Recipe> watchedRecipes = new HashMap<>();
+
+    /**
+     * The watches using each ingredient, by threshold
+     */
+    private List<ThresholdIndex<StockWatch>> byIngredient = new ArrayList<>();
+
+    /**
+     * The position of the current amount of each ingredient among its thresholds
+     */
+    private int[] positions = new int[0];
+
+    /**
+     * The alerts not delivered yet
+     */
+    private final Queue<StockAlert> alerts = new ConcurrentLinkedQueue<>();
+
+    /**
+     * How many times a delivery was asked for since the running one started, 0 if none is running
+     */
+    private final AtomicInteger pendingDeliveries = new AtomicInteger();
+
+    /**
+     * Updates the amount of reasons a watch has to be low when one of its thresholds is crossed
+     */
+    private final ThresholdIndex.Crossing<StockWatch> update = (watch, reached) -> {
+        if (reached) {
+            if (--watch.missing == 0) crossed(watch, false);
+        } else {
+            if (watch.missing++ == 0) crossed(watch, true);
+        }
+    };
+
+    /**
+     * Parameterized constructor, delivering the alerts with the shared pool of daemon threads of the
+     * {@link EventPublisher}. The watchers must also be added as a listener of the inventory and of the catalog.
+     * @param catalog the catalog of Recipes
+     */
+    public StockWatchers(RecipeBook catalog) {
+        this(catalog, EventPublisher.DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * Parameterized constructor. The watchers must also be added as a listener of the inventory and of the catalog.
+     * @param catalog the catalog of Recipes
+     * @param executor runs the deliveries of the alerts. It must not run them on the calling thread.
+     */
+    public StockWatchers(RecipeBook catalog, Executor executor) {
+        this.catalog = catalog;
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    /**
+     * Watches the amount of an ingredient
+     * @param ingredient the id of the ingredient in the {@link IngredientRegistry}
+     * @param threshold the amount below which the ingredient is low
+     * @param action what to do when the amount crosses the threshold
+     * @return the watch, low if the amount is already below the threshold
+     */
+    public synchronized StockWatch watchIngredient(int ingredient, int threshold, Consumer<StockAlert> action) {
+        if (ingredient < 0) {
+            throw new IllegalArgumentException("Unknown ingredient id: " + ingredient);
+        }
+        Objects.requireNonNull(action);
+        return add(new StockWatch(ingredient, null, threshold, action));
+    }
+
+    /**
+     * Watches how many servings of a Recipe can still be made.
+     * A Recipe that is not in the catalog has no servings.
+     * @param recipeName the name of the Recipe
+     * @param servings the servings below which the Recipe is low
+     * @param action what to do when the servings cross the threshold
+     * @return the watch, low if the servings are already below the threshold
+     */
+    public synchronized StockWatch watchServings(String recipeName, int servings, Consumer<StockAlert> action) {
+        Objects.requireNonNull(recipeName);
+        Objects.requireNonNull(action);
+        return add(new StockWatch(-1, recipeName, servings, action));
+    }
+
+    /**
+     * Removes a watch. Its alerts not delivered yet are dropped.
+     * @param watch the watch
+     * @return true if the watch was removed, false if it was not registered
+     */
+    public synchronized boolean unwatch(StockWatch watch) {
+        if (!watches.remove(watch)) return false;
+        watch.deactivate();
+        rebuild();
+        return true;
+    }
+
+    /**
+     * Getter for the amount of watches
+     * @return how many watches are registered
+     */
+    public synchronized int size() {
+        return watches.size();
+    }
+
+    @Override
+    public synchronized void attached(int[] amounts) {
+        stock = amounts.clone();
+        rebuild();
+    }
+
+    @Override
+    public synchronized void amountChanged(int ingredient, int oldAmount, int newAmount) {
+        if (ingredient >= stock.length) stock = Arrays.copyOf(stock, ingredient + 1);
+        stock[ingredient] = newAmount;
+        if (ingredient < positions.length) {
+            positions[ingredient] = byIngredient.get(ingredient).move(positions[ingredient], newAmount, update);
+        }
+    }
+
+    @Override
+    public void recipeAdded(Recipe recipe) {
+        recipeChanged(recipe.getName());
+    }
+
+    @Override
+    public void recipeUpdated(Recipe recipe) {
+        recipeChanged(recipe.getName());
+    }
+
+    @Override
+    public void recipeRemoved(Recipe recipe) {
+        recipeChanged(recipe.getName());
+    }
+
+    /**
+     * Rebuilds the index if a watch uses the changed Recipe
+     */
+    private synchronized void recipeChanged(String recipeName) {
+        if (watchedRecipes.containsKey(recipeName)) rebuild();
+    }
+
+    /**
+     * Registers a new watch
+     */
+    private StockWatch add(StockWatch watch) {
+        if (watch.getThreshold() < 1) {
+            throw new IllegalArgumentException("The threshold must be positive");
+        }
+        watches.add(watch);
+        rebuild();
+        return watch;
+    }
+
+    /**
+     * Builds the index from scratch, for new watches or a new version of a watched Recipe.
+     * Watches that were already evaluated are alerted if the new version changed their state.
+     */
+    private void rebuild() {
+        Map<String, Recipe> recipes = new HashMap<>();
+        int size = stock.length;
+        for (StockWatch watch : watches) {
+            if (watch.getRecipeName() == null) {
+                size = Math.max(size, watch.getIngredient() + 1);
+                continue;
+            }
+            Recipe recipe = catalog.getRecipe(watch.getRecipeName());
+            recipes.put(watch.getRecipeName(), recipe);
+            if (recipe != null) size = Math.max(size, recipe.getRequirements().maxId() + 1);
+        }
+        stock = Arrays.copyOf(stock, size);
+        watchedRecipes = recipes;
+
+        List<List<StockWatch>> entries = new ArrayList<>(size);
+        int[][] thresholds = new int[size][0];
+        for (int i = 0; i < size; i++) {
+            entries.add(new ArrayList<>());
+        }
+
+        for (StockWatch watch : watches) {
+            int missing = 0;
+            if (watch.getRecipeName() == null) {
+                int i = watch.getIngredient();
+                addThreshold(entries, thresholds, i, watch, watch.getThreshold());
+                if (stock[i] < watch.getThreshold()) missing++;
+            } else {
+                Recipe recipe = recipes.get(watch.getRecipeName());
+                if (recipe == null) {
+                    missing++;
+                } else {
+                    IngredientAmounts requirements = recipe.getRequirements();
+                    for (int r = 0; r < requirements.size(); r++) {
+                        int i = requirements.getId(r);
+                        int amount = (int) Math.min((long) watch.getThreshold() * requirements.getAmount(r), Integer.MAX_VALUE);
+                        addThreshold(entries, thresholds, i, watch, amount);
+                        if (stock[i] < amount) missing++;
+                    }
+                }
+            }
+            boolean wasLow = watch.missing > 0;
+            boolean evaluated = watch.missing >= 0;
+            watch.missing = missing;
+            if (evaluated && wasLow != (missing > 0)) crossed(watch, missing > 0);
+            else watch.setLow(missing > 0);
+        }
+
+        List<ThresholdIndex<StockWatch>> newByIngredient = new ArrayList<>();
+        int[] newPositions = new int[size];
+        for (int i = 0; i < size; i++) {
+            int[] values = Arrays.copyOf(thresholds[i], entries.get(i).size());
+            ThresholdIndex<StockWatch> index = new ThresholdIndex<>(values, entries.get(i));
+            newByIngredient.add(index);
+            newPositions[i] = index.position(stock[i]);
+        }
+        byIngredient = newByIngredient;
+        positions = newPositions;
+    }
+
+    /**
+     * Adds a watch and its threshold to the ones of an ingredient, growing the array of thresholds if needed
+     */
+    private static void addThreshold(List<List<StockWatch>> entries, int[][] thresholds, int ingredient,
+                                     StockWatch watch, int threshold) {
+        int position = entries.get(ingredient).size();
+        if (position == thresholds[ingredient].length) {
+            thresholds[ingredient] = Arrays.copyOf(thresholds[ingredient], Math.max(4, position * 2));
+        }
+        thresholds[ingredient][position] = threshold;
+        entries.get(ingredient).add(watch);
+    }
+
+    /**
+     * Queues the alert of a watch whose state changed
+     */
+    private void crossed(StockWatch watch, boolean low) {
+        watch.setLow(low);
+        alerts.offer(new StockAlert(watch, low, amountOf(watch)));
+        if (pendingDeliveries.getAndIncrement() == 0) {
+            executor.execute(this::deliverAlerts);
+        }
+    }
+
+    /**
+     * Calculates the amount of the ingredient, or the servings of the Recipe, of a watch
+     */
+    private int amountOf(StockWatch watch) {
+        if (watch.getRecipeName() == null) return stock[watch.getIngredient()];
+        Recipe recipe = watchedRecipes.get(watch.getRecipeName());
+        if (recipe == null) return 0;
+        IngredientAmounts requirements = recipe.getRequirements();
+        int servings = ServingsTable.UNLIMITED;
+        for (int r = 0; r < requirements.size(); r++) {
+            servings = Math.min(servings, Math.max(0, stock[requirements.getId(r)]) / requirements.getAmount(r));
+        }
+        return servings;
+    }
+
+    /**
+     * Delivers the queued alerts until no more deliveries were asked for
+     */
+    private void deliverAlerts() {
+        int pending = 1;
+        do {
+            StockAlert alert;
+            while ((alert = alerts.poll()) != null) {
+                try {
+                    alert.getWatch().deliver(alert);
+                } catch (RuntimeException e) {
+                    // a broken action must not stop the alerts of the other watches
+                    Thread thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                }
+            }
+            pending = pendingDeliveries.addAndGet(-pending);
+        } while (pending != 0);
+    }
+}
@@ -0,0 +1,123 @@
+package com.redi.j2.coffeemaker;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable list of items, each with a threshold amount, sorted by threshold.
+ * When an amount changes, it finds the items whose threshold was crossed with a binary search,
+ * so the cost depends on how many thresholds were crossed, not on how many items there are.
+ * An item is "reached" when the amount is equal to or greater than its threshold.
+ * @param <T> the type of the items
+ */
+final class ThresholdIndex<T> {
+
+    /**
+     * What to do with an item whose threshold was crossed
+     * @param <T> the type of the items
+     */
+    interface Crossing<T> {
+
+        /**
+         * Called for each item whose threshold was crossed
+         * @param item the item
+         * @param reached true if the amount went up to the threshold or above it,
+         *                false if the amount went below the threshold
+         */
+        void crossed(T item, boolean reached);
+    }
+
+    private final int[] thresholds;
+
+    private final Object[] items;
+
+    /**
+     * Parameterized constructor
+     * @param thresholds the threshold of each item
+     * @param items the items, in the same order as the thresholds
+     */
+    ThresholdIndex(int[] thresholds, List<T> items) {
+        // each threshold and its position packed in a long, so they are sorted together without boxing
+        long[] order = new long[thresholds.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = ((long) thresholds[i] << 32) | i;
+        }
+        Arrays.sort(order);
+        this.thresholds = new int[order.length];
+        this.items = new Object[order.length];
+        for (int i = 0; i < order.length; i++) {
+            int position = (int) order[i];
+            this.thresholds[i] = thresholds[position];
+            this.items[i] = items.get(position);
+        }
+    }
+
+    /**
+     * Getter for the amount of items
+     * @return how many items are in the index
+     */
+    int size() {
+        return items.length;
+    }
+
+    /**
+     * Finds the items whose threshold was crossed when the amount changed
+     * @param oldAmount the amount before the change
+     * @param newAmount the amount after the change
+     * @param action what to do with each item whose threshold was crossed
+     */
+    @SuppressWarnings("unchecked")
+    void crossed(int oldAmount, int newAmount, Crossing<T> action) {
+        if (oldAmount == newAmount || items.length == 0) return;
+        boolean reached = newAmount > oldAmount;
+        int low = Math.min(oldAmount, newAmount);
+        int high = Math.max(oldAmount, newAmount);
+        // the thresholds crossed are the ones in (low, high]
+        for (int i = firstAbove(low); i < thresholds.length && thresholds[i] <= high; i++) {
+            action.crossed((T) items[i], reached);
+        }
+    }
+
+    /**
+     * Finds the position of an amount, to be moved later with {@link #move(int, int, Crossing)}
+     * @param amount the amount
+     * @return how many thresholds the amount reached
+     */
+    int position(int amount) {
+        return firstAbove(amount);
+    }
+
+    /**
+     * Moves the position of an amount to a new amount, finding the items whose threshold was crossed on the way.
+     * Unlike {@link #crossed(int, int, Crossing)} it does not search, so a change that crosses no threshold
+     * costs the same no matter how many items there are.
+     * @param position the position of the old amount
+     * @param newAmount the amount after the change
+     * @param action what to do with each item whose threshold was crossed
+     * @return the position of the new amount
+     */
+    @SuppressWarnings("unchecked")
+    int move(int position, int newAmount, Crossing<T> action) {
+        while (position < thresholds.length && thresholds[position] <= newAmount) {
+            action.crossed((T) items[position++], true);
+        }
+        while (position > 0 && thresholds[position - 1] > newAmount) {
+            action.crossed((T) items[--position], false);
+        }
+        return position;
+    }
+
+    /**
+     * Finds the first item with a threshold greater than a value
+     */
+    private int firstAbove(int value) {
+        int low = 0;
+        int high = thresholds.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (thresholds[middle] <= value) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+}
@@ -0,0 +1,130 @@
+package com.redi.j2.coffeemaker;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * A hashed timing wheel: many deadlines, checked by a single thread once per tick.
+ * <p>
+ * The wheel is an array of buckets, one per tick, used again on every turn. An item goes into the bucket
+ * of the tick of its deadline, so scheduling is O(1) whatever the amount of items, and each tick only looks
+ * at one bucket. Items whose deadline is more than one turn away stay in their bucket until their turn comes.
+ * <p>
+ * Any thread can schedule items: they wait in a queue until the next call to {@link #advance}, which moves them
+ * to their buckets. Only one thread at a time should advance the wheel. There is no way to cancel an item;
+ * the caller should ignore expired items that are not pending anymore.
+ * @param <T> the type of the items
+ */
+final class TimingWheel<T> {
+
+    /**
+     * An item, linked to the next item of its bucket
+     */
+    private static final class Node<T> {
+
+        private final T item;
+
+        private final long deadlineTick;
+
+        private Node<T> next;
+
+        Node(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    private final long tickNanos;
+
+    private final long startNanos;
+
+    private final Node<T>[] buckets;
+
+    private final int mask;
+
+    /**
+     * Items scheduled since the last advance
+     */
+    private final ConcurrentLinkedQueue<Node<T>> scheduled = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The last tick whose bucket was checked
+     */
+    private long currentTick;
+
+    /**
+     * Parameterized constructor
+     * @param tickNanos how long a tick is. Deadlines are rounded up to a tick.
+     * @param ticksPerTurn how many buckets the wheel has, rounded up to a power of two
+     * @param startNanos the time of tick 0, from {@link System#nanoTime()}
+     */
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickNanos, int ticksPerTurn, long startNanos) {
+        int size = Integer.highestOneBit(Math.max(1, ticksPerTurn - 1)) << 1;
+        this.tickNanos = tickNanos;
+        this.startNanos = startNanos;
+        this.buckets = (Node<T>[]) new Node<?>[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Schedules an item. Safe to call from any thread.
+     * @param item the item
+     * @param deadlineNanos when it expires, from {@link System#nanoTime()}
+     */
+    void schedule(T item, long deadlineNanos) {
+        long ticks = (deadlineNanos - startNanos + tickNanos - 1) / tickNanos;
+        scheduled.add(new Node<>(item, ticks));
+    }
+
+    /**
+     * Checks the buckets of every tick up to a time, and hands over the items whose deadline passed
+     * @param nowNanos the current time, from {@link System#nanoTime()}
+     * @param expired called with each expired item
+     * @return how many items expired
+     */
+    int advance(long nowNanos, Consumer<T> expired) {
+        for (Node<T> node; (node = scheduled.poll()) != null; ) {
+            // a deadline already passed is checked on the next tick
+            int bucket = (int) (Math.max(node.deadlineTick, currentTick + 1) & mask);
+            node.next = buckets[bucket];
+            buckets[bucket] = node;
+        }
+
+        long nowTick = (nowNanos - startNanos) / tickNanos;
+        int count = 0;
+        if (nowTick - currentTick >= buckets.length) {
+            // late by a whole turn or more: every bucket has to be checked once
+            for (int i = 0; i < buckets.length; i++) {
+                count += expire(i, nowTick, expired);
+            }
+        } else {
+            for (long tick = currentTick + 1; tick <= nowTick; tick++) {
+                count += expire((int) (tick & mask), tick, expired);
+            }
+        }
+        currentTick = Math.max(currentTick, nowTick);
+        return count;
+    }
+
+    /**
+     * Removes the items of a bucket with a deadline up to a tick
+     */
+    private int expire(int bucket, long tick, Consumer<T> expired) {
+        int count = 0;
+        Node<T> kept = null;
+        for (Node<T> node = buckets[bucket]; node != null; ) {
+            Node<T> next = node.next;
+            if (node.deadlineTick <= tick) {
+                expired.accept(node.item);
+                count++;
+            } else {
+                node.next = kept;
+                kept = node;
+            }
+            node = next;
+        }
+        buckets[bucket] = kept;
+        return count;
+    }
+}
@@ -0,0 +1,775 @@
+package com.redi.j2.tools;
+
+import com.redi.j2.coffeemaker.BrewResult;
+import com.redi.j2.coffeemaker.CoffeeMaker;
+import com.redi.j2.coffeemaker.IngredientAmounts;
+import com.redi.j2.coffeemaker.IngredientRegistry;
+import com.redi.j2.coffeemaker.Journal;
+import com.redi.j2.coffeemaker.LatencyHistogram;
+import com.redi.j2.coffeemaker.Recipe;
+import com.redi.j2.exceptions.InvalidRecipeIngredientAmountException;
+import com.redi.j2.exceptions.InvalidRecipePriceException;
+
+import java.math.BigDecimal;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Puts a coffee maker under load for a long time, to find where it saturates and to check that it stays correct.
+ * <p>
+ * Customers order Recipes from a weighted mix, each in its own thread, waiting a random think time between orders.
+ * At the same time, one thread refills the ingredients the mix uses, and another one keeps adding, updating and
+ * removing a special Recipe, so the catalog changes while orders are made.
+ * <p>
+ * At the end of every report interval the load is paused for a moment, so the inventory can be compared with
+ * what the customers and the refills should have left in it. The threads share no lock while they order:
+ * each customer counts its orders on its own, and only reads a volatile flag to know when to pause. Any difference, or a negative amount, is reported
+ * as an inconsistency. Every interval reports its throughput, its latency percentiles and how many orders were
+ * rejected, and only the totals are kept, so the generator can run for hours.
+ */
+public class LoadGenerator {
+
+    /**
+     * How many inconsistencies are described. The rest are only counted.
+     */
+    private static final int MAX_INCONSISTENCIES = 100;
+
+    /**
+     * The name of the Recipe that is added, updated and removed while the customers order
+     */
+    private static final String SPECIAL_RECIPE = "Load Test Special";
+
+    /**
+     * How the load is generated
+     */
+    public static class Settings {
+
+        private int customers = 8;
+
+        private Duration duration = Duration.ofMinutes(1);
+
+        private Duration thinkTime = Duration.ZERO;
+
+        private Duration refillInterval = Duration.ofMillis(100);
+
+        private int refillAmount = 1_000;
+
+        private Duration catalogChangeInterval = Duration.ofSeconds(1);
+
+        private Duration reportInterval = Duration.ofSeconds(10);
+
+        private final Map<String, Integer> mix = new LinkedHashMap<>();
+
+        /**
+         * Sets how many customers order at the same time
+         * @param customers the amount of customer threads
+         * @return these settings
+         */
+        public Settings customers(int customers) {
+            if (customers < 1) throw new IllegalArgumentException("There must be at least one customer");
+            this.customers = customers;
+            return this;
+        }
+
+        /**
+         * Sets how long the load runs
+         * @param duration the duration
+         * @return these settings
+         */
+        public Settings duration(Duration duration) {
+            this.duration = duration;
+            return this;
+        }
+
+        /**
+         * Sets the average time a customer waits between orders. The real times are random, around this average.
+         * @param thinkTime the average time, or zero to order without waiting
+         * @return these settings
+         */
+        public Settings thinkTime(Duration thinkTime) {
+            this.thinkTime = thinkTime;
+            return this;
+        }
+
+        /**
+         * Sets how often the ingredients are refilled, and how much
+         * @param interval the time between refills, or zero to never refill
+         * @param amount how much of each ingredient used by the mix is added
+         * @return these settings
+         */
+        public Settings refill(Duration interval, int amount) {
+            if (amount < 0) throw new IllegalArgumentException("The refill amount must not be negative");
+            this.refillInterval = interval;
+            this.refillAmount = amount;
+            return this;
+        }
+
+        /**
+         * Sets how often the catalog is changed
+         * @param interval the time between changes, or zero to never change it
+         * @return these settings
+         */
+        public Settings catalogChangeInterval(Duration interval) {
+            this.catalogChangeInterval = interval;
+            return this;
+        }
+
+        /**
+         * Sets how often the results are reported and the inventory is checked
+         * @param interval the time between reports
+         * @return these settings
+         */
+        public Settings reportInterval(Duration interval) {
+            if (interval.isZero() || interval.isNegative()) throw new IllegalArgumentException("The report interval must be positive");
+            this.reportInterval = interval;
+            return this;
+        }
+
+        /**
+         * Adds a Recipe to the mix. Without any Recipe, all the Recipes of the machine are ordered equally.
+         * @param recipeName the name of the Recipe
+         * @param weight how often it is ordered, compared to the other Recipes of the mix
+         * @return these settings
+         */
+        public Settings order(String recipeName, int weight) {
+            if (weight < 1) throw new IllegalArgumentException("The weight of " + recipeName + " must be positive");
+            mix.put(recipeName, weight);
+            return this;
+        }
+    }
+
+    /**
+     * What happened during a report interval, or during the whole run
+     */
+    public static class Interval {
+
+        private final long elapsedNanos;
+
+        private final long durationNanos;
+
+        private final long brewed;
+
+        private final long rejected;
+
+        private final long unknown;
+
+        private final long refills;
+
+        private final long catalogChanges;
+
+        private final LatencyHistogram.Snapshot latency;
+
+        private final int inconsistencies;
+
+        private Interval(long elapsedNanos, long durationNanos, long brewed, long rejected, long unknown,
+                         long refills, long catalogChanges, LatencyHistogram.Snapshot latency, int inconsistencies) {
+            this.elapsedNanos = elapsedNanos;
+            this.durationNanos = durationNanos;
+            this.brewed = brewed;
+            this.rejected = rejected;
+            this.unknown = unknown;
+            this.refills = refills;
+            this.catalogChanges = catalogChanges;
+            this.latency = latency;
+            this.inconsistencies = inconsistencies;
+        }
+
+        /**
+         * Getter for when the interval ended
+         * @return the nanoseconds since the load started
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Getter for the amount of orders
+         * @return all the orders, brewed or not
+         */
+        public long getOrders() {
+            return brewed + rejected + unknown;
+        }
+
+        /**
+         * Getter for the amount of Recipes made
+         * @return the brewed orders
+         */
+        public long getBrewed() {
+            return brewed;
+        }
+
+        /**
+         * Getter for the orders rejected because there were not enough ingredients
+         * @return the rejected orders
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * Getter for the orders of Recipes that were not in the catalog
+         * @return the orders of unknown Recipes
+         */
+        public long getUnknown() {
+            return unknown;
+        }
+
+        /**
+         * Getter for the amount of refills
+         * @return the refills
+         */
+        public long getRefills() {
+            return refills;
+        }
+
+        /**
+         * Getter for the amount of Recipes added, updated or removed
+         * @return the changes to the catalog
+         */
+        public long getCatalogChanges() {
+            return catalogChanges;
+        }
+
+        /**
+         * Getter for the latency of the orders
+         * @return the latencies, in nanoseconds
+         */
+        public LatencyHistogram.Snapshot getLatency() {
+            return latency;
+        }
+
+        /**
+         * Getter for the amount of inconsistencies found in the inventory
+         * @return the inconsistencies
+         */
+        public int getInconsistencies() {
+            return inconsistencies;
+        }
+
+        /**
+         * Calculates the throughput
+         * @return the orders per second
+         */
+        public double getOrdersPerSecond() {
+            return durationNanos == 0 ? 0 : getOrders() * 1e9 / durationNanos;
+        }
+
+        /**
+         * Calculates how many orders were not brewed
+         * @return the rejected and unknown orders, as a fraction of all the orders
+         */
+        public double getRejectionRate() {
+            long orders = getOrders();
+            return orders == 0 ? 0 : (double) (rejected + unknown) / orders;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ENGLISH,
+                    "%8.1fs  %,12.0f orders/s  %6.2f%% rejected  p50 %,9d ns  p99 %,9d ns  p99.9 %,9d ns  %,d refills  %,d catalog changes  %d inconsistencies",
+                    elapsedNanos / 1e9, getOrdersPerSecond(), getRejectionRate() * 100,
+                    latency.getP50(), latency.getP99(), latency.getP999(), refills, catalogChanges, inconsistencies);
+        }
+    }
+
+    /**
+     * The results of a whole run
+     */
+    public static class Summary {
+
+        private final Interval total;
+
+        private final List<String> inconsistencies;
+
+        private Summary(Interval total, List<String> inconsistencies) {
+            this.total = total;
+            this.inconsistencies = Collections.unmodifiableList(inconsistencies);
+        }
+
+        /**
+         * Getter for the totals of the run
+         * @return everything that happened, as a single interval
+         */
+        public Interval getTotal() {
+            return total;
+        }
+
+        /**
+         * Getter for the inconsistencies found in the inventory
+         * @return the descriptions of the first inconsistencies
+         */
+        public List<String> getInconsistencies() {
+            return inconsistencies;
+        }
+
+        /**
+         * Checks if the inventory was always consistent
+         * @return true if no inconsistency was found
+         */
+        public boolean isConsistent() {
+            return total.getInconsistencies() == 0;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format(Locale.ENGLISH, "Orders:          %,d in %.1f s (%,.0f per second)%n",
+                    total.getOrders(), total.durationNanos / 1e9, total.getOrdersPerSecond()));
+            sb.append(String.format(Locale.ENGLISH, "Brewed:          %,d%n", total.brewed));
+            sb.append(String.format(Locale.ENGLISH, "Rejected:        %,d not enough ingredients, %,d unknown (%.2f%%)%n",
+                    total.rejected, total.unknown, total.getRejectionRate() * 100));
+            sb.append(String.format(Locale.ENGLISH, "Latency:         %s%n", total.latency));
+            sb.append(String.format(Locale.ENGLISH, "Refills:         %,d%n", total.refills));
+            sb.append(String.format(Locale.ENGLISH, "Catalog changes: %,d%n", total.catalogChanges));
+            sb.append(String.format(Locale.ENGLISH, "Inconsistencies: %,d%n", total.inconsistencies));
+            for (String inconsistency : inconsistencies) {
+                sb.append("  ").append(inconsistency).append(System.lineSeparator());
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Runs a load against a new machine, printing a line for every report interval and a summary at the end.
+     * The machine has the default Recipe and three more, all ordered equally unless a mix is given.
+     * @param args optional: "--customers &lt;n&gt;", "--duration &lt;seconds&gt;", "--think-ms &lt;ms&gt;",
+     *             "--refill-ms &lt;ms&gt;", "--refill-amount &lt;n&gt;", "--catalog-ms &lt;ms&gt;",
+     *             "--report-seconds &lt;seconds&gt;", "--mix &lt;recipe=weight,...&gt;" and "--journal &lt;directory&gt;"
+     * @throws Exception if the journal cannot be used, or the load is interrupted
+     */
+    public static void main(String[] args) throws Exception {
+        Settings settings = new Settings()
+                .customers(Integer.parseInt(argumentValue(args, "--customers", "8")))
+                .duration(Duration.ofSeconds(Long.parseLong(argumentValue(args, "--duration", "60"))))
+                .thinkTime(Duration.ofMillis(Long.parseLong(argumentValue(args, "--think-ms", "0"))))
+                .refill(Duration.ofMillis(Long.parseLong(argumentValue(args, "--refill-ms", "100"))),
+                        Integer.parseInt(argumentValue(args, "--refill-amount", "1000")))
+                .catalogChangeInterval(Duration.ofMillis(Long.parseLong(argumentValue(args, "--catalog-ms", "1000"))))
+                .reportInterval(Duration.ofSeconds(Long.parseLong(argumentValue(args, "--report-seconds", "10"))));
+        String mix = argumentValue(args, "--mix", "");
+        for (String entry : mix.split(",")) {
+            if (entry.isBlank()) continue;
+            int equals = entry.lastIndexOf('=');
+            if (equals < 0) settings.order(entry.trim(), 1);
+            else settings.order(entry.substring(0, equals).trim(), Integer.parseInt(entry.substring(equals + 1).trim()));
+        }
+
+        String journal = argumentValue(args, "--journal", null);
+        CoffeeMaker coffeeMaker = (journal == null)
+                ? new CoffeeMaker(16)
+                : new CoffeeMaker(16, new Journal(Paths.get(journal)));
+        coffeeMaker.addRecipe(new Recipe("Espresso", BigDecimal.valueOf(1.8), 2, 0, 0, 0));
+        coffeeMaker.addRecipe(new Recipe("Latte", BigDecimal.valueOf(2.9), 1, 4, 0, 1));
+        coffeeMaker.addRecipe(new Recipe("Mocha", BigDecimal.valueOf(3.2), 2, 2, 2, 1));
+
+        Summary summary = new LoadGenerator(coffeeMaker, settings).run(System.out::println);
+        System.out.println();
+        System.out.print(summary);
+        if (coffeeMaker.getJournal() != null) coffeeMaker.getJournal().close();
+        if (!summary.isConsistent()) System.exit(2);
+    }
+
+    /**
+     * Finds the value given to an option in the command line
+     */
+    private static String argumentValue(String[] args, String option, String defaultValue) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(option)) return args[i + 1];
+        }
+        return defaultValue;
+    }
+
+    private final CoffeeMaker coffeeMaker;
+
+    private final Settings settings;
+
+    /**
+     * The names of the Recipes of the mix
+     */
+    private final String[] recipes;
+
+    /**
+     * The sum of the weights of the mix up to each Recipe, to pick a Recipe with a single random number
+     */
+    private final int[] cumulativeWeights;
+
+    /**
+     * The ingredients needed by each Recipe of the mix, which the generator never changes
+     */
+    private final IngredientAmounts[] requirements;
+
+    /**
+     * What is added by each refill: some of every ingredient the mix uses
+     */
+    private final IngredientAmounts refill;
+
+    /**
+     * Set by the reporter while it checks the inventory, so the threads stop changing the machine
+     */
+    private volatile boolean paused;
+
+    /**
+     * The threads changing the machine, so the reporter can wait for all of them to pause
+     */
+    private final List<Worker> workers = new ArrayList<>();
+
+    private final LongAdder refills = new LongAdder();
+
+    private final LongAdder catalogChanges = new LongAdder();
+
+    private final LatencyHistogram totalLatency = new LatencyHistogram();
+
+    private final AtomicReference<LatencyHistogram> intervalLatency = new AtomicReference<>(new LatencyHistogram());
+
+    private volatile boolean running;
+
+    /**
+     * Parameterized constructor
+     * @param coffeeMaker the machine under load. It should not be used by anything else while the load runs,
+     *                    or its inventory will look inconsistent.
+     * @param settings how the load is generated
+     * @throws IllegalArgumentException if a Recipe of the mix is not in the catalog, or there is nothing to order
+     */
+    public LoadGenerator(CoffeeMaker coffeeMaker, Settings settings) {
+        this.coffeeMaker = coffeeMaker;
+        this.settings = settings;
+        Map<String, Integer> mix = new LinkedHashMap<>(settings.mix);
+        if (mix.isEmpty()) {
+            for (Recipe recipe : coffeeMaker.getAllRecipes()) {
+                mix.put(recipe.getName(), 1);
+            }
+        }
+        if (mix.isEmpty()) throw new IllegalArgumentException("There are no Recipes to order");
+        recipes = mix.keySet().toArray(new String[0]);
+        cumulativeWeights = new int[recipes.length];
+        requirements = new IngredientAmounts[recipes.length];
+        BitSet used = new BitSet();
+        int weights = 0;
+        for (int i = 0; i < recipes.length; i++) {
+            Recipe recipe = coffeeMaker.getRecipe(recipes[i]);
+            if (recipe == null) throw new IllegalArgumentException("Unknown Recipe in the mix: " + recipes[i]);
+            weights += mix.get(recipes[i]);
+            cumulativeWeights[i] = weights;
+            requirements[i] = recipe.getRequirements();
+            for (int j = 0; j < requirements[i].size(); j++) {
+                used.set(requirements[i].getId(j));
+            }
+        }
+        IngredientAmounts.Builder amounts = IngredientAmounts.builder();
+        used.stream().forEach(id -> amounts.add(id, settings.refillAmount));
+        refill = amounts.build();
+    }
+
+    /**
+     * Runs the load until the end of its duration
+     * @param onInterval called at the end of every report interval, from the thread that called this method
+     * @return the results of the whole run
+     * @throws InterruptedException if the thread is interrupted while it waits for the next report
+     */
+    public Summary run(Consumer<Interval> onInterval) throws InterruptedException {
+        List<String> inconsistencies = new ArrayList<>();
+        long[] expected = toLongs(coffeeMaker.getInventory().snapshot());
+        long[] brewedSoFar = new long[recipes.length];
+        long refillsSoFar = 0;
+        int inconsistencyCount = 0;
+        long totalBrewed = 0;
+        long totalRejected = 0;
+        long totalUnknown = 0;
+        long totalCatalogChanges = 0;
+
+        running = true;
+        workers.clear();
+        for (int i = 0; i < settings.customers; i++) {
+            startWorker("load-customer-" + (i + 1), this::customer);
+        }
+        if (!settings.refillInterval.isZero() && !refill.equals(IngredientAmounts.EMPTY)) {
+            startWorker("load-refiller", worker -> every(settings.refillInterval, () -> refill(worker)));
+        }
+        if (!settings.catalogChangeInterval.isZero()) {
+            startWorker("load-catalog", worker -> every(settings.catalogChangeInterval, () -> changeCatalog(worker)));
+        }
+
+        long start = System.nanoTime();
+        long end = start + settings.duration.toNanos();
+        long intervalStart = start;
+        try {
+            while (intervalStart < end) {
+                long intervalEnd = Math.min(end, intervalStart + settings.reportInterval.toNanos());
+                sleepUntil(intervalEnd);
+                // the threads stop before the last check, so every order is in the totals
+                if (intervalEnd == end) running = false;
+                long now;
+                long brewed = 0;
+                long rejectedSoFar = 0;
+                long unknownSoFar = 0;
+                int found;
+                Interval interval;
+                pause();
+                try {
+                    now = System.nanoTime();
+                    for (int i = 0; i < recipes.length; i++) {
+                        long count = -brewedSoFar[i];
+                        for (Worker worker : workers) {
+                            count += worker.brewed[i];
+                        }
+                        brewedSoFar[i] += count;
+                        brewed += count;
+                        add(expected, requirements[i], -count);
+                    }
+                    for (Worker worker : workers) {
+                        rejectedSoFar += worker.rejected;
+                        unknownSoFar += worker.unknown;
+                    }
+                    long refillCount = refills.sum() - refillsSoFar;
+                    refillsSoFar += refillCount;
+                    add(expected, refill, refillCount);
+                    found = check(expected, coffeeMaker.getInventory().snapshot(), now - start, inconsistencies);
+                    interval = new Interval(now - start, now - intervalStart, brewed, rejectedSoFar - totalRejected,
+                            unknownSoFar - totalUnknown, refillCount, catalogChanges.sumThenReset(),
+                            intervalLatency.getAndSet(new LatencyHistogram()).snapshot(), found);
+                } finally {
+                    resume();
+                }
+                inconsistencyCount += found;
+                totalBrewed += interval.brewed;
+                totalRejected = rejectedSoFar;
+                totalUnknown = unknownSoFar;
+                totalCatalogChanges += interval.catalogChanges;
+                if (onInterval != null) onInterval.accept(interval);
+                intervalStart = now;
+            }
+        } finally {
+            running = false;
+            for (Worker worker : workers) {
+                LockSupport.unpark(worker.thread);
+                worker.thread.join();
+            }
+        }
+        long elapsed = intervalStart - start;
+        Interval total = new Interval(elapsed, elapsed, totalBrewed, totalRejected, totalUnknown, refillsSoFar,
+                totalCatalogChanges, totalLatency.snapshot(), inconsistencyCount);
+        return new Summary(total, inconsistencies);
+    }
+
+    /**
+     * Stops every thread from changing the machine, and waits until none of them is in the middle of a change.
+     * A thread marks itself active before it looks at the flag, and the reporter sets the flag before it looks at
+     * the threads, so either the thread sees the pause, or the reporter sees the thread and waits for it.
+     */
+    private void pause() {
+        paused = true;
+        for (Worker worker : workers) {
+            while (worker.active) {
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * Lets the threads change the machine again
+     */
+    private void resume() {
+        paused = false;
+        for (Worker worker : workers) {
+            LockSupport.unpark(worker.thread);
+        }
+    }
+
+    /**
+     * Marks a thread as changing the machine, waiting first while the load is paused
+     * @return false if the load stopped, so the thread must not change anything
+     */
+    private boolean enter(Worker worker) {
+        worker.active = true;
+        while (paused) {
+            worker.active = false;
+            LockSupport.park(this);
+            worker.active = true;
+        }
+        if (running) return true;
+        worker.active = false;
+        return false;
+    }
+
+    /**
+     * What each customer thread does: order, wait, and order again
+     */
+    private void customer(Worker worker) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int weights = cumulativeWeights[cumulativeWeights.length - 1];
+        long thinkNanos = settings.thinkTime.toNanos();
+        while (running) {
+            int pick = random.nextInt(weights);
+            int recipe = 0;
+            while (cumulativeWeights[recipe] <= pick) recipe++;
+
+            if (!enter(worker)) return;
+            try {
+                long start = System.nanoTime();
+                BrewResult result = coffeeMaker.brew(recipes[recipe]);
+                long latency = System.nanoTime() - start;
+                totalLatency.record(latency);
+                intervalLatency.get().record(latency);
+                if (result == BrewResult.BREWED) worker.brewed[recipe]++;
+                else if (result == BrewResult.NOT_ENOUGH_INGREDIENTS) worker.rejected++;
+                else worker.unknown++;
+            } finally {
+                worker.active = false;
+            }
+
+            if (thinkNanos > 0) {
+                // exponentially distributed, like the time between arrivals of independent customers
+                LockSupport.parkNanos((long) (-Math.log(1 - random.nextDouble()) * thinkNanos));
+            }
+        }
+    }
+
+    /**
+     * Adds some of every ingredient the mix uses
+     */
+    private void refill(Worker worker) {
+        if (!enter(worker)) return;
+        try {
+            coffeeMaker.addIngredients(refill);
+            refills.increment();
+        } finally {
+            worker.active = false;
+        }
+    }
+
+    /**
+     * Adds the special Recipe, then changes its price, then removes it, one step at a time
+     */
+    private void changeCatalog(Worker worker) {
+        if (!enter(worker)) return;
+        try {
+            Recipe special = coffeeMaker.getRecipe(SPECIAL_RECIPE);
+            boolean changed;
+            if (special == null) {
+                changed = coffeeMaker.addRecipe(new Recipe(SPECIAL_RECIPE, BigDecimal.valueOf(3), 1, 1, 1, 1));
+            } else if (special.getPrice().compareTo(BigDecimal.valueOf(3)) == 0) {
+                changed = coffeeMaker.updateRecipe(new Recipe(SPECIAL_RECIPE, BigDecimal.valueOf(4), 1, 1, 1, 1));
+            } else {
+                changed = coffeeMaker.removeRecipe(SPECIAL_RECIPE);
+            }
+            if (changed) catalogChanges.increment();
+        } catch (InvalidRecipePriceException | InvalidRecipeIngredientAmountException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            worker.active = false;
+        }
+    }
+
+    /**
+     * Runs a task at a fixed rate until the load stops
+     */
+    private void every(Duration interval, Runnable task) {
+        long next = System.nanoTime();
+        while (running) {
+            task.run();
+            next += interval.toNanos();
+            sleepUntil(next);
+        }
+    }
+
+    /**
+     * Waits until a time, or until the load stops
+     */
+    private void sleepUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0 && running) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * Starts a daemon thread, so a stuck load never keeps the application running
+     */
+    private void startWorker(String name, Consumer<Worker> task) {
+        Worker worker = new Worker(recipes.length);
+        worker.thread = new Thread(() -> task.accept(worker), name);
+        worker.thread.setDaemon(true);
+        workers.add(worker);
+        worker.thread.start();
+    }
+
+    /**
+     * Compares the inventory with the expected amounts
+     * @return how many ingredients do not match
+     */
+    private static int check(long[] expected, int[] stock, long elapsedNanos, List<String> inconsistencies) {
+        int found = 0;
+        for (int id = 0; id < Math.max(expected.length, stock.length); id++) {
+            long expectedAmount = id < expected.length ? expected[id] : 0;
+            int amount = id < stock.length ? stock[id] : 0;
+            if (amount == expectedAmount && amount >= 0) continue;
+            found++;
+            if (inconsistencies.size() < MAX_INCONSISTENCIES) {
+                inconsistencies.add(String.format(Locale.ENGLISH, "%.1fs: %s is %,d, expected %,d",
+                        elapsedNanos / 1e9, IngredientRegistry.getName(id), amount, expectedAmount));
+            }
+            // start again from what is there, so one mistake is reported once
+            if (id < expected.length) expected[id] = amount;
+        }
+        return found;
+    }
+
+    /**
+     * Adds amounts to the expected stock a number of times, or removes them if the number is negative
+     */
+    private static void add(long[] expected, IngredientAmounts amounts, long times) {
+        for (int i = 0; i < amounts.size(); i++) {
+            expected[amounts.getId(i)] += amounts.getAmount(i) * times;
+        }
+    }
+
+    /**
+     * Copies the stock into the expected amounts, with room for every registered ingredient
+     */
+    private static long[] toLongs(int[] values) {
+        long[] longs = new long[Math.max(values.length, IngredientRegistry.size())];
+        for (int i = 0; i < values.length; i++) {
+            longs[i] = values[i];
+        }
+        return longs;
+    }
+
+    /**
+     * One of the threads changing the machine, with its own counters.
+     * The counters are only written by the thread, and only read by the reporter while the load is paused.
+     */
+    private static final class Worker {
+
+        private Thread thread;
+
+        /**
+         * Whether the thread is changing the machine right now
+         */
+        private volatile boolean active;
+
+        /**
+         * How many times each Recipe of the mix was brewed by this thread
+         */
+        private final long[] brewed;
+
+        private long rejected;
+
+        private long unknown;
+
+        private Worker(int recipes) {
+            brewed = new long[recipes];
+        }
+    }
+}
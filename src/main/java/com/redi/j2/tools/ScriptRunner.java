@@ -0,0 +1,250 @@
+package com.redi.j2.tools;
+
+import com.redi.j2.coffeemaker.BrewResult;
+import com.redi.j2.coffeemaker.CoffeeMaker;
+import com.redi.j2.coffeemaker.Recipe;
+import com.redi.j2.exceptions.InvalidRecipeIngredientAmountException;
+import com.redi.j2.exceptions.InvalidRecipePriceException;
+import com.redi.j2.utils.ConsoleUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Runs a script of orders, refills and recipe changes against a coffee maker, without any menu.
+ * <p>
+ * The script is read one line at a time, so its size does not matter. Each line is a command,
+ * with its fields separated by commas. Empty lines and lines starting with # are ignored.
+ * <pre>
+ * brew,Cappuccino
+ * refill,10,10,10,10
+ * refill,Caramel,20
+ * add,Latte,2.50,1,3,0,0
+ * update,Latte,2.80,1,3,0,1
+ * remove,Latte
+ * </pre>
+ * A refill with four amounts adds the basic ingredients; a refill with a name adds any ingredient.
+ */
+public class ScriptRunner {
+
+    /**
+     * How many characters are read from the script at a time
+     */
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Most fields a command can have (the "add" and "update" commands)
+     */
+    private static final int MAX_FIELDS = 7;
+
+    private final CoffeeMaker coffeeMaker;
+
+    private final String[] fields = new String[MAX_FIELDS + 1];
+
+    /**
+     * Parameterized constructor
+     * @param coffeeMaker the machine where the script runs
+     */
+    public ScriptRunner(CoffeeMaker coffeeMaker) {
+        this.coffeeMaker = coffeeMaker;
+    }
+
+    /**
+     * Runs a script until its end
+     * @param script the script
+     * @return what happened with each command
+     * @throws IOException if the script cannot be read
+     */
+    public Summary run(Reader script) throws IOException {
+        Summary summary = new Summary();
+        long start = System.nanoTime();
+        BufferedReader reader = new BufferedReader(script, READ_BUFFER_SIZE);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            summary.lines++;
+            if (!runLine(line.trim(), summary)) {
+                summary.invalid++;
+                if (summary.firstInvalidLine == 0) summary.firstInvalidLine = summary.lines;
+            }
+        }
+        summary.elapsedNanos = System.nanoTime() - start;
+        return summary;
+    }
+
+    /**
+     * Runs a single line of the script
+     * @return false if the line is not a valid command
+     */
+    private boolean runLine(String line, Summary summary) {
+        if (line.isEmpty() || line.charAt(0) == '#') return true;
+        int count = split(line);
+        if (count < 0) return false;
+        try {
+            switch (fields[0]) {
+                case "brew":
+                    if (count != 2) return false;
+                    summary.brews.merge(coffeeMaker.brew(fields[1]), 1L, Long::sum);
+                    return true;
+                case "refill":
+                    if (count == 3) {
+                        coffeeMaker.addIngredient(fields[1], Integer.parseInt(fields[2]));
+                        summary.refills++;
+                        return true;
+                    }
+                    if (count != 5) return false;
+                    coffeeMaker.addIngredients(Integer.parseInt(fields[1]), Integer.parseInt(fields[2]),
+                            Integer.parseInt(fields[3]), Integer.parseInt(fields[4]));
+                    summary.refills++;
+                    return true;
+                case "add":
+                case "update":
+                    if (count != 7) return false;
+                    Recipe recipe = new Recipe(fields[1], new BigDecimal(fields[2]),
+                            Integer.parseInt(fields[3]), Integer.parseInt(fields[4]),
+                            Integer.parseInt(fields[5]), Integer.parseInt(fields[6]));
+                    boolean changed = fields[0].equals("add") ? coffeeMaker.addRecipe(recipe) : coffeeMaker.updateRecipe(recipe);
+                    summary.recipeChanges(changed);
+                    return true;
+                case "remove":
+                    if (count != 2) return false;
+                    summary.recipeChanges(coffeeMaker.removeRecipe(fields[1]));
+                    return true;
+                default:
+                    return false;
+            }
+        } catch (IllegalArgumentException | InvalidRecipePriceException | InvalidRecipeIngredientAmountException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Splits a line by commas into the reused fields array
+     * @return how many fields were found, or -1 if there are too many
+     */
+    private int split(String line) {
+        int count = 0;
+        int start = 0;
+        while (true) {
+            if (count == fields.length) return -1;
+            int comma = line.indexOf(',', start);
+            int end = (comma < 0) ? line.length() : comma;
+            fields[count++] = line.substring(start, end).trim();
+            if (comma < 0) return count;
+            start = comma + 1;
+        }
+    }
+
+    /**
+     * What happened while a script was running
+     */
+    public static class Summary {
+
+        private long lines;
+
+        private long invalid;
+
+        private long firstInvalidLine;
+
+        private long refills;
+
+        private long recipeChanges;
+
+        private long rejectedRecipeChanges;
+
+        private long elapsedNanos;
+
+        private final Map<BrewResult, Long> brews = new EnumMap<>(BrewResult.class);
+
+        private void recipeChanges(boolean changed) {
+            if (changed) recipeChanges++;
+            else rejectedRecipeChanges++;
+        }
+
+        /**
+         * Getter for the amount of lines read
+         * @return the amount of lines, including empty lines and comments
+         */
+        public long getLines() {
+            return lines;
+        }
+
+        /**
+         * Getter for the amount of lines that are not valid commands
+         * @return the amount of invalid lines
+         */
+        public long getInvalidLines() {
+            return invalid;
+        }
+
+        /**
+         * Getter for the amount of orders with a certain outcome
+         * @param result the outcome
+         * @return the amount of orders
+         */
+        public long getBrews(BrewResult result) {
+            return brews.getOrDefault(result, 0L);
+        }
+
+        /**
+         * Getter for the amount of refills
+         * @return the amount of refills
+         */
+        public long getRefills() {
+            return refills;
+        }
+
+        /**
+         * Getter for the amount of recipes added, updated or removed
+         * @return the amount of recipe changes that worked
+         */
+        public long getRecipeChanges() {
+            return recipeChanges;
+        }
+
+        /**
+         * Getter for the amount of recipe changes the machine did not accept
+         * @return the amount of rejected recipe changes
+         */
+        public long getRejectedRecipeChanges() {
+            return rejectedRecipeChanges;
+        }
+
+        /**
+         * Getter for how long the script took
+         * @return the time, in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Creates a report of the script, to be shown on the console
+         * @param coffeeMaker the machine where the script ran
+         * @return the report
+         */
+        public String report(CoffeeMaker coffeeMaker) {
+            double seconds = Math.max(elapsedNanos, 1) / 1e9;
+            long orders = brews.values().stream().mapToLong(Long::longValue).sum();
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format(Locale.ENGLISH, "Lines:          %,d in %.3f s (%,.0f lines/s)%n", lines, seconds, lines / seconds));
+            sb.append(String.format(Locale.ENGLISH, "Orders:         %,d (%,.0f orders/s)%n", orders, orders / seconds));
+            for (BrewResult result : BrewResult.values()) {
+                sb.append(String.format(Locale.ENGLISH, "  %-22s %,d%n", result, getBrews(result)));
+            }
+            sb.append(String.format(Locale.ENGLISH, "Refills:        %,d%n", refills));
+            sb.append(String.format(Locale.ENGLISH, "Recipe changes: %,d (%,d rejected)%n", recipeChanges, rejectedRecipeChanges));
+            sb.append(String.format(Locale.ENGLISH, "Invalid lines:  %,d", invalid));
+            if (invalid > 0) sb.append(String.format(Locale.ENGLISH, " (first at line %,d)", firstInvalidLine));
+            sb.append(System.lineSeparator());
+            sb.append("Revenue:        ").append(ConsoleUtils.formatCurrency(coffeeMaker.getSalesLedger().getTotalRevenueCents()))
+                    .append(System.lineSeparator());
+            sb.append("Inventory:      ").append(coffeeMaker.getInventory());
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.redi.j2.utils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Turns an image into text for the console, where each pixel is a space with a background color.
+ * <p>
+ * Decoding an image and building an escape code for every pixel is slow, so the rendered text is
+ * cached in memory and on disk. The disk cache is stored next to the image when that folder can be
+ * written, or in a cache folder in the home of the user otherwise. The name of the cached file includes
+ * a checksum of the image and the version of the rendering, so changing either creates a new cache.
+ * The cached text is written to the terminal as it is, so a cached file is only used if it belongs to
+ * the current user.
+ */
+public final class AnsiImage {
+
+    private static final String RESET = "\u001B[0m";
+
+    /**
+     * The version of {@link #render(BufferedImage)}. It must change whenever the rendered text changes,
+     * so files cached by an older version are not used.
+     */
+    private static final int RENDER_VERSION = 2;
+
+    private static final Map<String, byte[]> CACHE = new ConcurrentHashMap<>();
+
+    private AnsiImage() {
+    }
+
+    /**
+     * Loads an image from the resources, already rendered for the console
+     * @param resourceName the name of the image in the resources
+     * @return the rendered image, or an empty array if the image does not exist.
+     *         The array is shared, so it should not be changed.
+     * @throws IOException if the image cannot be read
+     */
+    public static byte[] load(String resourceName) throws IOException {
+        byte[] rendered = CACHE.get(resourceName);
+        if (rendered != null) return rendered;
+
+        URL url = AnsiImage.class.getClassLoader().getResource(resourceName);
+        if (url == null) return new byte[0];
+        byte[] image;
+        try (InputStream is = url.openStream()) {
+            image = is.readAllBytes();
+        }
+
+        Path cacheFile = cacheFile(url, resourceName, image);
+        if (isTrusted(cacheFile)) {
+            rendered = Files.readAllBytes(cacheFile);
+        } else {
+            rendered = render(ImageIO.read(new ByteArrayInputStream(image)));
+            store(cacheFile, rendered);
+        }
+        CACHE.put(resourceName, rendered);
+        return rendered;
+    }
+
+    /**
+     * Renders an image for the console. Consecutive pixels with the same color in a row
+     * share a single escape code, and every row ends by resetting the colors.
+     * @param img the image
+     * @return the rendered image, as bytes ready to be written
+     */
+    public static byte[] render(BufferedImage img) {
+        StringBuilder sb = new StringBuilder(img.getHeight() * (img.getWidth() + 24));
+        for (int y = 0; y < img.getHeight(); y++) {
+            int previous = 0;
+            boolean first = true;
+            for (int x = 0; x < img.getWidth(); x++) {
+                int argb = img.getRGB(x, y);
+                // every fully transparent pixel looks the same, no matter its color
+                if ((argb >>> 24) == 0) argb = 0;
+                if (first || argb != previous) {
+                    appendColor(sb, argb);
+                    previous = argb;
+                    first = false;
+                }
+                sb.append(' ');
+            }
+            sb.append(RESET).append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Adds the escape code for a background color
+     */
+    private static void appendColor(StringBuilder sb, int argb) {
+        if (argb == 0) {
+            sb.append(RESET);
+            return;
+        }
+        sb.append("\u001B[48;2;")
+                .append((argb >> 16) & 0xFF).append(';')
+                .append((argb >> 8) & 0xFF).append(';')
+                .append(argb & 0xFF).append('m');
+    }
+
+    /**
+     * Finds where the rendered image is cached on disk
+     */
+    private static Path cacheFile(URL url, String resourceName, byte[] image) {
+        CRC32 crc = new CRC32();
+        crc.update(image);
+        String baseName = Paths.get(resourceName).getFileName().toString();
+        String fileName = baseName + ".v" + RENDER_VERSION + "." + Long.toHexString(crc.getValue()) + ".ans";
+
+        if ("file".equals(url.getProtocol())) {
+            try {
+                Path folder = Paths.get(url.toURI()).getParent();
+                if (folder != null && Files.isWritable(folder)) return folder.resolve(fileName);
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                // use the cache folder of the user
+            }
+        }
+        return Paths.get(System.getProperty("user.home"), ".cache", "coffeemaker", fileName);
+    }
+
+    /**
+     * Checks that a cached file exists and belongs to the current user, so no other user
+     * can choose what is written to the terminal
+     */
+    private static boolean isTrusted(Path cacheFile) {
+        try {
+            if (!Files.isRegularFile(cacheFile, LinkOption.NOFOLLOW_LINKS)) return false;
+            UserPrincipal user = cacheFile.getFileSystem().getUserPrincipalLookupService()
+                    .lookupPrincipalByName(System.getProperty("user.name"));
+            return user.equals(Files.getOwner(cacheFile, LinkOption.NOFOLLOW_LINKS));
+        } catch (IOException | UnsupportedOperationException e) {
+            // without knowing the owner, the image is rendered again
+            return false;
+        }
+    }
+
+    /**
+     * Stores the rendered image on disk. A failure only means it will be rendered again next time.
+     */
+    private static void store(Path cacheFile, byte[] rendered) {
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            Path tmp = Files.createTempFile(cacheFile.getParent(), cacheFile.getFileName().toString(), ".tmp");
+            Files.write(tmp, rendered);
+            Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | UnsupportedOperationException e) {
+            // ignore, the image is still cached in memory
+        }
+    }
+
+    /**
+     * Joins text and bytes, so everything can be written in a single call
+     * @param parts Strings or byte arrays
+     * @return all the parts, one after the other
+     */
+    static byte[] concat(Object... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (Object part : parts) {
+            byte[] bytes = (part instanceof byte[]) ? (byte[]) part : part.toString().getBytes(StandardCharsets.UTF_8);
+            out.write(bytes, 0, bytes.length);
+        }
+        return out.toByteArray();
+    }
+}
@@ -1,16 +1,12 @@
 package com.redi.j2.utils;
 
-import javax.imageio.ImageIO;
-import java.awt.*;
-import java.awt.image.BufferedImage;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.math.BigDecimal;
-import java.net.URL;
+import java.math.RoundingMode;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Locale;
 import java.util.Properties;
 
@@ -32,20 +28,37 @@ public class ConsoleUtils {
         }
     }
 
+    /**
+     * Everything shown by the application goes through this screen, and is written when input is read
+     */
+    private static final Screen SCREEN = new Screen(System.out);
+
+    /**
+     * Reads the console input. A single reader is shared, so lines read ahead are not lost.
+     */
+    private static final BufferedReader INPUT = new BufferedReader(new InputStreamReader(System.in));
+
+    /**
+     * Getter for the console screen
+     * @return the screen where the application shows its output
+     */
+    public static Screen screen() {
+        return SCREEN;
+    }
+
     /**
      * Reads user input from the console and returns it as a String
      * @param message The message to show. Input will be done in the same line.
      * @return The input from the user
      */
     public static String readInput(String message) {
-        System.out.print(message);
-        BufferedReader br = new BufferedReader(new InputStreamReader(System.in));
+        SCREEN.print(message).flush();
         String returnString = "";
         try {
-            returnString = br.readLine();
+            returnString = INPUT.readLine();
         }
         catch (IOException e){
-            System.out.println(ConsoleUtils.warningMessage("Error reading input"));
+            SCREEN.println(ConsoleUtils.warningMessage("Error reading input")).flush();
         }
         if ("777".equals(returnString)) showEasterEgg();
         return (returnString != null)? returnString : "";
@@ -75,8 +88,16 @@ public class ConsoleUtils {
      */
     public static String menuFormatter(String menuTitle, String[] menuNames, int[] numbers, boolean[] enabled,
                                        ColorType borderColor, ColorType numberColor, ColorType nameColor) {
-
         StringBuilder builder = new StringBuilder();
+        appendMenu(builder, menuTitle, menuNames, numbers, enabled, borderColor, numberColor, nameColor);
+        return builder.toString();
+    }
+
+    /**
+     * Adds the representation of a Menu to a builder. See {@link #menuFormatter}.
+     */
+    static void appendMenu(StringBuilder builder, String menuTitle, String[] menuNames, int[] numbers, boolean[] enabled,
+                           ColorType borderColor, ColorType numberColor, ColorType nameColor) {
 
         // checking the longest name in the menu
         int longestMenuName = menuTitle.length() + 8; // adding 1 space and 3 equal symbols on each side
@@ -90,13 +111,11 @@ public class ConsoleUtils {
         // assembling the title
         if(COLORS_ENABLED) builder.append(borderColor.getAnsiCode());
         int amountSymbols = (menuWidth - menuTitle.length())/2 - 1;
-        char[] borderTitle = new char[amountSymbols];
-        Arrays.fill(borderTitle, '=');
-        builder.append(new String(borderTitle));
+        repeat(builder, '=', amountSymbols);
         builder.append(" ");
         builder.append(menuTitle);
         builder.append(" ");
-        builder.append(new String(borderTitle));
+        repeat(builder, '=', amountSymbols);
         builder.append("\n");
 
         // creating the menus
@@ -108,9 +127,7 @@ public class ConsoleUtils {
             builder.append(". ");
             if(COLORS_ENABLED) builder.append(enabled[i]? nameColor.getAnsiCode() : ColorType.GRAY.getAnsiCode());
             builder.append(menuNames[i]);
-            char[] extraSpaces = new char[menuWidth - menuNames[i].length() - 7];
-            Arrays.fill(extraSpaces, ' ');
-            builder.append(new String(extraSpaces));
+            repeat(builder, ' ', menuWidth - menuNames[i].length() - 7);
             if(COLORS_ENABLED) builder.append(borderColor.getAnsiCode());
             builder.append(" |");
             builder.append("\n");
@@ -118,12 +135,17 @@ public class ConsoleUtils {
 
         // assembling the bottom border
         if(COLORS_ENABLED) builder.append(borderColor.getAnsiCode());
-        char[] borderBottom = new char[menuWidth];
-        Arrays.fill(borderBottom, '=');
-        builder.append(new String(borderBottom));
+        repeat(builder, '=', menuWidth);
         if(COLORS_ENABLED) builder.append(ColorType.RESET.getAnsiCode());
+    }
 
-        return builder.toString();
+    /**
+     * Adds the same character many times to a builder
+     */
+    private static void repeat(StringBuilder builder, char c, int times) {
+        for (int i = 0; i < times; i++) {
+            builder.append(c);
+        }
     }
 
     /**
@@ -153,12 +175,25 @@ public class ConsoleUtils {
     }
 
     /**
-     * Formats a number to have a currency character and two decimal numbers
-     * @param value The value to format
+     * Formats an amount of cents to have a currency character and two decimal numbers
+     * @param cents The value to format, in cents
      * @return The formatted value
      */
-    public static String formatCurrency(BigDecimal value) {
-        return String.format(Locale.ENGLISH, "$%.2f", value.doubleValue());
+    public static String formatCurrency(long cents) {
+        String sign = (cents < 0) ? "-" : "";
+        long absolute = Math.abs(cents);
+        return String.format(Locale.ENGLISH, "%s$%d.%02d", sign, absolute / 100, absolute % 100);
+    }
+
+    /**
+     * Reads an amount of money typed by the user, like "2.75", as a whole number of cents rounded half up
+     * @param text The typed amount
+     * @return The amount in cents
+     * @throws NumberFormatException if the text is not a number
+     * @throws ArithmeticException if the amount is too big to be counted in cents
+     */
+    public static long parseCents(String text) {
+        return new BigDecimal(text.trim()).movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
     }
 
     /**
@@ -171,82 +206,59 @@ public class ConsoleUtils {
         BufferedReader reader = new BufferedReader(new InputStreamReader(is));
         String line;
         try {
-            System.out.println();
+            SCREEN.println();
             line = reader.readLine();
             while(line!=null) {
-                System.out.println(line);
+                SCREEN.println(line);
                 line = reader.readLine();
             }
         } catch (IOException e) {
             e.printStackTrace();
         }
-        System.out.println(ConsoleUtils.colorOutput("Here's an Easter Egg for you", ColorType.BRIGHT_PURPLE));
+        SCREEN.println(ConsoleUtils.colorOutput("Here's an Easter Egg for you", ColorType.BRIGHT_PURPLE));
         ConsoleUtils.readInput("Press ENTER to continue");
     }
 
+    /**
+     * Shows the header image between two borders. The image is rendered once and cached,
+     * and the whole header is written in a single call.
+     */
     public static void showHeader() {
         if (!COLORS_ENABLED) return;
         try {
-            System.out.println();
             String border = colorOutput("================================================================================", ColorType.BRIGHT_YELLOW);
-            System.out.println(border);
-            URL url = ConsoleUtils.class.getClassLoader().getResource("header.png");
-            BufferedImage img = ImageIO.read(url);
-            for(int y=0; y<img.getHeight(); y++) {
-                for(int x=0; x<img.getWidth(); x++) {
-                    Color pixel = new Color(img.getRGB(x, y), true);
-                    System.out.print(getBgAnsiColor(pixel) + " ");
-                }
-                System.out.print(ColorType.RESET.getAnsiCode() + "\n");
-            }
-            System.out.println(border);
-            System.out.println();
+            byte[] header = AnsiImage.concat("\n", border, "\n", AnsiImage.load("header.png"), border, "\n\n");
+            System.out.write(header, 0, header.length);
+            System.out.flush();
         } catch (Exception e) {
             // ignore
         }
     }
 
-    private static String getBgAnsiColor(Color color) {
-        if (!COLORS_ENABLED) return "";
-        if (color.getAlpha() == 0) return "\u001B[0m";
-        return "\u001B[48;2;" + color.getRed() + ";" + color.getGreen() + ";" + color.getBlue() + "m";
+    /**
+     * Shows the loading bar, replacing the one shown before in the same line
+     * @param percentage how much of the loading is done, from 0 to 100
+     * @param message what is being done
+     */
+    public static void showWarmingUpProgress(int percentage, String message) {
+        int i = Math.max(0, Math.min(100, percentage));
+        final StringBuilder sb = new StringBuilder();
+        if(COLORS_ENABLED) sb.append("\u001B[38;2;").append(255).append(";").append(255 - (150 * i / 100)).append(";").append(127 - (127 * i / 100)).append("m");
+        sb.append("[").append(String.format("%-20s", ("#".repeat(i / 5)))).append("] ");
+        sb.append(String.format("%3d", i)).append("% ");
+        if(COLORS_ENABLED) sb.append(ColorType.BRIGHT_WHITE.getAnsiCode());
+        sb.append(" |  ").append(String.format("%-30s", message));
+        if(COLORS_ENABLED) sb.append(ColorType.RESET.getAnsiCode());
+        sb.append("\r");
+        System.out.print(sb);
+        System.out.flush();
     }
 
     /**
-     * Plays a nice loading bar animation (fake, of course)
-     * @param milliseconds the amount of time you want the animation to be
+     * Removes the loading bar from the console
      */
-    public static void playWarmingUpAnimation(int milliseconds){
-
-        java.util.List<String> messages = List.of(
-                "Initializing ...",
-                "Checking Inventory",
-                "Loading Recipes",
-                "Warming Up",
-                "Almost There",
-                "Welcome to Coffee Maker 2022!"
-        );
-
-        try {
-            final StringBuilder sb = new StringBuilder();
-            for (int i = 0 ; i <= 100 ; i++) {
-                Thread.sleep(milliseconds/100);
-                sb.setLength(0);
-                if(COLORS_ENABLED) sb.append("\u001B[38;2;").append(255).append(";").append(255 - (150 * i / 100)).append(";").append(127 - (127 * i / 100)).append("m");
-                sb.append("[").append(String.format("%-20s", ("#".repeat(i / 5)))).append("] ");
-                sb.append(String.format("%3d", i)).append("% ");
-                if(COLORS_ENABLED) sb.append(ColorType.BRIGHT_WHITE.getAnsiCode());
-                sb.append(" |  ").append(messages.get((messages.size() - 1) * i / 100));
-                if(COLORS_ENABLED) sb.append(ColorType.RESET.getAnsiCode());
-                System.out.print(sb);
-                System.out.print("\r");
-            }
-            Thread.sleep(2000);
-
-        } catch (Exception ex) {
-            // ignore
-        }
-
-        System.out.print("                                  \r");
+    public static void clearWarmingUpProgress() {
+        System.out.print(" ".repeat(70) + "\r");
+        System.out.flush();
     }
 }
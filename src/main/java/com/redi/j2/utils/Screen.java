@@ -0,0 +1,118 @@
+package com.redi.j2.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Collects everything that is shown on the console until the screen is complete,
+ * and then writes it all in a single call.
+ * <p>
+ * Slow terminals pay for every write, so a menu printed line by line takes much longer
+ * than the same menu written at once. The text and byte buffers are reused from one
+ * screen to the next. A Screen is meant to be used by a single thread.
+ */
+public final class Screen {
+
+    private final OutputStream out;
+
+    private final StringBuilder text = new StringBuilder(4096);
+
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+
+    private ByteBuffer bytes = ByteBuffer.allocate(4096);
+
+    /**
+     * Parameterized constructor
+     * @param out where the screens are written
+     */
+    public Screen(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Adds text to the screen
+     * @param value the text
+     * @return this screen
+     */
+    public Screen print(String value) {
+        text.append(value);
+        return this;
+    }
+
+    /**
+     * Adds text and a line break to the screen
+     * @param value the text
+     * @return this screen
+     */
+    public Screen println(String value) {
+        text.append(value).append('\n');
+        return this;
+    }
+
+    /**
+     * Adds a line break to the screen
+     * @return this screen
+     */
+    public Screen println() {
+        text.append('\n');
+        return this;
+    }
+
+    /**
+     * Adds a menu to the screen, followed by a line break. See {@link ConsoleUtils#menuFormatter}.
+     * @return this screen
+     */
+    public Screen menu(String menuTitle, String[] menuNames, int[] numbers, boolean[] enabled,
+                       ColorType borderColor, ColorType numberColor, ColorType nameColor) {
+        ConsoleUtils.appendMenu(text, menuTitle, menuNames, numbers, enabled, borderColor, numberColor, nameColor);
+        text.append('\n');
+        return this;
+    }
+
+    /**
+     * Adds a menu with all options enabled to the screen, followed by a line break.
+     * See {@link ConsoleUtils#menuFormatter}.
+     * @return this screen
+     */
+    public Screen menu(String menuTitle, String[] menuNames, int[] numbers,
+                       ColorType borderColor, ColorType numberColor, ColorType nameColor) {
+        boolean[] enabled = new boolean[menuNames.length];
+        Arrays.fill(enabled, true);
+        return menu(menuTitle, menuNames, numbers, enabled, borderColor, numberColor, nameColor);
+    }
+
+    /**
+     * Writes everything added since the last flush in a single call
+     */
+    public void flush() {
+        if (text.length() == 0) return;
+        encode();
+        try {
+            out.write(bytes.array(), 0, bytes.position());
+            out.flush();
+        } catch (IOException e) {
+            // nothing else can be shown if the console is gone
+        }
+        text.setLength(0);
+    }
+
+    /**
+     * Encodes the text into the byte buffer, growing it if needed
+     */
+    private void encode() {
+        while (true) {
+            bytes.clear();
+            encoder.reset();
+            CoderResult result = encoder.encode(CharBuffer.wrap(text), bytes, true);
+            if (!result.isOverflow()) result = encoder.flush(bytes);
+            if (!result.isOverflow()) return;
+            bytes = ByteBuffer.allocate(bytes.capacity() * 2);
+        }
+    }
+}
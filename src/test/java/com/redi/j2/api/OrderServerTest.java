@@ -0,0 +1,133 @@
+package com.redi.j2.api;
+
+import com.redi.j2.coffeemaker.CoffeeMaker;
+import com.redi.j2.coffeemaker.IngredientRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderServerTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private CoffeeMaker coffeeMaker;
+
+    private OrderServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        coffeeMaker = new CoffeeMaker();
+        server = new OrderServer(coffeeMaker, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void brewEndpointShouldMakeTheRecipeAndAnswerWithTheResult() throws Exception {
+
+        // given - a machine with the default recipe and enough ingredients for it
+
+        // when - we order it, and then order a recipe that does not exist
+        HttpResponse<String> brewed = send("POST", "/brew?recipe=Cappuccino");
+        HttpResponse<String> unknown = send("POST", "/brew?recipe=Nothing");
+
+        // then - the first order is made
+        assertEquals(200, brewed.statusCode(), "A brewed order should be answered with 200");
+        assertEquals("{\"recipe\":\"Cappuccino\",\"result\":\"BREWED\"}", brewed.body(), "The response is not matching");
+        assertEquals(8, coffeeMaker.getInventory().getCoffee(), "The ingredients should be removed from the inventory");
+
+        // and - the second one is rejected
+        assertEquals(404, unknown.statusCode(), "An unknown recipe should be answered with 404");
+    }
+
+    @Test
+    void recipeEndpointsShouldAddUpdateAndRemoveRecipes() throws Exception {
+
+        // given - a recipe added with a registered ingredient
+        assertEquals(201, send("POST", "/ingredients?name=api%20caramel").statusCode(), "A new ingredient should be answered with 201");
+        HttpResponse<String> added = send("POST", "/recipes?name=Caramel%20Latte&price=3.50&coffee=1&api%20caramel=2");
+
+        // when - we update it and read it
+        HttpResponse<String> updated = send("PUT", "/recipes/Caramel%20Latte?price=3.75&coffee=1&api%20caramel=1");
+        HttpResponse<String> read = send("GET", "/recipes/Caramel%20Latte");
+
+        // then - every step works
+        assertEquals(201, added.statusCode(), "An added recipe should be answered with 201");
+        assertEquals(200, updated.statusCode(), "An updated recipe should be answered with 200");
+        assertEquals("{\"name\":\"Caramel Latte\",\"price\":3.75,\"ingredients\":{\"COFFEE\":1,\"api caramel\":1}}",
+                read.body(), "The recipe is not matching");
+
+        // and - it can be removed only once
+        assertEquals(200, send("DELETE", "/recipes/Caramel%20Latte").statusCode(), "A removed recipe should be answered with 200");
+        assertEquals(404, send("DELETE", "/recipes/Caramel%20Latte").statusCode(), "A missing recipe should be answered with 404");
+    }
+
+    @Test
+    void inventoryEndpointShouldRejectInvalidAmounts() throws Exception {
+
+        // given - a machine with 10 units of each ingredient
+
+        // when - we try to refill with an amount that is not a number, and then with a valid amount
+        HttpResponse<String> invalid = send("POST", "/inventory?coffee=lots");
+        HttpResponse<String> valid = send("POST", "/inventory?coffee=5");
+
+        // then - only the valid refill is done
+        assertEquals(400, invalid.statusCode(), "An invalid amount should be answered with 400");
+        assertTrue(invalid.body().startsWith("{\"error\":"), "The error should be explained");
+        assertEquals(200, valid.statusCode(), "A valid refill should be answered with 200");
+        assertTrue(valid.body().contains("\"COFFEE\":15"), "The new inventory should be shown");
+    }
+
+    @Test
+    void inventoryEndpointShouldRejectRefillsThatOverflow() throws Exception {
+
+        // given - a machine with 10 units of each ingredient
+
+        // when - we refill with repeated amounts that add up beyond an int, and with one that the stock cannot hold
+        HttpResponse<String> repeated = send("POST", "/inventory?coffee=2147483647&coffee=1");
+        HttpResponse<String> tooMuch = send("POST", "/inventory?coffee=2147483647");
+
+        // then - both are rejected, and the stock does not change
+        assertEquals(400, repeated.statusCode(), "Repeated amounts that overflow should be answered with 400");
+        assertEquals(400, tooMuch.statusCode(), "A refill the stock cannot hold should be answered with 400");
+        assertEquals(10, coffeeMaker.getInventory().getCoffee(), "The stock should not change");
+    }
+
+    @Test
+    void unknownIngredientsShouldBeRejectedWithoutRegisteringThem() throws Exception {
+
+        // given - an ingredient that was never registered
+        String name = "api unknown " + System.nanoTime();
+
+        // when - we refill it, and use it in a recipe
+        HttpResponse<String> refill = send("POST", "/inventory?" + name.replace(" ", "%20") + "=5");
+        HttpResponse<String> recipe = send("POST", "/recipes?name=Unknown&price=1&" + name.replace(" ", "%20") + "=1");
+
+        // then - both are rejected, and the ingredient is still unknown
+        assertEquals(400, refill.statusCode(), "A refill of an unknown ingredient should be answered with 400");
+        assertEquals(400, recipe.statusCode(), "A recipe with an unknown ingredient should be answered with 400");
+        assertEquals(-1, IngredientRegistry.getId(name), "The ingredient should not be registered");
+        assertNull(coffeeMaker.getRecipe("Unknown"), "The recipe should not be added");
+    }
+
+    private HttpResponse<String> send(String method, String pathAndQuery) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + pathAndQuery))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
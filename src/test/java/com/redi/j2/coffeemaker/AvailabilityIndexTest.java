@@ -0,0 +1,80 @@
+package com.redi.j2.coffeemaker;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AvailabilityIndexTest {
+
+    @Test
+    void indexShouldFollowTheInventoryAcrossThresholds() throws Exception {
+
+        // given - a catalog with two recipes needing different amounts of milk
+        RecipeBook catalog = new RecipeBook();
+        catalog.addRecipe(new Recipe("Latte", BigDecimal.ONE, 1, 4, 0, 0));
+        catalog.addRecipe(new Recipe("Macchiato", BigDecimal.ONE, 1, 1, 0, 0));
+        Inventory inventory = new Inventory(10, 4, 0, 0);
+        AvailabilityIndex index = new AvailabilityIndex(catalog);
+        inventory.addListener(index);
+
+        // when - milk goes below what the Latte needs
+        inventory.removeAmount(Ingredient.MILK, 1);
+
+        // then - only the Macchiato can be made
+        assertFalse(index.isMakeable("Latte"), "The Latte should not be makeable with 3 milk");
+        assertTrue(index.isMakeable("Macchiato"), "The Macchiato should be makeable with 3 milk");
+
+        // when - all the milk is used
+        inventory.removeAmount(Ingredient.MILK, 3);
+
+        // then - nothing can be made
+        assertFalse(index.isAnyMakeable(), "Nothing should be makeable without milk");
+
+        // when - milk is refilled
+        inventory.addIngredient(Ingredient.MILK, 5);
+
+        // then - both recipes are back
+        assertTrue(index.isMakeable("Latte"), "The Latte should be makeable again");
+        assertTrue(index.isMakeable("Macchiato"), "The Macchiato should be makeable again");
+    }
+
+    @Test
+    void indexShouldFollowTheCatalog() throws Exception {
+
+        // given - a coffee maker with its default recipe and plenty of ingredients
+        CoffeeMaker coffeeMaker = new CoffeeMaker();
+        assertTrue(coffeeMaker.canMakeAnyRecipe(), "The default recipe should be makeable");
+
+        // when - a recipe needing more coffee than available is added, and the default one removed
+        coffeeMaker.addRecipe(new Recipe("Ristretto", BigDecimal.ONE, 11, 0, 0, 0));
+        coffeeMaker.removeRecipe("Cappuccino");
+
+        // then - nothing can be made
+        assertFalse(coffeeMaker.canMakeAnyRecipe(), "The Ristretto should need more coffee than available");
+
+        // when - coffee is added
+        coffeeMaker.addIngredients(1, 0, 0, 0);
+
+        // then - the new recipe can be made
+        assertTrue(coffeeMaker.getMakeableRecipes().contains("Ristretto"), "The Ristretto should be makeable");
+    }
+
+    @Test
+    void makeableRecipesShouldStayLiveAcrossCatalogChanges() throws Exception {
+
+        // given - the makeable recipes of a machine, read before the catalog changes
+        CoffeeMaker coffeeMaker = new CoffeeMaker();
+        Set<String> makeable = coffeeMaker.getMakeableRecipes();
+
+        // when - a recipe is added, which rebuilds the index
+        coffeeMaker.addRecipe(new Recipe("Espresso", BigDecimal.ONE, 1, 0, 0, 0));
+
+        // then - the set read before shows the new recipe
+        assertEquals(Set.of("Cappuccino", "Espresso"), Set.copyOf(makeable), "The set should follow the catalog");
+        assertTrue(makeable.contains("Espresso"), "The new recipe should be makeable");
+        assertThrows(UnsupportedOperationException.class, () -> makeable.add("Mocha"), "The set should be unmodifiable");
+    }
+}
@@ -0,0 +1,139 @@
+package com.redi.j2.coffeemaker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogImporterTest {
+
+    @Test
+    void readCsvMethodShouldSkipInvalidRowsAndReportThem() throws Exception {
+
+        // given - a CSV catalog with a header, valid rows and invalid rows
+        String csv = String.join("\n",
+                "name,price,coffee,milk,chocolate,sugar",
+                "Latte,2.50,1,3,0,0",
+                "\"Mocha, large\",3.10,2,2,2,1",
+                "Free Coffee,-1,1,0,0,0",
+                "Sweet,1.00,0,0,0,x",
+                "Short,1.00,1",
+                "",
+                "Espresso,1.80,2,0,0,0");
+
+        // when - we read it
+        CatalogImporter.Result result = CatalogImporter.readCsv(new StringReader(csv));
+
+        // then - only the valid rows become recipes
+        assertEquals(3, result.getRecipes().size(), "Three rows are valid");
+        assertEquals("Mocha, large", result.getRecipes().get(1).getName(), "Quoted names can have commas");
+        assertEquals(2, result.getRecipes().get(1).getAmountChocolate(), "The amounts are not matching");
+
+        // and - the invalid rows are reported with their line numbers
+        assertEquals(3, result.getRejected(), "Three rows are invalid");
+        assertEquals("line 4: the price is negative", result.getProblems().get(0), "The problem is not matching");
+    }
+
+    @Test
+    void binaryCatalogShouldKeepAllTheRecipes(@TempDir Path folder) throws Exception {
+
+        // given - many recipes written as a binary catalog
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            recipes.add(new Recipe("Recipe " + i, new BigDecimal("1.25").add(BigDecimal.valueOf(i)), i % 5, 1, 0, i % 3));
+        }
+        Path file = folder.resolve("catalog.bin");
+        CatalogImporter.writeBinary(file, recipes);
+
+        // when - we read it back
+        CatalogImporter.Result result = CatalogImporter.readBinary(file);
+
+        // then - every recipe is the same
+        assertEquals(0, result.getRejected(), "No recipe should be rejected");
+        assertEquals(recipes.size(), result.getRecipes().size(), "All the recipes should be read");
+        Recipe last = result.getRecipes().get(9_999);
+        assertEquals("Recipe 9999", last.getName(), "The name is not matching");
+        assertEquals(new BigDecimal("10000.25"), last.getPrice(), "The price is not matching");
+        assertEquals(4, last.getAmountCoffee(), "The amount of coffee is not matching");
+
+        // and - all of them can be added to a catalog at once
+        RecipeBook recipeBook = new RecipeBook(20_000);
+        assertEquals(10_000, recipeBook.addRecipes(result.getRecipes()).size(), "All the recipes should be added");
+        assertTrue(recipeBook.addRecipes(result.getRecipes()).isEmpty(), "Duplicated recipes should be skipped");
+    }
+
+    @Test
+    void csvHeaderShouldNameTheIngredients(@TempDir Path folder) throws Exception {
+
+        // given - a CSV catalog with a registered ingredient in its header
+        String csv = "name,price,coffee,hazelnut\n"
+                + "Hazelnut Coffee,2.10,1,2\n"
+                + "Black Coffee,1.00,1,0\n";
+
+        // when - we read it, and read it again from a binary catalog
+        CatalogImporter.Result result = CatalogImporter.readCsv(new StringReader(csv));
+        Path file = folder.resolve("catalog.bin");
+        CatalogImporter.writeBinary(file, result.getRecipes());
+        List<Recipe> recipes = CatalogImporter.readBinary(file).getRecipes();
+
+        // then - each recipe only needs the ingredients it uses
+        int hazelnut = IngredientRegistry.getId("Hazelnut");
+        assertEquals(2, recipes.size(), "All the recipes should be read");
+        assertEquals(2, recipes.get(0).getAmount(hazelnut), "The amount of hazelnut is not matching");
+        assertEquals(1, recipes.get(0).getAmountCoffee(), "The amount of coffee is not matching");
+        assertEquals(1, recipes.get(1).getRequirements().size(), "Ingredients that are not used should not be stored");
+    }
+
+    @Test
+    void readCsvMethodShouldAcceptTheSameSignsInPricesAndAmounts() throws Exception {
+
+        // given - a CSV catalog with explicit plus signs
+        String csv = "Plus,+1.50,+2,0,+1,0\n";
+
+        // when - we read it
+        CatalogImporter.Result result = CatalogImporter.readCsv(new StringReader(csv));
+
+        // then - the row is valid
+        assertEquals(0, result.getRejected(), "Plus signs should be accepted: " + result.getProblems());
+        assertEquals(new BigDecimal("1.50"), result.getRecipes().get(0).getPrice(), "The price is not matching");
+        assertEquals(2, result.getRecipes().get(0).getAmountCoffee(), "The amount of coffee is not matching");
+    }
+
+    @Test
+    void readBinaryMethodShouldReadVersionOneFilesWithManyIngredients(@TempDir Path folder) throws Exception {
+
+        // given - a version 1 catalog with 200 ingredient columns, more than a signed byte can count
+        Path file = folder.resolve("old.bin");
+        byte[] name = "Espresso".getBytes(StandardCharsets.UTF_8);
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(0x434D4354);
+            out.writeByte(1);
+            out.writeByte(200);
+            out.writeInt(1);
+            out.writeShort(name.length);
+            out.write(name);
+            out.writeLong(180);
+            out.writeByte(2);
+            for (int i = 0; i < 200; i++) {
+                out.writeInt(i == 0 ? 2 : 0);
+            }
+        }
+
+        // when - we read it
+        CatalogImporter.Result result = CatalogImporter.readBinary(file);
+
+        // then - the recipe is read, with the basic ingredients it uses
+        assertEquals(1, result.getRecipes().size(), "The recipe should be read: " + result.getProblems());
+        assertEquals(new BigDecimal("1.80"), result.getRecipes().get(0).getPrice(), "The price is not matching");
+        assertEquals(2, result.getRecipes().get(0).getAmountCoffee(), "The amount of coffee is not matching");
+    }
+}
@@ -0,0 +1,57 @@
+package com.redi.j2.coffeemaker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoffeeMakerFleetTest {
+
+    @Test
+    void brewAllMethodShouldFailOverWhenAMachineRunsDry() {
+
+        // given - a fleet of two machines, each with enough ingredients for 5 Cappuccinos
+        CoffeeMaker first = new CoffeeMaker();
+        CoffeeMaker second = new CoffeeMaker();
+        first.addIngredients(0, 5, 0, 0);
+        second.addIngredients(0, 5, 0, 0);
+        CoffeeMakerFleet fleet = new CoffeeMakerFleet(Arrays.asList(first, second), 4);
+
+        // when - the fleet receives more orders than both machines can make together
+        List<String> orders = new ArrayList<>(Collections.nCopies(12, "Cappuccino"));
+        List<BrewResult> results = fleet.brewAll(orders);
+        fleet.shutdown();
+
+        // then - every possible order is made, using both machines
+        assertEquals(10, results.stream().filter(BrewResult::isBrewed).count(), "The fleet should use the stock of all machines");
+        assertEquals(0, first.getInventory().getCoffee(), "The first machine should be used until it runs dry");
+        assertEquals(0, second.getInventory().getCoffee(), "The second machine should be used until it runs dry");
+
+        // and - the remaining orders are rejected for lack of ingredients
+        assertEquals(2, results.stream().filter(r -> r == BrewResult.NOT_ENOUGH_INGREDIENTS).count(),
+                "Orders no machine can make should be rejected");
+
+        // and - the numbers of the fleet match
+        FleetStats stats = fleet.getStats();
+        assertEquals(10, stats.getBrewed(), "The fleet should count the orders made");
+        assertEquals(2, stats.getRejected(), "The fleet should count the orders rejected");
+    }
+
+    @Test
+    void brewMethodShouldRejectUnknownRecipes() {
+
+        // given - a fleet with one machine
+        CoffeeMakerFleet fleet = new CoffeeMakerFleet(Collections.singletonList(new CoffeeMaker()), 1);
+
+        // when - we order a recipe no machine has
+        BrewResult result = fleet.brew("Unknown");
+        fleet.shutdown();
+
+        // then - it is rejected as unknown
+        assertEquals(BrewResult.UNKNOWN_RECIPE, result, "Recipes no machine has should be rejected as unknown");
+    }
+}
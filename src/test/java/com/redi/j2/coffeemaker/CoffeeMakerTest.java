@@ -5,6 +5,15 @@ import com.redi.j2.exceptions.InvalidRecipePriceException;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -75,4 +84,184 @@ class CoffeeMakerTest {
         assertEquals(oldAmountChocolate, inventory.getChocolate(), "The amount of chocolate in the inventory should not change");
         assertEquals(oldAmountSugar, inventory.getSugar(), "The amount of sugar in the inventory should not change");
     }
-}
\ No newline at end of file
+
+    @Test
+    void makeCoffeeMethodShouldNeverOversellWithConcurrentOrders() throws Exception {
+
+        // given - a Coffee Maker machine
+        CoffeeMaker coffeeMaker = new CoffeeMaker();
+
+        // and - a recipe that uses two different ingredients
+        Recipe recipe = new Recipe("My Recipe", BigDecimal.ONE, 2, 1, 0, 0);
+        coffeeMaker.addRecipe(recipe);
+
+        // and - enough ingredients for exactly 1000 recipes
+        Inventory inventory = coffeeMaker.getInventory();
+        coffeeMaker.addIngredients(2000 - inventory.getCoffee(), 5000 - inventory.getMilk(), 0, 0);
+
+        // when - many threads try to make many more recipes than possible at the same time
+        int threads = 8;
+        int ordersPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                int made = 0;
+                for (int i = 0; i < ordersPerThread; i++) {
+                    if (coffeeMaker.makeCoffee(recipe.getName())) made++;
+                }
+                return made;
+            }));
+        }
+        start.countDown();
+        int totalMade = 0;
+        for (Future<Integer> result : results) {
+            totalMade += result.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then - exactly the possible amount of recipes is made
+        assertEquals(1000, totalMade, "The coffee maker should make exactly as many recipes as the inventory allows");
+
+        // and - every ingredient is deducted exactly once per recipe
+        assertEquals(0, inventory.getCoffee(), "The amount of coffee must never go below zero");
+        assertEquals(4000, inventory.getMilk(), "The amount of milk must be deducted once per recipe made");
+    }
+
+    @Test
+    void makeCoffeeBatchMethodShouldBehaveLikeSequentialOrders() throws InvalidRecipePriceException, InvalidRecipeIngredientAmountException {
+
+        // given - two Coffee Maker machines with the same recipes
+        CoffeeMaker batchMachine = new CoffeeMaker();
+        CoffeeMaker sequentialMachine = new CoffeeMaker();
+        Recipe recipe = new Recipe("My Recipe", BigDecimal.ONE, 3, 0, 1, 0);
+        batchMachine.addRecipe(recipe);
+        sequentialMachine.addRecipe(recipe);
+
+        // and - a burst of orders that the inventory cannot fully serve
+        List<String> orders = Arrays.asList("Cappuccino", "My Recipe", "Unknown", "My Recipe", "Cappuccino", "My Recipe", "Cappuccino");
+
+        // when - one machine makes them as a batch, and the other one by one
+        List<BrewResult> batchResults = batchMachine.makeCoffeeBatch(orders);
+        List<BrewResult> sequentialResults = new ArrayList<>();
+        for (String order : orders) {
+            sequentialResults.add(sequentialMachine.brew(order));
+        }
+
+        // then - the results are the same
+        assertEquals(sequentialResults, batchResults, "A batch should have the same results as sequential orders");
+        assertEquals(BrewResult.UNKNOWN_RECIPE, batchResults.get(2), "Unknown recipes should be rejected");
+        assertEquals(BrewResult.NOT_ENOUGH_INGREDIENTS, batchResults.get(6), "Orders without enough ingredients should be rejected");
+
+        // and - the inventories are the same
+        assertEquals(sequentialMachine.getInventory().toString(), batchMachine.getInventory().toString(),
+                "A batch should deduct the same ingredients as sequential orders");
+    }
+
+    @Test
+    void makeCoffeeAsyncMethodShouldMakeTheRecipe() throws Exception {
+
+        // given - a Coffee Maker machine with its own order intake
+        CoffeeMaker coffeeMaker = new CoffeeMaker();
+        coffeeMaker.setOrderIntake(new OrderIntake(10, 2, OverflowPolicy.REJECT));
+
+        // when - we order a recipe asynchronously
+        BrewResult result = coffeeMaker.makeCoffeeAsync("Cappuccino").get(5, TimeUnit.SECONDS);
+        coffeeMaker.getOrderIntake().shutdown();
+
+        // then - it is made
+        assertEquals(BrewResult.BREWED, result, "The coffee maker should make recipes ordered asynchronously");
+        assertEquals(8, coffeeMaker.getInventory().getCoffee(), "The amount of coffee must be deducted from the inventory");
+    }
+
+    @Test
+    void setOrderIntakeMethodShouldShutDownTheReplacedIntake() throws Exception {
+
+        // given - a Coffee Maker machine that already created its default order intake
+        CoffeeMaker coffeeMaker = new CoffeeMaker();
+        coffeeMaker.makeCoffeeAsync("Cappuccino").get(5, TimeUnit.SECONDS);
+        OrderIntake defaultIntake = coffeeMaker.getOrderIntake();
+
+        // when - another order intake is configured
+        OrderIntake newIntake = new OrderIntake(10, 1, OverflowPolicy.REJECT);
+        coffeeMaker.setOrderIntake(newIntake);
+
+        // then - the default one is shut down, so its workers stop
+        assertTrue(defaultIntake.awaitTermination(5, TimeUnit.SECONDS), "The replaced order intake should be shut down");
+
+        // and - the orders go to the new one
+        assertEquals(BrewResult.BREWED, coffeeMaker.makeCoffeeAsync("Cappuccino").get(5, TimeUnit.SECONDS),
+                "The new order intake should make the orders");
+        newIntake.shutdown();
+    }
+
+    @Test
+    void metricsShouldCountOrdersPerRecipe() {
+
+        // given - a Coffee Maker machine with metrics enabled
+        CoffeeMaker coffeeMaker = new CoffeeMaker();
+        coffeeMaker.enableMetrics();
+
+        // when - some orders are made, rejected and for unknown recipes
+        for (int i = 0; i < 5; i++) {
+            coffeeMaker.makeCoffee("Cappuccino");
+        }
+        coffeeMaker.makeCoffee("Unknown");
+
+        // then - each outcome is counted
+        MetricsSnapshot snapshot = coffeeMaker.getMetricsSnapshot();
+        assertEquals(3L, snapshot.getBrewedByRecipe().get("Cappuccino"), "Orders made should be counted per recipe");
+        assertEquals(2L, snapshot.getRejectedByRecipe().get("Cappuccino"), "Orders rejected should be counted per recipe");
+        assertEquals(1L, snapshot.getUnknownRecipeOrders(), "Orders of unknown recipes should be counted");
+
+        // and - every order has its latency recorded
+        assertEquals(6, snapshot.getBrewLatency().getCount(), "Every order should have its latency recorded");
+
+        // and - the ingredients used are counted
+        assertEquals(6, snapshot.getConsumed(Ingredient.COFFEE), "The amount of coffee used should be counted");
+    }
+
+    @Test
+    void metricsShouldBeDisabledByDefault() {
+
+        // given - a Coffee Maker machine
+        CoffeeMaker coffeeMaker = new CoffeeMaker();
+
+        // when - an order is made
+        coffeeMaker.makeCoffee("Cappuccino");
+
+        // then - there are no metrics
+        assertNull(coffeeMaker.getMetricsSnapshot(), "Metrics should be disabled unless enabled");
+    }
+
+    @Test
+    void maxServingsMethodShouldFollowTheInventory() throws InvalidRecipePriceException, InvalidRecipeIngredientAmountException {
+
+        // given - a Coffee Maker machine with 10 units of each ingredient
+        CoffeeMaker coffeeMaker = new CoffeeMaker();
+
+        // and - a recipe that uses 4 units of chocolate
+        coffeeMaker.addRecipe(new Recipe("Hot Chocolate", BigDecimal.ONE, 0, 1, 4, 0));
+
+        // then - the servings are limited by the scarcest ingredient
+        assertEquals(3, coffeeMaker.maxServings("Cappuccino"), "Cappuccino is limited by milk (10 / 3)");
+        assertEquals(2, coffeeMaker.maxServings("Hot Chocolate"), "Hot Chocolate is limited by chocolate (10 / 4)");
+
+        // when - ingredients are used and refilled
+        coffeeMaker.makeCoffee("Hot Chocolate");
+        coffeeMaker.addIngredients(0, 20, 0, 0);
+
+        // then - the servings follow the inventory
+        Map<String, Integer> table = coffeeMaker.getServingsTable();
+        assertEquals(5, table.get("Cappuccino"), "Cappuccino is now limited by coffee (10 / 2)");
+        assertEquals(1, table.get("Hot Chocolate"), "Hot Chocolate is limited by chocolate (6 / 4)");
+
+        // and - the same table keeps following the inventory
+        coffeeMaker.makeCoffee("Cappuccino");
+        assertSame(table, coffeeMaker.getServingsTable(), "The table should be a live view");
+        assertEquals(4, table.get("Cappuccino"), "Cappuccino is now limited by coffee (8 / 2)");
+        assertEquals(List.of("Cappuccino", "Hot Chocolate"), List.copyOf(table.keySet()), "The table should follow the catalog order");
+    }
+}
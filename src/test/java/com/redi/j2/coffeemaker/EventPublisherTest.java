@@ -0,0 +1,223 @@
+package com.redi.j2.coffeemaker;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventPublisherTest {
+
+    @Test
+    void subscribersShouldReceiveEveryChangeInOrder() throws Exception {
+
+        // given - a subscriber of a machine
+        CoffeeMaker coffeeMaker = new CoffeeMaker();
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        coffeeMaker.getEvents().subscribe(subscriber);
+
+        // when - the machine makes a Recipe, is refilled, and its catalog changes
+        coffeeMaker.makeCoffee("Cappuccino");
+        coffeeMaker.addIngredients(5, 0, 0, 0);
+        coffeeMaker.addRecipe(newEspresso(1.5));
+        coffeeMaker.updateRecipe(newEspresso(1.75));
+        coffeeMaker.removeRecipe("Espresso");
+        coffeeMaker.getEvents().close();
+
+        // then - every change is received, numbered in order
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS), "The subscriber should complete");
+        assertEquals(List.of(CoffeeMakerEvent.Type.BREWED, CoffeeMakerEvent.Type.REFILLED,
+                        CoffeeMakerEvent.Type.RECIPE_ADDED, CoffeeMakerEvent.Type.RECIPE_UPDATED,
+                        CoffeeMakerEvent.Type.RECIPE_REMOVED),
+                subscriber.events.stream().map(CoffeeMakerEvent::getType).collect(Collectors.toList()),
+                "The events are not matching");
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L),
+                subscriber.events.stream().map(CoffeeMakerEvent::getSequence).collect(Collectors.toList()),
+                "The events should be numbered in order");
+
+        // and - the events describe the changes
+        assertEquals(2, subscriber.events.get(0).getAmounts().get(Ingredient.COFFEE.getId()), "The brewed coffee is not matching");
+        assertEquals(5, subscriber.events.get(1).getAmounts().get(Ingredient.COFFEE.getId()), "The refilled coffee is not matching");
+        assertEquals(BigDecimal.valueOf(1.75), subscriber.events.get(3).getRecipe().getPrice(), "The updated Recipe is not matching");
+        assertNull(subscriber.error, "There should be no error");
+    }
+
+    @Test
+    void slowSubscribersShouldLoseTheOldestEventsWithoutSlowingDownTheMachine() throws Exception {
+
+        // given - a subscriber with a buffer of 4 events, stuck on the first event
+        CoffeeMaker coffeeMaker = new CoffeeMaker();
+        CountDownLatch stuck = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSubscriber subscriber = new RecordingSubscriber(1) {
+            @Override
+            public void onNext(CoffeeMakerEvent event) {
+                super.onNext(event);
+                stuck.countDown();
+                await(release);
+            }
+        };
+        coffeeMaker.getEvents().subscribe(subscriber, 4, EventOverflowPolicy.DROP_OLDEST);
+        coffeeMaker.addIngredients(1, 0, 0, 0);
+        assertTrue(stuck.await(5, TimeUnit.SECONDS), "The subscriber should receive the first event");
+
+        // when - the machine is refilled 100 more times
+        for (int i = 0; i < 100; i++) {
+            coffeeMaker.addIngredients(1, 0, 0, 0);
+        }
+
+        // then - all the refills were done while the subscriber was stuck
+        assertEquals(111, coffeeMaker.getInventory().getCoffee(), "Every refill should be done");
+
+        // and - once released, the subscriber receives only the newest events
+        release.countDown();
+        subscriber.subscription.request(Long.MAX_VALUE);
+        coffeeMaker.getEvents().close();
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS), "The subscriber should complete");
+        assertEquals(List.of(1L, 98L, 99L, 100L, 101L),
+                subscriber.events.stream().map(CoffeeMakerEvent::getSequence).collect(Collectors.toList()),
+                "The oldest events should be dropped");
+        assertEquals(96, coffeeMaker.getEvents().getDroppedEvents(), "The dropped events should be counted");
+    }
+
+    @Test
+    void disconnectPolicyShouldCancelSubscribersThatFallBehind() throws Exception {
+
+        // given - a subscriber with a buffer of 2 events that never requests any
+        CoffeeMaker coffeeMaker = new CoffeeMaker();
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        coffeeMaker.getEvents().subscribe(subscriber, 2, EventOverflowPolicy.DISCONNECT);
+
+        // when - 3 changes are made
+        for (int i = 0; i < 3; i++) {
+            coffeeMaker.addIngredients(1, 0, 0, 0);
+        }
+
+        // then - the subscriber is disconnected with an error
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS), "The subscriber should be told it was disconnected");
+        assertTrue(subscriber.error instanceof IllegalStateException, "The error is not matching");
+        assertTrue(subscriber.events.isEmpty(), "No events should be received");
+        assertEquals(0, coffeeMaker.getEvents().getSubscriberCount(), "The subscriber should be removed");
+    }
+
+    @Test
+    void invalidRequestsWhileSubscribingShouldNeverRegisterTheSubscriber() {
+
+        // given - a publisher whose deliveries only run when asked, and a subscriber that requests 0 events
+        Queue<Runnable> deliveries = new ArrayDeque<>();
+        EventPublisher publisher = new EventPublisher(deliveries::add);
+        RecordingSubscriber subscriber = new RecordingSubscriber(0) {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                super.onSubscribe(subscription);
+                subscription.request(0);
+            }
+        };
+
+        // when - it subscribes, before any delivery runs, and an event is published afterwards
+        publisher.subscribe(subscriber);
+        publisher.publish(CoffeeMakerEvent.Type.REFILLED, null, IngredientAmounts.EMPTY);
+
+        // then - the subscriber is not kept by the publisher
+        assertEquals(0, publisher.getSubscriberCount(), "The subscriber should not be registered");
+        assertEquals(0, publisher.getDroppedEvents(), "No events should be buffered for it");
+
+        // and - once delivered, it receives the error and nothing else
+        while (!deliveries.isEmpty()) {
+            deliveries.poll().run();
+        }
+        assertTrue(subscriber.error instanceof IllegalArgumentException, "The error is not matching");
+        assertTrue(subscriber.events.isEmpty(), "No events should be received");
+    }
+
+    @Test
+    void rejectedDeliveriesShouldOnlyCancelTheSubscriber() {
+
+        // given - a catalog whose publisher has an executor that rejects every delivery, and a subscriber
+        EventPublisher publisher = new EventPublisher(task -> {
+            throw new RejectedExecutionException("The executor is shut down");
+        });
+        RecipeBook catalog = new RecipeBook();
+        catalog.addListener(publisher.catalogListener());
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber);
+
+        // when - an event is published, as a Recipe is added
+        boolean added = catalog.addRecipe(newEspresso(1.5));
+
+        // then - the change is done, and the subscriber is removed instead of waiting forever
+        assertTrue(added, "The change should be done");
+        assertEquals(0, publisher.getSubscriberCount(), "The subscriber should be removed");
+
+        // and - later events are not buffered for it
+        publisher.publish(CoffeeMakerEvent.Type.REFILLED, null, IngredientAmounts.EMPTY);
+        assertEquals(0, publisher.getDroppedEvents(), "No events should be buffered for it");
+    }
+
+    private static Recipe newEspresso(double price) {
+        try {
+            return new Recipe("Espresso", BigDecimal.valueOf(price), 1, 0, 0, 0);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Keeps every event, after requesting a fixed amount of them
+     */
+    private static class RecordingSubscriber implements Flow.Subscriber<CoffeeMakerEvent> {
+
+        final List<CoffeeMakerEvent> events = new CopyOnWriteArrayList<>();
+
+        final CountDownLatch done = new CountDownLatch(1);
+
+        final long initialRequest;
+
+        volatile Flow.Subscription subscription;
+
+        volatile Throwable error;
+
+        RecordingSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialRequest > 0) subscription.request(initialRequest);
+        }
+
+        @Override
+        public void onNext(CoffeeMakerEvent event) {
+            events.add(event);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+}
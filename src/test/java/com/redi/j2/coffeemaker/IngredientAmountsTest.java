@@ -0,0 +1,39 @@
+package com.redi.j2.coffeemaker;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngredientAmountsTest {
+
+    @Test
+    void buildMethodShouldAddUpTheAmountsOfTheSameIngredient() {
+
+        // given - a builder with two amounts of coffee and one of milk
+        IngredientAmounts.Builder builder = IngredientAmounts.builder()
+                .add(Ingredient.COFFEE, 3)
+                .add(Ingredient.MILK, 1)
+                .add(Ingredient.COFFEE, 4);
+
+        // when - the amounts are built
+        IngredientAmounts amounts = builder.build();
+
+        // then - the coffee is added up
+        assertEquals(2, amounts.size(), "Each ingredient should appear once");
+        assertEquals(7, amounts.get(Ingredient.COFFEE.getId()), "The amounts of coffee should be added up");
+        assertEquals(1, amounts.get(Ingredient.MILK.getId()), "The amount of milk is not matching");
+    }
+
+    @Test
+    void buildMethodShouldRejectAmountsThatAddUpBeyondAnInt() {
+
+        // given - a builder with two large amounts of coffee
+        IngredientAmounts.Builder builder = IngredientAmounts.builder()
+                .add(Ingredient.COFFEE, Integer.MAX_VALUE)
+                .add(Ingredient.COFFEE, 1);
+
+        // when - the amounts are built
+        // then - the sum is rejected instead of wrapping around to a negative amount
+        assertThrows(IllegalArgumentException.class, builder::build, "Amounts that overflow should be rejected");
+    }
+}
@@ -0,0 +1,66 @@
+package com.redi.j2.coffeemaker;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InventoryTest {
+
+    @Test
+    void snapshotMethodShouldCopyAllAmounts() {
+
+        // given - an inventory with different amounts of each ingredient
+        Inventory inventory = new Inventory(1, 2, 3, 4);
+
+        // when - we take a snapshot of it
+        int[] amounts = inventory.snapshot(new int[Ingredient.values().length]);
+
+        // then - every ingredient is found in its own position
+        assertEquals(1, amounts[Ingredient.COFFEE.ordinal()], "Coffee is not matching");
+        assertEquals(2, amounts[Ingredient.MILK.ordinal()], "Milk is not matching");
+        assertEquals(3, amounts[Ingredient.CHOCOLATE.ordinal()], "Chocolate is not matching");
+        assertEquals(4, amounts[Ingredient.SUGAR.ordinal()], "Sugar is not matching");
+    }
+
+    @Test
+    void removeAmountsMethodShouldRemoveNothingWhenOneIngredientIsMissing() {
+
+        // given - an inventory
+        Inventory inventory = new Inventory(10, 10, 10, 10);
+
+        // when - we try to remove more sugar than available, together with other ingredients
+        boolean result = inventory.removeAmounts(1, 1, 1, 11);
+
+        // then - it should not work
+        assertFalse(result, "The inventory should not remove amounts if one ingredient is missing");
+
+        // and - no ingredient should be changed
+        assertEquals(10, inventory.getCoffee(), "The amount of coffee should not change");
+        assertEquals(10, inventory.getMilk(), "The amount of milk should not change");
+        assertEquals(10, inventory.getChocolate(), "The amount of chocolate should not change");
+        assertEquals(10, inventory.getSugar(), "The amount of sugar should not change");
+    }
+
+    @Test
+    void removeAmountsMethodShouldWorkWithRegisteredIngredients() {
+
+        // given - an inventory with some of a registered ingredient
+        int vanilla = IngredientRegistry.register("Vanilla syrup");
+        Inventory inventory = new Inventory(10, 10, 10, 10);
+        inventory.addIngredient(vanilla, 3);
+
+        // when - we remove amounts of it together with a basic ingredient
+        IngredientAmounts requirements = IngredientAmounts.builder().add(Ingredient.MILK, 2).add(vanilla, 2).build();
+        boolean first = inventory.removeAmounts(requirements);
+        boolean second = inventory.removeAmounts(requirements);
+
+        // then - only the first removal works
+        assertTrue(first, "The inventory should remove amounts that are available");
+        assertFalse(second, "The inventory should not remove more than what is available");
+
+        // and - only the used ingredients are changed
+        assertEquals(1, inventory.getAmount(vanilla), "The amount of vanilla syrup is not matching");
+        assertEquals(8, inventory.getMilk(), "The amount of milk is not matching");
+        assertEquals(10, inventory.getCoffee(), "The amount of coffee should not change");
+    }
+}
@@ -0,0 +1,115 @@
+package com.redi.j2.coffeemaker;
+
+import com.redi.j2.exceptions.InvalidRecipeIngredientAmountException;
+import com.redi.j2.exceptions.InvalidRecipePriceException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void journaledMachineShouldRecoverItsStateAfterARestart() throws IOException, InvalidRecipePriceException, InvalidRecipeIngredientAmountException {
+
+        // given - a journaled machine that takes snapshots very often
+        CoffeeMaker coffeeMaker = new CoffeeMaker(RecipeBook.MAX_RECIPES, new Journal(directory, 3));
+
+        // and - some changes to the inventory and the catalog, before and after snapshots
+        coffeeMaker.addIngredients(5, 6, 7, 8);
+        coffeeMaker.addRecipe(new Recipe("Mocha", BigDecimal.valueOf(3.5), 1, 1, 2, 1));
+        coffeeMaker.makeCoffee("Mocha");
+        coffeeMaker.updateRecipe(new Recipe("Mocha", BigDecimal.valueOf(4), 1, 2, 2, 1));
+        coffeeMaker.makeCoffee("Cappuccino");
+        coffeeMaker.addRecipe(new Recipe("Espresso", BigDecimal.valueOf(1.5), 1, 0, 0, 0));
+        coffeeMaker.removeRecipe("Espresso");
+        coffeeMaker.makeCoffee("Mocha");
+        String inventory = coffeeMaker.getInventory().toString();
+        coffeeMaker.getJournal().close();
+
+        // when - the machine is restarted with the same journal
+        CoffeeMaker restarted = new CoffeeMaker(RecipeBook.MAX_RECIPES, new Journal(directory, 3));
+
+        // then - the inventory is the same
+        assertEquals(inventory, restarted.getInventory().toString(), "The inventory should be recovered from the journal");
+
+        // and - the catalog is the same
+        assertEquals(2, restarted.getAllRecipes().size(), "The catalog should be recovered from the journal");
+        assertEquals(BigDecimal.valueOf(4), restarted.getRecipe("Mocha").getPrice(), "Updated recipes should be recovered from the journal");
+        assertNull(restarted.getRecipe("Espresso"), "Removed recipes should stay removed");
+        restarted.getJournal().close();
+    }
+
+    @Test
+    void newJournalShouldStartWithTheDefaultState() throws IOException {
+
+        // given - an empty directory
+
+        // when - a journaled machine is created there
+        CoffeeMaker coffeeMaker = new CoffeeMaker(RecipeBook.MAX_RECIPES, new Journal(directory));
+
+        // then - it starts like any new machine
+        assertEquals(10, coffeeMaker.getInventory().getCoffee(), "A new machine should start with 10 units of each ingredient");
+        assertNotNull(coffeeMaker.getRecipe("Cappuccino"), "A new machine should start with the default recipe");
+        coffeeMaker.getJournal().close();
+    }
+
+    @Test
+    void journaledMachineShouldRecoverRegisteredIngredients() throws IOException, InvalidRecipePriceException, InvalidRecipeIngredientAmountException {
+
+        // given - a journaled machine with a recipe that uses a registered ingredient
+        CoffeeMaker coffeeMaker = new CoffeeMaker(RecipeBook.MAX_RECIPES, new Journal(directory, 4));
+        coffeeMaker.addIngredient("Caramel", 5);
+        IngredientAmounts requirements = IngredientAmounts.builder().add(Ingredient.COFFEE, 1).add("Caramel", 2).build();
+        coffeeMaker.addRecipe(new Recipe("Caramel Latte", BigDecimal.valueOf(3), requirements));
+        coffeeMaker.makeCoffee("Caramel Latte");
+        coffeeMaker.addIngredient("Cinnamon", 7);
+        coffeeMaker.getJournal().close();
+
+        // when - the machine is restarted with the same journal
+        CoffeeMaker restarted = new CoffeeMaker(RecipeBook.MAX_RECIPES, new Journal(directory, 4));
+
+        // then - the registered ingredients are recovered, from the snapshot and from the log
+        int caramel = IngredientRegistry.getId("caramel");
+        assertEquals(3, restarted.getInventory().getAmount(caramel), "The amount of caramel is not matching");
+        assertEquals(7, restarted.getInventory().getAmount(IngredientRegistry.getId("Cinnamon")), "The amount of cinnamon is not matching");
+
+        // and - the recipe still uses them
+        assertEquals(2, restarted.getRecipe("Caramel Latte").getAmount(caramel), "The recipe should still use caramel");
+        restarted.getJournal().close();
+    }
+
+    @Test
+    void recoveryShouldFailWhenTheSavedRecipesDoNotFit() throws IOException, InvalidRecipePriceException, InvalidRecipeIngredientAmountException {
+
+        // given - two journaled machines with 4 Recipes, one with them in the snapshot and one with them in the log
+        Path inSnapshot = directory.resolve("snapshot");
+        Path inLog = directory.resolve("log");
+        for (Path path : new Path[] {inSnapshot, inLog}) {
+            CoffeeMaker coffeeMaker = new CoffeeMaker(RecipeBook.MAX_RECIPES, new Journal(path, path == inSnapshot ? 1 : 1000));
+            coffeeMaker.addRecipe(new Recipe("Espresso", BigDecimal.valueOf(1.5), 1, 0, 0, 0));
+            coffeeMaker.addRecipe(new Recipe("Latte", BigDecimal.valueOf(2.5), 1, 3, 0, 0));
+            coffeeMaker.addRecipe(new Recipe("Mocha", BigDecimal.valueOf(3.5), 1, 1, 2, 1));
+            coffeeMaker.getJournal().close();
+        }
+
+        // when - they are restarted with room for only 2 Recipes
+        // then - the recovery fails, instead of dropping Recipes
+        for (Path path : new Path[] {inSnapshot, inLog}) {
+            Journal journal = new Journal(path, 1000);
+            try {
+                assertThrows(IOException.class, () -> new CoffeeMaker(2, journal),
+                        "Recipes that do not fit should not be dropped silently");
+            } finally {
+                journal.close();
+            }
+        }
+    }
+}
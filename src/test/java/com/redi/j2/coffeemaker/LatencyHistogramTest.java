@@ -0,0 +1,30 @@
+package com.redi.j2.coffeemaker;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentilesShouldBeWithinTheHistogramPrecision() {
+
+        // given - a histogram with the values from 1 to 100000
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100_000; i++) {
+            histogram.record(i);
+        }
+
+        // when - we take a snapshot
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        // then - all the values are counted
+        assertEquals(100_000, snapshot.getCount(), "All the values should be counted");
+
+        // and - the percentiles are at most 12.5% above the exact values
+        assertEquals(50_000, snapshot.getP50(), 50_000 * 0.125, "The median is not within the precision");
+        assertEquals(99_000, snapshot.getP99(), 99_000 * 0.125, "The 99th percentile is not within the precision");
+        assertEquals(99_900, snapshot.getP999(), 99_900 * 0.125, "The 99.9th percentile is not within the precision");
+        assertTrue(snapshot.getP50() >= 50_000, "Percentiles should never be below the exact value");
+    }
+}
@@ -0,0 +1,81 @@
+package com.redi.j2.coffeemaker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderIntakeTest {
+
+    @Test
+    void submitMethodShouldRejectOrdersWhenTheQueueIsFull() throws Exception {
+
+        // given - an intake with one worker and room for one waiting order
+        OrderIntake intake = new OrderIntake(1, 1, OverflowPolicy.REJECT);
+
+        // and - the worker is busy, and one order is waiting
+        CountDownLatch busy = new CountDownLatch(1);
+        CompletableFuture<Boolean> first = intake.submit(() -> await(busy));
+        CompletableFuture<Boolean> second = intake.submit(() -> true);
+        waitUntilQueued(intake, 1);
+
+        // when - one more order arrives
+        CompletableFuture<Boolean> third = intake.submit(() -> true);
+
+        // then - it is rejected
+        ExecutionException e = assertThrows(ExecutionException.class, () -> third.get(5, TimeUnit.SECONDS),
+                "Orders should be rejected when the queue is full");
+        assertTrue(e.getCause() instanceof RejectedExecutionException, "Rejected orders should fail with RejectedExecutionException");
+
+        // and - the accepted orders are still made
+        busy.countDown();
+        assertTrue(first.get(5, TimeUnit.SECONDS), "Accepted orders should be made");
+        assertTrue(second.get(5, TimeUnit.SECONDS), "Accepted orders should be made");
+        intake.shutdown();
+    }
+
+    @Test
+    void submitMethodShouldDiscardTheOldestOrderWhenConfigured() throws Exception {
+
+        // given - an intake with one worker, room for one waiting order, discarding the oldest one
+        OrderIntake intake = new OrderIntake(1, 1, OverflowPolicy.DISCARD_OLDEST);
+
+        // and - the worker is busy, and one order is waiting
+        CountDownLatch busy = new CountDownLatch(1);
+        intake.submit(() -> await(busy));
+        CompletableFuture<Boolean> oldest = intake.submit(() -> true);
+        waitUntilQueued(intake, 1);
+
+        // when - one more order arrives
+        CompletableFuture<Boolean> newest = intake.submit(() -> true);
+        busy.countDown();
+
+        // then - the oldest waiting order is rejected
+        assertThrows(ExecutionException.class, () -> oldest.get(5, TimeUnit.SECONDS),
+                "The oldest waiting order should be rejected");
+
+        // and - the new order is made
+        assertTrue(newest.get(5, TimeUnit.SECONDS), "The new order should be made");
+        intake.shutdown();
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+
+    private static void waitUntilQueued(OrderIntake intake, int orders) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (intake.getQueuedOrders() < orders && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+}
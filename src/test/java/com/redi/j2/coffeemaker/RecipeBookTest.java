@@ -0,0 +1,112 @@
+package com.redi.j2.coffeemaker;
+
+import com.redi.j2.exceptions.InvalidRecipeIngredientAmountException;
+import com.redi.j2.exceptions.InvalidRecipePriceException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecipeBookTest {
+
+    @Test
+    void addRecipeMethodShouldRespectTheCapacity() throws InvalidRecipePriceException, InvalidRecipeIngredientAmountException {
+
+        // given - a catalog with a custom capacity
+        RecipeBook recipeBook = new RecipeBook(1000);
+
+        // when - we add as many recipes as the capacity allows
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(recipeBook.addRecipe(new Recipe("Recipe " + i, BigDecimal.ONE, 1, 1, 1, 1)),
+                    "The catalog should accept recipes until it is full");
+        }
+
+        // then - all of them can be found by name
+        assertEquals("Recipe 500", recipeBook.getRecipe("Recipe 500").getName(), "Recipes should be found by name");
+
+        // and - no more recipes are accepted
+        assertFalse(recipeBook.addRecipe(new Recipe("One Too Many", BigDecimal.ONE, 1, 1, 1, 1)),
+                "The catalog should not accept recipes when it is full");
+    }
+
+    @Test
+    void getRecipesMethodShouldReturnAConsistentSnapshot() throws InvalidRecipePriceException, InvalidRecipeIngredientAmountException {
+
+        // given - a catalog with one recipe
+        RecipeBook recipeBook = new RecipeBook();
+        recipeBook.addRecipe(new Recipe("Cappuccino", BigDecimal.ONE, 1, 1, 1, 1));
+
+        // and - a reader that got the list of recipes
+        List<Recipe> snapshot = recipeBook.getRecipes();
+
+        // when - the catalog is edited
+        recipeBook.addRecipe(new Recipe("Mocha", BigDecimal.ONE, 1, 1, 1, 1));
+        recipeBook.removeRecipe("Cappuccino");
+
+        // then - the reader still sees the catalog as it was
+        assertEquals(1, snapshot.size(), "A snapshot should not change when the catalog is edited");
+        assertEquals("Cappuccino", snapshot.get(0).getName(), "A snapshot should not change when the catalog is edited");
+
+        // and - new readers see the new catalog
+        assertNull(recipeBook.getRecipe("Cappuccino"), "Removed recipes should not be found");
+        assertNotNull(recipeBook.getRecipe("Mocha"), "Added recipes should be found");
+    }
+
+    @Test
+    void readersShouldNeverSeeAHalfDoneBulkUpdate() throws Exception {
+
+        // given - a catalog where every recipe always has the same price
+        int size = 1000;
+        RecipeBook recipeBook = new RecipeBook(size);
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            recipes.add(new Recipe("Recipe " + i, BigDecimal.ZERO, 1, 1, 1, 1));
+        }
+        recipeBook.addRecipes(recipes);
+
+        // when - the prices of all the recipes are changed many times, while other threads read the catalog
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> problem = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 3; t++) {
+            Thread reader = new Thread(() -> {
+                long lastVersion = -1;
+                while (running.get() && problem.get() == null) {
+                    RecipeBook.Snapshot snapshot = recipeBook.snapshot();
+                    if (snapshot.getVersion() < lastVersion) problem.set("The version went back");
+                    lastVersion = snapshot.getVersion();
+                    BigDecimal price = snapshot.getRecipe("Recipe 0").getPrice();
+                    for (Recipe recipe : snapshot.getRecipes()) {
+                        if (!recipe.getPrice().equals(price)) problem.set("Mixed prices in version " + lastVersion);
+                    }
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        long versionBefore = recipeBook.snapshot().getVersion();
+        for (int round = 1; round <= 200; round++) {
+            List<Recipe> changed = new ArrayList<>(size);
+            for (Recipe recipe : recipeBook.getRecipes()) {
+                changed.add(new Recipe(recipe.getName(), BigDecimal.valueOf(round), recipe.getRequirements()));
+            }
+            assertEquals(size, recipeBook.updateRecipes(changed).size(), "All the recipes should be updated");
+        }
+        running.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        // then - the readers only saw whole updates
+        assertNull(problem.get(), "Readers should only see whole versions of the catalog");
+
+        // and - each bulk update was a single version, keeping the order of the recipes
+        assertEquals(versionBefore + 200, recipeBook.snapshot().getVersion(), "Each bulk update should publish one version");
+        assertEquals("Recipe 0", recipeBook.getRecipes().get(0).getName(), "The order of the recipes should not change");
+    }
+}
@@ -68,9 +68,45 @@ class RecipeTest {
         assertTrue(equals, "Recipes must be considered equal if they have the same name");
     }
 
+    @Test
+    void hashCodeMethodShouldBeConsistentWithEquals() throws InvalidRecipePriceException, InvalidRecipeIngredientAmountException {
+
+        // given - two Recipes with the same name, but different prices and amounts
+        Recipe r1 = new Recipe("Cappuccino", BigDecimal.ONE, 5, 4, 3, 2);
+        Recipe r2 = new Recipe(r1.getName(), BigDecimal.valueOf(2.0), 1, 1, 1, 1);
+
+        // when - we calculate their hash codes
+        int hash1 = r1.hashCode();
+        int hash2 = r2.hashCode();
+
+        // then - they should be the same, because the Recipes are equal
+        assertEquals(hash1, hash2, "Equal Recipes must have the same hash code");
+    }
+
+    @Test
+    void getAmountsMethodShouldReturnTheAmountsByIngredient() throws InvalidRecipePriceException, InvalidRecipeIngredientAmountException {
+
+        // given - a Recipe
+        Recipe recipe = new Recipe("Cappuccino", BigDecimal.ONE, 5, 4, 3, 2);
+
+        // when - we get all the amounts
+        int[] amounts = recipe.getAmounts();
+
+        // then - each ingredient is found in its own position
+        assertEquals(recipe.getAmountCoffee(), amounts[Ingredient.COFFEE.ordinal()], "Coffee is not matching");
+        assertEquals(recipe.getAmountMilk(), amounts[Ingredient.MILK.ordinal()], "Milk is not matching");
+        assertEquals(recipe.getAmountChocolate(), amounts[Ingredient.CHOCOLATE.ordinal()], "Chocolate is not matching");
+        assertEquals(recipe.getAmountSugar(), amounts[Ingredient.SUGAR.ordinal()], "Sugar is not matching");
+
+        // and - changing the returned array does not change the Recipe
+        amounts[Ingredient.COFFEE.ordinal()] = 100;
+        assertEquals(5, recipe.getAmountCoffee(), "Recipes must be immutable");
+    }
+
     private static Stream<Arguments> provideExceptionParams() {
         return Stream.of(
                 Arguments.of("Price", "Cappuccino", BigDecimal.valueOf(-1), 5, 4, 3, 2, InvalidRecipePriceException.class),
+                Arguments.of("Huge Price", "Cappuccino", new BigDecimal("1e400"), 5, 4, 3, 2, InvalidRecipePriceException.class),
                 Arguments.of("Coffee Amount", "Cappuccino", BigDecimal.valueOf(1), -5, 4, 3, 2, InvalidRecipeIngredientAmountException.class),
                 Arguments.of("Milk Amount", "Cappuccino", BigDecimal.valueOf(1), 5, -4, 3, 2, InvalidRecipeIngredientAmountException.class),
                 Arguments.of("Chocolate Amount", "Cappuccino", BigDecimal.valueOf(1), 5, 4, -3, 2, InvalidRecipeIngredientAmountException.class),
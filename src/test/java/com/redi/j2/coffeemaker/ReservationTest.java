@@ -0,0 +1,134 @@
+package com.redi.j2.coffeemaker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationTest {
+
+    @Test
+    void reservedIngredientsShouldNotBeUsedByOtherOrders() {
+
+        // given - a machine with enough ingredients for two Cappuccinos
+        CoffeeMaker coffeeMaker = new CoffeeMaker();
+        coffeeMaker.getInventory().removeAmounts(6, 4, 0, 8);
+
+        // when - one Cappuccino is reserved
+        Reservation reservation = coffeeMaker.reserve("Cappuccino", Duration.ofMinutes(1));
+
+        // then - only one more can be made
+        assertNotNull(reservation, "There should be enough ingredients to reserve");
+        assertTrue(coffeeMaker.makeCoffee("Cappuccino"), "The ingredients that were not reserved should be used");
+        assertFalse(coffeeMaker.makeCoffee("Cappuccino"), "The reserved ingredients should not be used");
+
+        // and - the reservation can be made once
+        assertTrue(coffeeMaker.commit(reservation), "An active reservation should be committed");
+        assertFalse(coffeeMaker.commit(reservation), "A reservation should be committed only once");
+        assertEquals(Reservation.State.COMMITTED, reservation.getState(), "The reservation should be committed");
+        assertEquals(0, coffeeMaker.getInventory().getCoffee(), "The reserved coffee should be used");
+    }
+
+    @Test
+    void cancelledReservationsShouldGiveTheIngredientsBack() {
+
+        // given - a reservation
+        CoffeeMaker coffeeMaker = new CoffeeMaker();
+        Reservation reservation = coffeeMaker.reserve("Cappuccino", Duration.ofMinutes(1));
+
+        // when - it is cancelled
+        boolean cancelled = coffeeMaker.cancel(reservation);
+
+        // then - the ingredients are back, and the reservation cannot be committed
+        assertTrue(cancelled, "An active reservation should be cancelled");
+        assertEquals(10, coffeeMaker.getInventory().getCoffee(), "The coffee should be back in the stock");
+        assertFalse(coffeeMaker.commit(reservation), "A cancelled reservation should not be committed");
+        assertEquals(0, coffeeMaker.getActiveReservations(), "There should be no active reservations");
+    }
+
+    @Test
+    void reservationsShouldOnlyBeEndedByTheMachineThatMadeThem() {
+
+        // given - two machines, and a reservation made by the first one
+        CoffeeMaker first = new CoffeeMaker();
+        CoffeeMaker second = new CoffeeMaker();
+        Reservation reservation = first.reserve("Cappuccino", Duration.ofMinutes(1));
+
+        // when - the second machine tries to commit or cancel it
+        // then - both are rejected
+        assertThrows(IllegalArgumentException.class, () -> second.commit(reservation),
+                "A reservation should not be committed by another machine");
+        assertThrows(IllegalArgumentException.class, () -> second.cancel(reservation),
+                "A reservation should not be cancelled by another machine");
+
+        // and - nothing changed on either machine
+        assertEquals(Reservation.State.ACTIVE, reservation.getState(), "The reservation should still be active");
+        assertEquals(0, second.getActiveReservations(), "The other machine should have no active reservations");
+        assertEquals(10, second.getInventory().getCoffee(), "The other machine should keep its coffee");
+        assertEquals(1, first.getActiveReservations(), "The reservation should still be active on its machine");
+
+        // and - the machine that made it can still commit it
+        assertTrue(first.commit(reservation), "The reservation should be committed by its machine");
+        assertEquals(0, first.getActiveReservations(), "There should be no active reservations");
+    }
+
+    @Test
+    void expiredLeasesShouldGiveTheIngredientsBack() throws InterruptedException {
+
+        // given - many reservations with a short lease
+        CoffeeMaker coffeeMaker = new CoffeeMaker();
+        coffeeMaker.addIngredients(1_000_000, 0, 0, 0);
+        coffeeMaker.addRecipe(newEspresso());
+        int reservations = 200_000;
+        Reservation first = null;
+        for (int i = 0; i < reservations; i++) {
+            Reservation reservation = coffeeMaker.reserve("Espresso", Duration.ofSeconds(1));
+            if (first == null) first = reservation;
+        }
+        assertEquals(reservations, coffeeMaker.getActiveReservations(), "All the reservations should be active");
+
+        // when - their leases run out
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (coffeeMaker.getActiveReservations() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // then - every ingredient is back in the stock
+        assertEquals(0, coffeeMaker.getActiveReservations(), "Every lease should expire");
+        assertEquals(1_000_010, coffeeMaker.getInventory().getCoffee(), "All the coffee should be back in the stock");
+        assertEquals(Reservation.State.EXPIRED, first.getState(), "The reservation should be expired");
+        assertFalse(coffeeMaker.commit(first), "An expired reservation should not be committed");
+    }
+
+    @Test
+    void journaledMachineShouldOnlyKeepCommittedReservations(@TempDir Path directory) throws Exception {
+
+        // given - a journaled machine with one active and one committed reservation
+        CoffeeMaker coffeeMaker = new CoffeeMaker(RecipeBook.MAX_RECIPES, new Journal(directory, 2));
+        coffeeMaker.reserve("Cappuccino", Duration.ofMinutes(1));
+        coffeeMaker.commit(coffeeMaker.reserve("Cappuccino", Duration.ofMinutes(1)));
+
+        // and - a snapshot taken while the reservation is still active
+        coffeeMaker.addRecipe(newEspresso());
+        coffeeMaker.getJournal().close();
+
+        // when - the machine is restarted
+        CoffeeMaker restarted = new CoffeeMaker(RecipeBook.MAX_RECIPES, new Journal(directory, 2));
+
+        // then - only the committed Cappuccino used ingredients
+        assertEquals(8, restarted.getInventory().getCoffee(), "The active reservation should be back in the stock");
+        restarted.getJournal().close();
+    }
+
+    private static Recipe newEspresso() {
+        try {
+            return new Recipe("Espresso", BigDecimal.valueOf(1.5), 1, 0, 0, 0);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.redi.j2.coffeemaker;
+
+import com.redi.j2.exceptions.InvalidRecipeIngredientAmountException;
+import com.redi.j2.exceptions.InvalidRecipePriceException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.SortedMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SalesLedgerTest {
+
+    @Test
+    void recordMethodShouldAddUpRevenueInCents() throws InvalidRecipePriceException, InvalidRecipeIngredientAmountException {
+
+        // given - a ledger with periods of one hour
+        Instant now = Instant.parse("2022-05-01T10:15:00Z");
+        SalesLedger ledger = new SalesLedger(Clock.fixed(now, ZoneOffset.UTC), Duration.ofHours(1));
+
+        // and - two recipes, with prices that cannot be represented exactly as a double
+        Recipe cappuccino = new Recipe("Cappuccino", new BigDecimal("2.70"), 1, 1, 1, 1);
+        Recipe mocha = new Recipe("Mocha", new BigDecimal("0.10"), 1, 1, 1, 1);
+
+        // when - we sell them many times
+        for (int i = 0; i < 1000; i++) {
+            ledger.record(cappuccino);
+            ledger.record(mocha);
+        }
+
+        // then - the revenue is exact
+        assertEquals(280_000, ledger.getTotalRevenueCents(), "The total revenue must be exact");
+        assertEquals(270_000L, ledger.getRevenueByRecipe().get("Cappuccino"), "The revenue per recipe must be exact");
+        assertEquals(1000L, ledger.getSalesByRecipe().get("Mocha"), "The sales per recipe must be counted");
+
+        // and - all the revenue is in the current period
+        SortedMap<Instant, Long> byPeriod = ledger.getRevenueByPeriod();
+        assertEquals(1, byPeriod.size(), "All the sales should be in the same period");
+        assertEquals(Instant.parse("2022-05-01T10:00:00Z"), byPeriod.firstKey(), "Periods should start at the beginning of the hour");
+    }
+
+    @Test
+    void makeCoffeeMethodShouldRecordOnlySuccessfulSales() {
+
+        // given - a Coffee Maker machine with ingredients for 3 Cappuccinos
+        CoffeeMaker coffeeMaker = new CoffeeMaker();
+
+        // when - we order 5 Cappuccinos
+        for (int i = 0; i < 5; i++) {
+            coffeeMaker.makeCoffee("Cappuccino");
+        }
+
+        // then - only the ones made are in the ledger
+        assertEquals(3, coffeeMaker.getSalesLedger().getTotalSales(), "Only recipes made should be sold");
+        assertEquals(810, coffeeMaker.getSalesLedger().getTotalRevenueCents(), "The revenue should match the recipes made");
+    }
+}
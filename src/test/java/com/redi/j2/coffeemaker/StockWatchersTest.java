@@ -0,0 +1,95 @@
+package com.redi.j2.coffeemaker;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StockWatchersTest {
+
+    @Test
+    void ingredientWatchShouldOnlyBeAlertedWhenTheThresholdIsCrossed() throws Exception {
+
+        // given - a watch for less than 5 units of milk, with 10 in stock
+        CoffeeMaker coffeeMaker = new CoffeeMaker();
+        BlockingQueue<StockAlert> alerts = new LinkedBlockingQueue<>();
+        StockWatch watch = coffeeMaker.watchIngredient("milk", 5, alerts::add);
+
+        // when - milk goes down to 7, 4 and 1, and then is refilled
+        coffeeMaker.makeCoffee("Cappuccino");
+        coffeeMaker.makeCoffee("Cappuccino");
+        coffeeMaker.makeCoffee("Cappuccino");
+        coffeeMaker.addIngredients(0, 10, 0, 0);
+
+        // then - there is one alert when it goes below 5, and one when it is back above
+        StockAlert low = alerts.poll(5, TimeUnit.SECONDS);
+        StockAlert restocked = alerts.poll(5, TimeUnit.SECONDS);
+        assertNotNull(low, "The watch should be alerted when the milk runs low");
+        assertTrue(low.isLow(), "The first alert should be low");
+        assertEquals(4, low.getAmount(), "The amount should be the one right after the crossing");
+        assertNotNull(restocked, "The watch should be alerted when the milk is refilled");
+        assertFalse(restocked.isLow(), "The second alert should be restocked");
+        assertEquals(11, restocked.getAmount(), "The amount should be the one right after the refill");
+        assertNull(alerts.poll(100, TimeUnit.MILLISECONDS), "Changes that cross no threshold should not be alerted");
+        assertFalse(watch.isLow(), "The watch should not be low anymore");
+    }
+
+    @Test
+    void servingsWatchShouldFollowTheInventoryAndTheCatalog() throws Exception {
+
+        // given - a watch for fewer than 2 Cappuccinos, with enough ingredients for 3
+        CoffeeMaker coffeeMaker = new CoffeeMaker();
+        BlockingQueue<StockAlert> alerts = new LinkedBlockingQueue<>();
+        coffeeMaker.watchServings("Cappuccino", 2, alerts::add);
+
+        // when - 2 Cappuccinos are made, then the Recipe needs less milk, and then it is removed
+        coffeeMaker.makeCoffee("Cappuccino");
+        coffeeMaker.makeCoffee("Cappuccino");
+        coffeeMaker.updateRecipe(new Recipe("Cappuccino", BigDecimal.valueOf(2.7), 2, 1, 0, 1));
+        coffeeMaker.removeRecipe("Cappuccino");
+
+        // then - the watch is alerted at each crossing, with the servings at that moment
+        List<String> received = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            StockAlert alert = alerts.poll(5, TimeUnit.SECONDS);
+            assertNotNull(alert, "There should be 3 alerts");
+            received.add((alert.isLow() ? "low " : "restocked ") + alert.getAmount());
+        }
+        assertEquals(List.of("low 1", "restocked 3", "low 0"), received, "The alerts are not matching");
+        assertNull(alerts.poll(100, TimeUnit.MILLISECONDS), "There should be no more alerts");
+    }
+
+    @Test
+    void manyWatchesShouldOnlyAlertTheCrossedThresholds() throws Exception {
+
+        // given - 1000 watches on coffee, with thresholds from 1 to 1000, and 10 units in stock
+        CoffeeMaker coffeeMaker = new CoffeeMaker();
+        BlockingQueue<StockAlert> alerts = new LinkedBlockingQueue<>();
+        List<StockWatch> watches = new ArrayList<>();
+        for (int threshold = 1; threshold <= 1000; threshold++) {
+            watches.add(coffeeMaker.watchIngredient("coffee", threshold, alerts::add));
+        }
+
+        // when - 100 units are added, and one of the watches that would be alerted is removed
+        coffeeMaker.unwatch(watches.get(49));
+        coffeeMaker.addIngredients(100, 0, 0, 0);
+
+        // then - only the thresholds between 11 and 110 are alerted, and only once
+        List<StockAlert> received = new ArrayList<>();
+        while (received.size() < 99) {
+            StockAlert alert = alerts.poll(5, TimeUnit.SECONDS);
+            assertNotNull(alert, "There should be 99 alerts");
+            received.add(alert);
+        }
+        assertNull(alerts.poll(100, TimeUnit.MILLISECONDS), "There should be no more alerts");
+        assertTrue(received.stream().allMatch(alert -> !alert.isLow() && alert.getWatch().getThreshold() > 10
+                && alert.getWatch().getThreshold() <= 110), "Only the crossed thresholds should be alerted");
+        assertTrue(watches.get(110).isLow(), "A threshold above the new amount should still be low");
+    }
+}
@@ -0,0 +1,35 @@
+package com.redi.j2.coffeemaker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    @Test
+    void advanceMethodShouldExpireItemsOnlyAfterTheirDeadline() {
+
+        // given - a wheel of 8 ticks of 10 ns, with deadlines in this turn and in later turns
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 0);
+        wheel.schedule("soon", 25);
+        wheel.schedule("next turn", 105);
+        wheel.schedule("much later", 1_000);
+
+        // when - the wheel advances up to some moments
+        List<String> expired = new ArrayList<>();
+        int atStart = wheel.advance(20, expired::add);
+        int afterSoon = wheel.advance(30, expired::add);
+        int afterOneTurn = wheel.advance(110, expired::add);
+        int afterManyTurns = wheel.advance(5_000, expired::add);
+
+        // then - each item expires once, on the first tick after its deadline
+        assertEquals(0, atStart, "Nothing should expire before its deadline");
+        assertEquals(1, afterSoon, "The first item should expire after its deadline");
+        assertEquals(1, afterOneTurn, "Items in later turns should wait for their turn");
+        assertEquals(1, afterManyTurns, "A late wheel should still expire every item");
+        assertEquals(List.of("soon", "next turn", "much later"), expired, "The items should expire in order");
+    }
+}
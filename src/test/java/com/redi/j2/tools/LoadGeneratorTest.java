@@ -0,0 +1,66 @@
+package com.redi.j2.tools;
+
+import com.redi.j2.coffeemaker.CoffeeMaker;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadGeneratorTest {
+
+    @Test
+    void runMethodShouldCountEveryOrderAndFindNoInconsistency() throws InterruptedException {
+
+        // given - a machine under load from a few customers, with refills and catalog changes
+        CoffeeMaker coffeeMaker = new CoffeeMaker();
+        LoadGenerator generator = new LoadGenerator(coffeeMaker, new LoadGenerator.Settings()
+                .customers(4)
+                .duration(Duration.ofMillis(600))
+                .refill(Duration.ofMillis(10), 50)
+                .catalogChangeInterval(Duration.ofMillis(20))
+                .reportInterval(Duration.ofMillis(200)));
+
+        // when - the load runs until its end
+        List<LoadGenerator.Interval> intervals = new ArrayList<>();
+        LoadGenerator.Summary summary = generator.run(intervals::add);
+
+        // then - every interval was reported
+        assertEquals(3, intervals.size(), "There should be one report per interval");
+
+        // and - every order was counted and measured
+        LoadGenerator.Interval total = summary.getTotal();
+        assertTrue(total.getBrewed() > 0, "Some orders should be brewed");
+        assertEquals(total.getOrders(), total.getLatency().getCount(), "Every order should have a latency");
+        assertEquals(total.getOrders(), intervals.stream().mapToLong(LoadGenerator.Interval::getOrders).sum(),
+                "The intervals should add up to the total");
+
+        // and - the inventory always matched what the load did
+        assertTrue(summary.isConsistent(), "The inventory should be consistent: " + summary.getInconsistencies());
+    }
+
+    @Test
+    void runMethodShouldFlagChangesMadeOutsideTheLoad() throws InterruptedException {
+
+        // given - a machine under load, where someone else adds coffee after the first report
+        CoffeeMaker coffeeMaker = new CoffeeMaker();
+        LoadGenerator generator = new LoadGenerator(coffeeMaker, new LoadGenerator.Settings()
+                .customers(2)
+                .duration(Duration.ofMillis(300))
+                .reportInterval(Duration.ofMillis(100)));
+
+        // when - the load runs
+        List<LoadGenerator.Interval> intervals = new ArrayList<>();
+        LoadGenerator.Summary summary = generator.run(interval -> {
+            if (intervals.isEmpty()) coffeeMaker.addIngredients(7, 0, 0, 0);
+            intervals.add(interval);
+        });
+
+        // then - the unexpected coffee is reported once
+        assertFalse(summary.isConsistent(), "The inventory should be inconsistent");
+        assertEquals(1, summary.getTotal().getInconsistencies(), "The inconsistency should be reported once");
+        assertTrue(summary.getInconsistencies().get(0).contains("COFFEE"), "The inconsistency should name the ingredient");
+    }
+}
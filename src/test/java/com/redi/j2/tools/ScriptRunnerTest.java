@@ -0,0 +1,49 @@
+package com.redi.j2.tools;
+
+import com.redi.j2.coffeemaker.BrewResult;
+import com.redi.j2.coffeemaker.CoffeeMaker;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScriptRunnerTest {
+
+    @Test
+    void runMethodShouldRunEveryCommandAndCountTheOutcomes() throws Exception {
+
+        // given - a coffee maker and a script with every kind of command
+        CoffeeMaker coffeeMaker = new CoffeeMaker();
+        String script = String.join("\n",
+                "# a comment",
+                "",
+                "add, Latte, 2.50, 1, 3, 0, 0",
+                "brew,Latte",
+                "brew,Mocha",
+                "update,Latte,2.80,1,30,0,1",
+                "brew,Latte",
+                "refill,0,30,0,1",
+                "brew,Latte",
+                "remove,Mocha",
+                "refill,one,two",
+                "add,Free,-1,1,1,1,1");
+
+        // when - the script runs
+        ScriptRunner.Summary summary = new ScriptRunner(coffeeMaker).run(new StringReader(script));
+
+        // then - every line was read
+        assertEquals(12, summary.getLines(), "All the lines should be read");
+
+        // and - every order has its outcome
+        assertEquals(2, summary.getBrews(BrewResult.BREWED), "Two Lattes should be made");
+        assertEquals(1, summary.getBrews(BrewResult.UNKNOWN_RECIPE), "The Mocha does not exist");
+        assertEquals(1, summary.getBrews(BrewResult.NOT_ENOUGH_INGREDIENTS), "The updated Latte needs more milk");
+
+        // and - the other commands were counted
+        assertEquals(1, summary.getRefills(), "One refill should work");
+        assertEquals(2, summary.getRecipeChanges(), "The Latte should be added and updated");
+        assertEquals(1, summary.getRejectedRecipeChanges(), "The Mocha cannot be removed");
+        assertEquals(2, summary.getInvalidLines(), "The bad refill and the negative price are invalid");
+    }
+}
@@ -0,0 +1,27 @@
+package com.redi.j2.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnsiImageTest {
+
+    @Test
+    void renderMethodShouldMergePixelsWithTheSameColor() {
+
+        // given - a row with two red pixels, followed by a transparent pixel
+        BufferedImage img = new BufferedImage(3, 1, BufferedImage.TYPE_INT_ARGB);
+        img.setRGB(0, 0, 0xFFFF0000);
+        img.setRGB(1, 0, 0xFFFF0000);
+        img.setRGB(2, 0, 0x00000000);
+
+        // when - we render it
+        String rendered = new String(AnsiImage.render(img), StandardCharsets.US_ASCII);
+
+        // then - the red color is written once, for both pixels
+        assertEquals("\u001B[48;2;255;0;0m  \u001B[0m \u001B[0m\n", rendered, "The rendered row is not matching");
+    }
+}
@@ -0,0 +1,40 @@
+package com.redi.j2.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScreenTest {
+
+    @Test
+    void flushMethodShouldWriteTheWholeScreenAtOnce() {
+
+        // given - a screen that counts how many times it writes
+        int[] writes = {0};
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public synchronized void write(byte[] b, int off, int len) {
+                writes[0]++;
+                super.write(b, off, len);
+            }
+        };
+        Screen screen = new Screen(out);
+
+        // when - a few lines, and a text bigger than the initial buffer, are added and flushed
+        String big = "\u00e9".repeat(5000);
+        screen.println().println("first line").print(big).println().flush();
+
+        // then - everything was written with a single call
+        assertEquals(1, writes[0], "The screen should be written with a single call");
+        assertEquals("\nfirst line\n" + big + "\n", out.toString(StandardCharsets.UTF_8), "The text is not matching");
+
+        // when - it is flushed again with nothing new
+        screen.flush();
+
+        // then - nothing else is written
+        assertEquals(1, writes[0], "An empty screen should not be written");
+    }
+}